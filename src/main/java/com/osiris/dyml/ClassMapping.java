@@ -0,0 +1,539 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * The reflection metadata {@link YamlSection#as(YamlSection, Class, boolean)} and
+ * {@link YamlSection#putJavaChildSection(YamlSection, Object, boolean)} need to map objects of a class,
+ * aka its fields with their converters and the constructor to create instances with. <br>
+ * Computed once per class via {@link #of(Class)} and shared by all {@link Yaml}s.
+ * The constructor and private fields are only looked up and made accessible when first needed. <br>
+ * Fields are read and written via {@link MethodHandle}s, which get combined with the matching
+ * {@link YamlSection} getter to a single handle per field (see {@link FieldMapping#bind(Object, YamlSection)}).
+ * If a handle can't be created (for example for final fields), the field is accessed via reflection instead. <br>
+ * Arrays and collections of values (primitives, text and enums) are mapped to the values list of a single section,
+ * see {@link #toValues(Object)} and {@link #toValue(SmartString, Class)}.
+ */
+final class ClassMapping {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType BINDER_TYPE = MethodType.methodType(void.class, Object.class, YamlSection.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final ClassValue<ClassMapping> MAPPINGS = new ClassValue<ClassMapping>() {
+        @Override
+        protected ClassMapping computeValue(Class<?> type) {
+            return new ClassMapping(type);
+        }
+    };
+
+    final Class<?> type;
+    final boolean isEnum;
+    /**
+     * True for primitives, their wrappers and text, which get written as a single value.
+     */
+    final boolean isValue;
+    private final FieldMapping[] publicFields;
+    private volatile FieldMapping[] allFields;
+    /**
+     * The constructor with its arguments already inserted, of type ()Object.
+     */
+    private volatile MethodHandle constructor;
+
+    private ClassMapping(Class<?> type) {
+        this.type = type;
+        this.isEnum = type.isEnum();
+        this.isValue = isPrimitive(type) || isText(type);
+        List<FieldMapping> list = new ArrayList<>();
+        if (!isEnum) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isPublic(field.getModifiers()) && !field.isSynthetic()) list.add(new FieldMapping(field));
+            }
+        }
+        this.publicFields = list.toArray(new FieldMapping[0]);
+    }
+
+    static ClassMapping of(Class<?> type) {
+        return MAPPINGS.get(type);
+    }
+
+    /**
+     * Returns the fields to map, in declaration order.
+     * Private fields are made accessible the first time they are included.
+     * Synthetic fields (like the reference of an inner class to its outer instance) are never included.
+     */
+    FieldMapping[] getFields(boolean includePrivateFields) {
+        if (!includePrivateFields) return publicFields;
+        FieldMapping[] result = allFields;
+        if (result == null) {
+            List<FieldMapping> list = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isSynthetic()) continue;
+                if (!Modifier.isPublic(field.getModifiers())) field.setAccessible(true);
+                list.add(new FieldMapping(field));
+            }
+            result = list.toArray(new FieldMapping[0]);
+            allFields = result;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new instance via the declared constructor with the least parameters,
+     * which get initialised with null, or 0/false for primitives.
+     */
+    Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        MethodHandle handle = constructor;
+        if (handle == null) {
+            if (type.getDeclaredConstructors().length == 0) return type.newInstance();
+            if (Modifier.isAbstract(type.getModifiers()))
+                throw new InstantiationException("Cannot create an instance of abstract " + type);
+            Constructor<?> c = getTopConstructor(type);
+            Class<?>[] params = c.getParameterTypes();
+            Object[] args = new Object[params.length];
+            for (int i = 0; i < params.length; i++) {
+                args[i] = zeroValue(params[i]);
+            }
+            if (!Modifier.isPublic(c.getModifiers())) c.setAccessible(true);
+            handle = MethodHandles.insertArguments(LOOKUP.unreflectConstructor(c), 0, args).asType(CONSTRUCTOR_TYPE);
+            constructor = handle;
+        }
+        try {
+            return handle.invokeExact();
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e); // Like Constructor.newInstance()
+        }
+    }
+
+    /**
+     * Returns the declared constructor with least parameters.
+     */
+    private static Constructor<?> getTopConstructor(Class<?> clazz) {
+        Constructor<?> result = null;
+        for (Constructor<?> c : clazz.getDeclaredConstructors()) {
+            if (result == null) result = c;
+            else if (c.getParameterCount() < result.getParameterCount()) result = c;
+        }
+        return result;
+    }
+
+    private static Object zeroValue(Class<?> clazz) {
+        if (!clazz.isPrimitive()) return null;
+        if (clazz == boolean.class) return false;
+        if (clazz == char.class) return (char) 0;
+        return 0; // Gets widened to the parameter type
+    }
+
+    /**
+     * Is primitive check that includes big primitives.
+     */
+    static boolean isPrimitive(Class<?> clazz) {
+        return clazz.isPrimitive() ||
+                clazz.equals(Boolean.class) ||
+                clazz.equals(Byte.class) ||
+                clazz.equals(Short.class) ||
+                clazz.equals(Integer.class) ||
+                clazz.equals(Long.class) ||
+                clazz.equals(Float.class) ||
+                clazz.equals(Double.class) ||
+                clazz.equals(Character.class);
+    }
+
+    static boolean isText(Class<?> clazz) {
+        return
+                clazz.equals(String.class) ||
+                        clazz.equals(CharSequence.class);
+    }
+
+    /**
+     * Returns true if objects of the provided type are written as a single value
+     * (primitives, their wrappers, text and enums). Also true for {@link Object},
+     * which gets read as {@link String}.
+     */
+    static boolean isSingleValue(Class<?> clazz) {
+        return clazz == Object.class || Enum.class.isAssignableFrom(clazz) || of(clazz).isValue;
+    }
+
+    /**
+     * Returns the values of the provided array or collection in one pass, or null if it contains elements
+     * that are not single values (see {@link #isSingleValue(Class)}), like objects or nested collections. <br>
+     * Primitive arrays are read without boxing the elements.
+     */
+    static List<SmartString> toValues(Object arrayOrCollection) {
+        if (arrayOrCollection instanceof Collection) {
+            Collection<?> collection = (Collection<?>) arrayOrCollection;
+            List<SmartString> values = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                if (element != null && !isSingleValue(element.getClass())) return null;
+                values.add(toSmartString(element));
+            }
+            return values;
+        }
+        Class<?> componentType = arrayOrCollection.getClass().getComponentType();
+        if (!componentType.isPrimitive()) {
+            Object[] array = (Object[]) arrayOrCollection;
+            List<SmartString> values = new ArrayList<>(array.length);
+            for (Object element : array) {
+                if (element != null && !isSingleValue(element.getClass())) return null;
+                values.add(toSmartString(element));
+            }
+            return values;
+        }
+        int length = Array.getLength(arrayOrCollection);
+        List<SmartString> values = new ArrayList<>(length);
+        if (componentType == int.class) {
+            for (int element : (int[]) arrayOrCollection) values.add(new SmartString(Integer.toString(element)));
+        } else if (componentType == long.class) {
+            for (long element : (long[]) arrayOrCollection) values.add(new SmartString(Long.toString(element)));
+        } else if (componentType == double.class) {
+            for (double element : (double[]) arrayOrCollection) values.add(new SmartString(Double.toString(element)));
+        } else if (componentType == boolean.class) {
+            for (boolean element : (boolean[]) arrayOrCollection) values.add(new SmartString(Boolean.toString(element)));
+        } else if (componentType == byte.class) {
+            for (byte element : (byte[]) arrayOrCollection) values.add(new SmartString(Byte.toString(element)));
+        } else if (componentType == short.class) {
+            for (short element : (short[]) arrayOrCollection) values.add(new SmartString(Short.toString(element)));
+        } else if (componentType == float.class) {
+            for (float element : (float[]) arrayOrCollection) values.add(new SmartString(Float.toString(element)));
+        } else { // char
+            for (char element : (char[]) arrayOrCollection) values.add(new SmartString(String.valueOf(element)));
+        }
+        return values;
+    }
+
+    static SmartString toSmartString(Object value) {
+        if (value == null) return new SmartString(null);
+        if (value instanceof Enum) return new SmartString(((Enum<?>) value).name());
+        return new SmartString(value.toString());
+    }
+
+    /**
+     * Converts the provided value to the provided single value type (see {@link #isSingleValue(Class)}).
+     * Returns null if the value is null and the type is not primitive.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object toValue(SmartString value, Class<?> type) {
+        String string = value.asString();
+        if (string == null && !type.isPrimitive()) return null;
+        if (type == String.class || type == CharSequence.class || type == Object.class) return string;
+        if (type == int.class || type == Integer.class) return value.asIntValue();
+        if (type == long.class || type == Long.class) return value.asLongValue();
+        if (type == double.class || type == Double.class) return value.asDoubleValue();
+        if (type == boolean.class || type == Boolean.class) return value.asBooleanValue();
+        if (type == byte.class || type == Byte.class) return value.asByteValue();
+        if (type == short.class || type == Short.class) return value.asShortValue();
+        if (type == float.class || type == Float.class) return value.asFloatValue();
+        if (type == char.class || type == Character.class) return string.charAt(0);
+        if (type.isEnum()) return Enum.valueOf((Class<Enum>) type, string);
+        throw new IllegalArgumentException("Not a single value type: " + type);
+    }
+
+    /**
+     * Returns a new array of the provided component type, containing the provided values. <br>
+     * Primitive arrays are filled without boxing the elements.
+     */
+    static Object toArray(List<SmartString> values, Class<?> componentType) {
+        int size = values.size();
+        if (componentType == int.class) {
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asIntValue();
+            return array;
+        } else if (componentType == long.class) {
+            long[] array = new long[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asLongValue();
+            return array;
+        } else if (componentType == double.class) {
+            double[] array = new double[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asDoubleValue();
+            return array;
+        } else if (componentType == boolean.class) {
+            boolean[] array = new boolean[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asBooleanValue();
+            return array;
+        } else if (componentType == byte.class) {
+            byte[] array = new byte[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asByteValue();
+            return array;
+        } else if (componentType == short.class) {
+            short[] array = new short[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asShortValue();
+            return array;
+        } else if (componentType == float.class) {
+            float[] array = new float[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asFloatValue();
+            return array;
+        } else if (componentType == char.class) {
+            char[] array = new char[size];
+            for (int i = 0; i < size; i++) array[i] = values.get(i).asString().charAt(0);
+            return array;
+        }
+        Object[] array = (Object[]) Array.newInstance(componentType, size);
+        for (int i = 0; i < size; i++) array[i] = toValue(values.get(i), componentType);
+        return array;
+    }
+
+    /**
+     * Returns a new instance of the provided collection type. For interfaces and abstract classes
+     * the common implementation is used, for example {@link ArrayList} for {@link List}.
+     */
+    @SuppressWarnings("unchecked")
+    static Collection<Object> newCollection(Class<?> type) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAssignableFrom(ArrayList.class)) return new ArrayList<>();
+            if (type.isAssignableFrom(LinkedHashSet.class)) return new LinkedHashSet<>();
+            if (type.isAssignableFrom(TreeSet.class)) return new TreeSet<>();
+            if (type.isAssignableFrom(ArrayDeque.class)) return new ArrayDeque<>();
+            throw new InstantiationException("Cannot create an instance of " + type);
+        }
+        return (Collection<Object>) of(type).newInstance();
+    }
+
+    /**
+     * Returns a new instance of the provided map type. For interfaces and abstract classes
+     * the common implementation is used, for example {@link LinkedHashMap} for {@link Map}.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Object, Object> newMap(Class<?> type) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAssignableFrom(LinkedHashMap.class)) return new LinkedHashMap<>();
+            if (type.isAssignableFrom(TreeMap.class)) return new TreeMap<>();
+            throw new InstantiationException("Cannot create an instance of " + type);
+        }
+        return (Map<Object, Object>) of(type).newInstance();
+    }
+
+    /**
+     * Returns the class of the provided type, for example {@link List} for List&lt;String&gt;.
+     * Type variables and wildcards resolve to their (first) upper bound.
+     */
+    static Class<?> rawType(Type type) {
+        if (type instanceof Class) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return rawType(((ParameterizedType) type).getRawType());
+        if (type instanceof GenericArrayType)
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        if (type instanceof WildcardType) return rawType(((WildcardType) type).getUpperBounds()[0]);
+        if (type instanceof TypeVariable) return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        return Object.class;
+    }
+
+    /**
+     * Returns the type argument at the provided index, for example {@link String} at index 0 for List&lt;String&gt;,
+     * or {@link Object} if the type is not parameterized (raw).
+     */
+    static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) return arguments[index];
+        }
+        return Object.class;
+    }
+
+    /**
+     * Returns the component type of the provided array type, for example List&lt;String&gt; for List&lt;String&gt;[].
+     */
+    static Type componentType(Type arrayType) {
+        if (arrayType instanceof GenericArrayType) return ((GenericArrayType) arrayType).getGenericComponentType();
+        return rawType(arrayType).getComponentType();
+    }
+
+    /**
+     * A field and how to convert a {@link YamlSection} to its type.
+     */
+    static final class FieldMapping {
+        static final int STRING = 0, BOOLEAN = 1, BYTE = 2, SHORT = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7, OBJECT = 8,
+                ARRAY = 9, COLLECTION = 10, MAP = 11;
+
+        final Field field;
+        final String name;
+        /**
+         * The fields' generic type, needed for the element types of {@link #COLLECTION} and {@link #MAP} fields.
+         */
+        final Type genericType;
+        /**
+         * One of the constants above.
+         */
+        final int converter;
+        /**
+         * Handles of type (Object)Object, (Object, Object)void and (Object, YamlSection)void, or null if not available.
+         */
+        private final MethodHandle getter, setter, binder;
+
+        private FieldMapping(Field field) {
+            this.field = field;
+            this.name = field.getName();
+            this.converter = converterOf(field.getType());
+            this.genericType = field.getGenericType();
+            MethodHandle getter = null, setter = null, binder = null;
+            if (!Modifier.isStatic(field.getModifiers())) {
+                try {
+                    getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+                } catch (IllegalAccessException e) {
+                    // Not accessible, thus Field.get() will throw the same exception
+                }
+                try {
+                    MethodHandle unreflected = LOOKUP.unreflectSetter(field);
+                    setter = unreflected.asType(SETTER_TYPE);
+                    binder = binderOf(unreflected, field.getType(), converter);
+                } catch (IllegalAccessException e) {
+                    // Final or not accessible, thus use Field.set(), which can still set accessible final fields
+                }
+            }
+            this.getter = getter;
+            this.setter = setter;
+            this.binder = binder;
+        }
+
+        /**
+         * Returns the setter combined with the {@link YamlSection} getter of the converter, or null for {@link #OBJECT},
+         * {@link #ARRAY}, {@link #COLLECTION}, {@link #MAP} and field types that can't hold the getters return type.
+         */
+        private static MethodHandle binderOf(MethodHandle setter, Class<?> fieldType, int converter) throws IllegalAccessException {
+            String getterName;
+            Class<?> returnType;
+            switch (converter) {
+                case STRING:
+                    getterName = "asString";
+                    returnType = String.class;
+                    break;
+                case BOOLEAN:
+                    getterName = "asBoolean";
+                    returnType = boolean.class;
+                    break;
+                case BYTE:
+                    getterName = "asByte";
+                    returnType = byte.class;
+                    break;
+                case SHORT:
+                    getterName = "asShort";
+                    returnType = short.class;
+                    break;
+                case INT:
+                    getterName = "asInt";
+                    returnType = int.class;
+                    break;
+                case LONG:
+                    getterName = "asLong";
+                    returnType = long.class;
+                    break;
+                case FLOAT:
+                    getterName = "asFloat";
+                    returnType = float.class;
+                    break;
+                case DOUBLE:
+                    getterName = "asDouble";
+                    returnType = Double.class;
+                    break;
+                default:
+                    return null;
+            }
+            if (fieldType == Character.class) return null; // Can't hold a String, thus fails like Field.set() does
+            MethodHandle sectionGetter;
+            try {
+                sectionGetter = LOOKUP.findVirtual(YamlSection.class, getterName, MethodType.methodType(returnType));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+            // (Owner, YamlSection)void
+            MethodHandle binder = MethodHandles.filterArguments(setter, 1,
+                    sectionGetter.asType(MethodType.methodType(fieldType, YamlSection.class)));
+            return binder.asType(BINDER_TYPE);
+        }
+
+        Object get(Object obj) throws IllegalAccessException {
+            if (getter == null) return field.get(obj);
+            try {
+                return getter.invokeExact(obj);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e); // Not thrown by field getters
+            }
+        }
+
+        void set(Object obj, Object value) throws IllegalAccessException {
+            if (setter == null) {
+                field.set(obj, value);
+                return;
+            }
+            try {
+                setter.invokeExact(obj, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e); // Not thrown by field setters
+            }
+        }
+
+        /**
+         * Sets the field to the value of the provided section, converted to the fields' type.
+         * Must not be used for {@link #OBJECT} fields.
+         */
+        void bind(Object obj, YamlSection section) throws IllegalAccessException {
+            if (binder != null) {
+                try {
+                    binder.invokeExact(obj, section);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException(e); // Not thrown by the setter or YamlSection getters
+                }
+                return;
+            }
+            switch (converter) {
+                case STRING:
+                    field.set(obj, section.asString());
+                    break;
+                case BOOLEAN:
+                    field.set(obj, section.asBoolean());
+                    break;
+                case BYTE:
+                    field.set(obj, section.asByte());
+                    break;
+                case SHORT:
+                    field.set(obj, section.asShort());
+                    break;
+                case INT:
+                    field.set(obj, section.asInt());
+                    break;
+                case LONG:
+                    field.set(obj, section.asLong());
+                    break;
+                case FLOAT:
+                    field.set(obj, section.asFloat());
+                    break;
+                case DOUBLE:
+                    field.set(obj, section.asDouble());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Objects, arrays, collections and maps must be mapped via YamlSection.as()");
+            }
+        }
+
+        private static int converterOf(Class<?> type) {
+            if (type.equals(String.class) || type.equals(Character.class)) return STRING;
+            if (type.equals(boolean.class) || type.equals(Boolean.class)) return BOOLEAN;
+            if (type.equals(byte.class) || type.equals(Byte.class)) return BYTE;
+            if (type.equals(short.class) || type.equals(Short.class)) return SHORT;
+            if (type.equals(int.class) || type.equals(Integer.class)) return INT;
+            if (type.equals(long.class) || type.equals(Long.class)) return LONG;
+            if (type.equals(float.class) || type.equals(Float.class)) return FLOAT;
+            if (type.equals(double.class) || type.equals(Double.class)) return DOUBLE;
+            if (type.isArray()) return ARRAY;
+            if (Collection.class.isAssignableFrom(type)) return COLLECTION;
+            if (Map.class.isAssignableFrom(type)) return MAP;
+            return OBJECT;
+        }
+    }
+}
@@ -4,14 +4,21 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
 
 /**
  * Pass this object to a {@link Yaml},
- * to configure its logging properties.
+ * to configure its logging properties. <br>
+ * Use the {@link Supplier} based log methods, like {@link #log(Object, Supplier)}, for messages that are expensive to create.
+ * Their message only gets created, if the logger is enabled for the messages {@link Level}.
  */
 public class DYDebugLogger {
     private PrintStream printOut;
     private FileOutputStream fileOut;
+    /**
+     * Only messages with this or a more important level get logged. {@link Level#TRACE} by default, which means that everything gets logged.
+     */
+    private Level level = Level.TRACE;
 
     public DYDebugLogger(PrintStream printOut) {
         this(printOut, null);
@@ -36,6 +43,36 @@ public class DYDebugLogger {
      * @param object if you want to provide details to the object this message is about.
      */
     public void log(Object object, String message) {
+        log(Level.DEBUG, object, message);
+    }
+
+    /**
+     * Logs the message at {@link Level#DEBUG}. The message only gets created if that level is enabled. <br>
+     * See {@link #log(Level, Object, String)} for details.
+     */
+    public void log(Object object, Supplier<String> message) {
+        log(Level.DEBUG, object, message);
+    }
+
+    /**
+     * Logs the message, if the provided level is enabled. The message only gets created if that level is enabled. <br>
+     * See {@link #log(Level, Object, String)} for details.
+     */
+    public void log(Level level, Object object, Supplier<String> message) {
+        if (isEnabled(level)) write(object, message.get());
+    }
+
+    /**
+     * Logs the message, if the provided level is enabled. <br>
+     * Note that it wont throw an {@link Exception} when there are issues with writing/printing.
+     *
+     * @param object if you want to provide details to the object this message is about.
+     */
+    public void log(Level level, Object object, String message) {
+        if (isEnabled(level)) write(object, message);
+    }
+
+    private void write(Object object, String message) {
         // Print and write to file
         try {
             if (printOut != null) {
@@ -73,7 +110,42 @@ public class DYDebugLogger {
         this.fileOut = fileOut;
     }
 
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns true if there is somewhere to write/print the log to.
+     */
     public boolean isEnabled() {
         return printOut != null || fileOut != null;
     }
+
+    /**
+     * Returns true if messages with the provided level get logged.
+     */
+    public boolean isEnabled(Level level) {
+        return level.ordinal() <= this.level.ordinal() && isEnabled();
+    }
+
+    /**
+     * Log levels, ordered from the most to the least important.
+     */
+    public enum Level {
+        ERROR,
+        WARN,
+        INFO,
+        /**
+         * Used for general information about what is being executed.
+         */
+        DEBUG,
+        /**
+         * Used for detailed information, like the contents of each line or section.
+         */
+        TRACE
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+/**
+ * Event types of the streaming readers {@link YamlEventReader} and {@link DymlEventReader}.
+ */
+public enum DYEvent {
+    /**
+     * A new section (key) was found. All following events belong to this section, until its {@link #END_SECTION}.
+     */
+    START_SECTION,
+    /**
+     * A value of the current section was found. Sections with lists have multiple values.
+     */
+    VALUE,
+    /**
+     * A comment of the current section was found.
+     */
+    COMMENT,
+    /**
+     * The current section and all its child sections are finished.
+     */
+    END_SECTION
+}
@@ -8,11 +8,26 @@
 
 package com.osiris.dyml;
 
+import java.util.Arrays;
+
 /**
  * Represents a single line of a yaml file.
- * It gets filled with information by {@link YamlReader#checkChar(DYLine, int, int)} and {@link YamlReader#parseLine(Yaml, DYLine)}.
+ * It gets filled with information by {@link YamlReader#tokenize(DYLine)} and {@link YamlReader#parseLine(Yaml, DYLine)}. <br>
+ * Internally the line only holds a reference to the chars buffer and offsets of its key, value and comment. <br>
+ * The Strings are created lazily, when their getters get called for the first time. <br>
+ * Note that lines created by the {@link YamlReader} share its read buffer,
+ * which means that their content is only valid until the next line was read.
  */
 public class DYLine {
+    private char[] buffer;
+    /**
+     * Index of the lines first char in the {@link #buffer}.
+     */
+    private int start;
+    /**
+     * Index after the lines last char in the {@link #buffer}.
+     */
+    private int end;
     private String fullLine;
     private int lineNumber;
     private char[] fullLineAsChar;
@@ -26,14 +41,120 @@ public class DYLine {
     private String rawKey;
     private String rawValue;
     private String rawComment;
+    // Positions relative to the lines start. -1 if there is no such part or if it was replaced via its setter.
+    private int keyStart = -1, keyEnd;
+    private int valueStart = -1, valueEnd;
+    private int commentStart = -1, commentEnd;
 
     public DYLine(String fullLine, int lineNumber) {
+        char[] chars = fullLine.toCharArray();
+        reset(chars, 0, chars.length, lineNumber);
         this.fullLine = fullLine;
+        this.fullLineAsChar = chars;
+    }
+
+    /**
+     * Creates an empty line, that must be initialised via {@link #reset(char[], int, int, int)} before usage.
+     */
+    DYLine() {
+    }
+
+    /**
+     * Resets this line, so that it can be reused for another line.
+     *
+     * @param buffer     the buffer containing the lines chars.
+     * @param start      the index of the lines first char in the buffer.
+     * @param end        the index after the lines last char in the buffer.
+     * @param lineNumber the line number, starting at 1.
+     */
+    void reset(char[] buffer, int start, int end, int lineNumber) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
         this.lineNumber = lineNumber;
-        this.fullLineAsChar = fullLine.toCharArray();
+        this.fullLine = null;
+        this.fullLineAsChar = null;
+        this.countSpaces = 0;
+        this.commentFound = false;
+        this.keyFound = false;
+        this.keyFoundPos = 0;
+        this.hyphenFound = false;
+        this.hyphenFoundPos = 0;
+        this.charFound = false;
+        this.rawKey = null;
+        this.rawValue = null;
+        this.rawComment = null;
+        this.keyStart = -1;
+        this.valueStart = -1;
+        this.commentStart = -1;
+    }
+
+    char[] getBuffer() {
+        return buffer;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the count of chars in this line.
+     */
+    int length() {
+        return end - start;
+    }
+
+    /**
+     * Returns true if this line only contains whitespace (or nothing).
+     */
+    boolean isBlank() {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    void setRawKeyRange(int from, int to) {
+        this.rawKey = null;
+        this.keyStart = from;
+        this.keyEnd = to;
+    }
+
+    /**
+     * Sets the raw value to the chars in the provided range, or null if they are all whitespace.
+     */
+    void setRawValueRange(int from, int to, boolean emptyToNull) {
+        this.rawValue = null;
+        if (emptyToNull) {
+            boolean blank = true;
+            for (int i = start + from; i < start + to; i++) {
+                if (buffer[i] > ' ') {
+                    blank = false;
+                    break;
+                }
+            }
+            if (blank) {
+                this.valueStart = -1;
+                return;
+            }
+        }
+        this.valueStart = from;
+        this.valueEnd = to;
+    }
+
+    boolean hasRawValue() {
+        return valueStart != -1 || rawValue != null;
+    }
+
+    void setRawCommentRange(int from, int to) {
+        this.rawComment = null;
+        this.commentStart = from;
+        this.commentEnd = to;
     }
 
     public String getFullLine() {
+        if (fullLine == null && buffer != null)
+            fullLine = new String(buffer, start, end - start);
         return fullLine;
     }
 
@@ -50,6 +171,8 @@ public class DYLine {
     }
 
     public char[] getFullLineAsChar() {
+        if (fullLineAsChar == null && buffer != null)
+            fullLineAsChar = Arrays.copyOfRange(buffer, start, end);
         return fullLineAsChar;
     }
 
@@ -90,19 +213,25 @@ public class DYLine {
     }
 
     public String getRawKey() {
+        if (rawKey == null && keyStart != -1)
+            rawKey = new String(buffer, start + keyStart, keyEnd - keyStart);
         return rawKey;
     }
 
     public void setRawKey(String rawKey) {
         this.rawKey = rawKey;
+        this.keyStart = -1;
     }
 
     public String getRawValue() {
+        if (rawValue == null && valueStart != -1)
+            rawValue = new String(buffer, start + valueStart, valueEnd - valueStart);
         return this.rawValue;
     }
 
     public void setRawValue(String rawValue) {
         this.rawValue = rawValue;
+        this.valueStart = -1;
     }
 
     public boolean isCharFound() {
@@ -114,11 +243,14 @@ public class DYLine {
     }
 
     public String getRawComment() {
+        if (rawComment == null && commentStart != -1)
+            rawComment = new String(buffer, start + commentStart, commentEnd - commentStart);
         return rawComment;
     }
 
     public void setRawComment(String rawComment) {
         this.rawComment = rawComment;
+        this.commentStart = -1;
     }
 
     public int getKeyFoundPos() {
@@ -3,6 +3,9 @@ package com.osiris.dyml;
 import com.osiris.dyml.exceptions.IllegalListException;
 import com.osiris.dyml.exceptions.YamlReaderException;
 import com.osiris.dyml.exceptions.YamlWriterException;
+import com.osiris.dyml.utils.AtomicFileOutputStream;
+import com.osiris.dyml.utils.FsyncPolicy;
+import com.osiris.dyml.utils.MappedFileReader;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -14,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -138,6 +142,28 @@ public class Dyml {
         return this;
     }
 
+    /**
+     * Reads the dyml content from the provided file and loads it into the current {@link Dyml} object.
+     *
+     * @param isMemoryMapped if true, the file gets mapped into memory and read directly from there,
+     *                       which is faster for large files. See {@link MappedFileReader} for details.
+     */
+    public Dyml load(File file, boolean isMemoryMapped) throws IOException, YamlReaderException, IllegalListException {
+        new DymlReader().parse(this, (this.file = file), null, null, isMemoryMapped);
+        return this;
+    }
+
+    /**
+     * Reads the dyml content from the provided file and loads it into the current {@link Dyml} object.
+     *
+     * @param isMemoryMapped if true, the file gets mapped into memory and read directly from there,
+     *                       which is faster for large files. See {@link MappedFileReader} for details.
+     */
+    public Dyml load(Path filePath, boolean isMemoryMapped) throws IOException, YamlReaderException, IllegalListException {
+        new DymlReader().parse(this, (this.file = filePath.toFile()), null, null, isMemoryMapped);
+        return this;
+    }
+
 
     /**
      * Parses the {@link #children} list and writes it to the provided output.
@@ -189,6 +215,19 @@ public class Dyml {
         return file;
     }
 
+    /**
+     * Parses the {@link #children} list and writes it to the provided file atomically. <br>
+     * The content gets written to a temporary file first, which then replaces the provided file,
+     * so that a crash while saving never leaves a truncated file. See {@link AtomicFileOutputStream} for details.
+     *
+     * @param fsyncPolicy defines what gets forced to the storage device before the file gets replaced.
+     */
+    public File saveToFile(File file, FsyncPolicy fsyncPolicy) throws YamlWriterException, IOException {
+        Objects.requireNonNull(fsyncPolicy);
+        new DymlWriter().parse(this.children, file, null, null, false, fsyncPolicy);
+        return file;
+    }
+
 
     /**
      * Returns the child {@link Dyml} with the provided key(s), or null if not found.
@@ -457,6 +496,14 @@ public class Dyml {
         return value.asCharArray();
     }
 
+    /**
+     * Shortcut for returning the type of the {@link #value}, without parsing it.<br>
+     * See {@link ValueType#detect(CharSequence)} for details. <br>
+     */
+    public ValueType detectType() {
+        return value.detectType();
+    }
+
     /**
      * Shortcut for returning the {@link #value}.<br>
      * Note that this can be null. <br>
@@ -513,6 +560,38 @@ public class Dyml {
         return value.asDouble();
     }
 
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public SplitView split() {
+        return value.split();
+    }
+
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public int[] asIntArray() {
+        return value.asIntArray();
+    }
+
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public long[] asLongArray() {
+        return value.asLongArray();
+    }
+
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public double[] asDoubleArray() {
+        return value.asDoubleArray();
+    }
+
     /**
      * Shortcut for returning the {@link #value}.<br>
      * Note that this can be null. <br>
@@ -529,6 +608,14 @@ public class Dyml {
         return value.asListSplitBySpaces();
     }
 
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public SplitView splitBySpaces() {
+        return value.splitBySpaces();
+    }
+
     /**
      * Shortcut for returning the {@link #value}.<br>
      * Note that this can be null. <br>
@@ -544,4 +631,12 @@ public class Dyml {
     public List<String> asListSplitByColons() {
         return value.asListSplitByColons();
     }
+
+    /**
+     * Shortcut for returning the {@link #value}.<br>
+     * Note that this can be null. <br>
+     */
+    public SplitView splitByColons() {
+        return value.splitByColons();
+    }
 }
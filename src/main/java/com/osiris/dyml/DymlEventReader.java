@@ -0,0 +1,283 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import com.osiris.dyml.exceptions.YamlReaderException;
+import com.osiris.dyml.utils.MappedFileReader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Streaming pull-parser for .dyml files, that reads the file line by line and returns
+ * {@link DYEvent}s, without building the {@link Dyml} tree. <br>
+ * This means that files of any size can be filtered, aggregated or converted in memory
+ * bounded by the depth of the sections. <br>
+ * The keys, values and comments are the same as the ones of the {@link Dyml} sections loaded by {@link Dyml#load(File)}. <br>
+ * Example:
+ * <pre>
+ * try (DymlEventReader reader = new DymlEventReader(file)) {
+ *     while (reader.hasNext()) {
+ *         if (reader.next() == DYEvent.VALUE &amp;&amp; reader.getDepth() == 1)
+ *             System.out.println(reader.getKey() + " = " + reader.getValue());
+ *     }
+ * }
+ * </pre>
+ * Events of a section: <br>
+ * {@link DYEvent#START_SECTION}, then its comments as {@link DYEvent#COMMENT}s, then its value as {@link DYEvent#VALUE}
+ * (if not null), then the events of its child sections and finally {@link DYEvent#END_SECTION}. <br>
+ * Sections without a parent (wrong count of spaces) are returned as root sections.
+ */
+public class DymlEventReader implements Closeable {
+    private final Reader reader;
+    private final boolean isCloseReader;
+    private final LineScanner scanner;
+    private final ArrayDeque<Event> readyEvents = new ArrayDeque<>();
+    /**
+     * Currently open sections, the last one is the innermost section.
+     */
+    private final List<Section> openSections = new ArrayList<>();
+    /**
+     * Comments of the last lines, which belong to the next section.
+     */
+    private final List<String> lastComments = new ArrayList<>();
+    private int lineNumber = 0;
+    private boolean isEndOfInput = false;
+    // Current event:
+    private DYEvent eventType;
+    private List<String> keys = Collections.emptyList();
+    private String value;
+    private String comment;
+    private int eventLineNumber;
+
+    /**
+     * Reads the provided dyml file.
+     */
+    public DymlEventReader(File file) throws IOException, YamlReaderException {
+        this(file, false);
+    }
+
+    /**
+     * Reads the provided dyml file.
+     *
+     * @param isMemoryMapped if true, the file gets read via a {@link MappedFileReader}.
+     */
+    public DymlEventReader(File file, boolean isMemoryMapped) throws IOException, YamlReaderException {
+        if (!file.exists()) throw new YamlReaderException("File '" + file + "' doesn't exist!");
+        this.reader = isMemoryMapped ? new MappedFileReader(file.toPath(), Dyml.charset)
+                : new InputStreamReader(Files.newInputStream(file.toPath()), Dyml.charset);
+        this.isCloseReader = true;
+        this.scanner = new LineScanner(reader);
+    }
+
+    /**
+     * Reads the dyml content from the provided {@link InputStream}, using the {@link Dyml#charset}. <br>
+     * Note that the stream does not get closed by {@link #close()}.
+     */
+    public DymlEventReader(InputStream inputStream) {
+        this(new InputStreamReader(inputStream, Dyml.charset));
+    }
+
+    /**
+     * Reads the dyml content from the provided {@link Reader}. <br>
+     * Note that the reader does not get closed by {@link #close()}.
+     */
+    public DymlEventReader(Reader reader) {
+        this.reader = reader;
+        this.isCloseReader = false;
+        this.scanner = new LineScanner(reader);
+    }
+
+    /**
+     * Returns true if there are more events. Reads the next lines if needed.
+     */
+    public boolean hasNext() throws IOException {
+        while (readyEvents.isEmpty() && !isEndOfInput)
+            readLine();
+        return !readyEvents.isEmpty();
+    }
+
+    /**
+     * Moves to the next event and returns its type. <br>
+     * Details about the event can be retrieved via the getters, like {@link #getKeys()}.
+     *
+     * @throws NoSuchElementException if there are no more events.
+     */
+    public DYEvent next() throws IOException {
+        if (!hasNext()) throw new NoSuchElementException("There are no more events.");
+        Event event = readyEvents.poll();
+        this.eventType = event.type;
+        this.keys = event.keys;
+        this.value = event.value;
+        this.comment = event.comment;
+        this.eventLineNumber = event.lineNumber;
+        return eventType;
+    }
+
+    /**
+     * Returns the type of the current event, or null if {@link #next()} wasn't called yet.
+     */
+    public DYEvent getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the unmodifiable keys list of the section the current event belongs to.
+     * The first key is the key of the root section.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the key of the section the current event belongs to.
+     */
+    public String getKey() {
+        return keys.isEmpty() ? null : keys.get(keys.size() - 1);
+    }
+
+    /**
+     * Returns the value of the current {@link DYEvent#VALUE} event, otherwise null.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the comment of the current {@link DYEvent#COMMENT} event, otherwise null.
+     */
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * Returns the line number (starting at 1) of the current event. <br>
+     * For {@link DYEvent#END_SECTION} this is the line that ended the section.
+     */
+    public int getLineNumber() {
+        return eventLineNumber;
+    }
+
+    /**
+     * Returns the depth of the current events section. Root sections have depth 1.
+     */
+    public int getDepth() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        isEndOfInput = true;
+        readyEvents.clear();
+        if (isCloseReader) reader.close();
+    }
+
+    private void readLine() throws IOException {
+        if (!scanner.nextLine()) {
+            isEndOfInput = true;
+            closeSections(0);
+            return;
+        }
+        lineNumber++;
+        char[] line = scanner.getBuffer();
+        int start = scanner.getLineStart();
+        int length = scanner.getLineEnd() - start;
+        // Same logic as in the DymlReader
+        int countSpaces = 0;
+        int i;
+        for (i = 0; i < length; i++) {
+            if (line[start + i] == ' ') countSpaces++;
+            else {
+                i++;
+                break;
+            }
+        }
+
+        if (countSpaces % 2 == 0) { // Key goes until the next space
+            String key = null;
+            String value = null;
+            for (; i < length; i++) {
+                if (line[start + i] == ' ') {
+                    key = new String(line, start + countSpaces, i - countSpaces);
+                    value = emptyToNull(line, start + i + 1, start + length);
+                    break;
+                }
+            }
+
+            closeSections(countSpaces);
+            List<String> sectionKeys;
+            Section parent = openSections.isEmpty() ? null : openSections.get(openSections.size() - 1);
+            if (parent != null && parent.countSpaces == countSpaces - 2) {
+                sectionKeys = new ArrayList<>(parent.keys.size() + 1);
+                sectionKeys.addAll(parent.keys);
+            } else {
+                closeSections(0); // No parent, thus this is a root section
+                sectionKeys = new ArrayList<>(1);
+            }
+            sectionKeys.add(key);
+            Section section = new Section(countSpaces, Collections.unmodifiableList(sectionKeys));
+            openSections.add(section);
+            readyEvents.add(new Event(DYEvent.START_SECTION, section.keys, null, null));
+            for (String c : lastComments) {
+                readyEvents.add(new Event(DYEvent.COMMENT, section.keys, null, c));
+            }
+            lastComments.clear();
+            if (value != null)
+                readyEvents.add(new Event(DYEvent.VALUE, section.keys, value, null));
+        } else { // Comment goes until the end of the line
+            lastComments.add(emptyToNull(line, start + i, start + length));
+        }
+    }
+
+    /**
+     * Closes all open sections that have the same or more spaces than provided.
+     */
+    private void closeSections(int countSpaces) {
+        for (int i = openSections.size() - 1; i >= 0; i--) {
+            Section section = openSections.get(i);
+            if (section.countSpaces < countSpaces) break;
+            openSections.remove(i);
+            readyEvents.add(new Event(DYEvent.END_SECTION, section.keys, null, null));
+        }
+    }
+
+    private String emptyToNull(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] > ' ') return new String(chars, from, to - from);
+        }
+        return null;
+    }
+
+    private static final class Section {
+        private final int countSpaces;
+        private final List<String> keys;
+
+        private Section(int countSpaces, List<String> keys) {
+            this.countSpaces = countSpaces;
+            this.keys = keys;
+        }
+    }
+
+    private final class Event {
+        private final DYEvent type;
+        private final List<String> keys;
+        private final String value;
+        private final String comment;
+        private final int lineNumber;
+
+        private Event(DYEvent type, List<String> keys, String value, String comment) {
+            this.type = type;
+            this.keys = keys;
+            this.value = value;
+            this.comment = comment;
+            this.lineNumber = DymlEventReader.this.lineNumber;
+        }
+    }
+}
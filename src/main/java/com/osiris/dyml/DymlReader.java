@@ -10,6 +10,7 @@ package com.osiris.dyml;
 
 
 import com.osiris.dyml.exceptions.YamlReaderException;
+import com.osiris.dyml.utils.MappedFileReader;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -26,25 +27,38 @@ class DymlReader {
      * Those have references to their parent and child sections. <br>
      */
     public void parse(Dyml root, File file, InputStream inputStream, String inString) throws IOException, YamlReaderException {
-        BufferedReader reader = null; // BufferedReader is faster than the regular Reader by around 0,100 ms
+        parse(root, file, inputStream, inString, false);
+    }
+
+    /**
+     * Parses the .dyml content of a file/stream/string into a special list, which only contains the root sections.
+     * Those have references to their parent and child sections. <br>
+     *
+     * @param isMemoryMapped if true, the file gets read via a {@link MappedFileReader}.
+     */
+    public void parse(Dyml root, File file, InputStream inputStream, String inString, boolean isMemoryMapped) throws IOException, YamlReaderException {
+        Reader reader = null;
         try {
             if (file != null) {
                 if (!file.exists()) throw new YamlReaderException("File '" + file + "' doesn't exist!");
-                reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file.toPath()), Dyml.charset));
+                if (isMemoryMapped)
+                    reader = new MappedFileReader(file.toPath(), Dyml.charset);
+                else
+                    reader = new InputStreamReader(Files.newInputStream(file.toPath()), Dyml.charset);
             }
             if (inputStream != null) {
-                reader = new BufferedReader(new InputStreamReader(inputStream, Dyml.charset));
+                reader = new InputStreamReader(inputStream, Dyml.charset);
             }
             if (inString != null) {
-                reader = new BufferedReader(new StringReader(inString));
+                reader = new StringReader(inString);
             }
             if (reader == null) {
                 throw new YamlReaderException("File/InputStream/String are all null. Nothing to read/load dyml from!");
             }
 
             root.children.clear();
-            List<Integer> spaces = new ArrayList<>(50);
-            List<Dyml> sections = new ArrayList<>(50);
+            // Contains at index n the last section that had n spaces, used to find the parent in O(1)
+            List<Dyml> lastSectionsBySpaces = new ArrayList<>(50);
             // Last lines info: (use fields instead of an actual line object bc of performance)
             boolean lastCommentFound = false;
             List<String> lastComments = new ArrayList<>();
@@ -53,14 +67,17 @@ class DymlReader {
             Dyml section = null;
             int countSpaces = 0;
             boolean commentFound = false;
-            String line;
             char c;
             char cSpace = ' ';
-            while ((line = reader.readLine()) != null) {
-                int length = line.length();
+            // Lines are read into a single reused buffer, Strings are only created for keys, values and comments
+            LineScanner scanner = new LineScanner(reader);
+            while (scanner.nextLine()) {
+                char[] line = scanner.getBuffer();
+                int start = scanner.getLineStart();
+                int length = scanner.getLineEnd() - start;
                 int i;
                 for (i = 0; i < length; i++) {
-                    c = line.charAt(i);
+                    c = line[start + i];
                     if (c == cSpace) countSpaces++;
                     else {
                         i++;
@@ -77,36 +94,37 @@ class DymlReader {
                     }
                     // Determine key:
                     for (; i < length; i++) {
-                        c = line.charAt(i);
+                        c = line[start + i];
                         if (c == cSpace) {
-                            section.key = line.substring(countSpaces, i);
-                            section.value.set(emptyToNull(line.substring(i + 1, length)));
+                            section.key = new String(line, start + countSpaces, i - countSpaces);
+                            section.value.set(emptyToNull(line, start + i + 1, start + length));
                             break;
                         }
                     }
 
                     // Determine this sections parent:
-                    // Go reversely through the sections list and pick the first section where the difference in spaces is 2.
+                    // Pick the last section where the difference in spaces is 2.
                     // It can be that this is a G0 module. In that case we don't need to search for a parent.
                     if (countSpaces > 0) {
-                        for (int k = (sections.size() - 1); k >= 0; k--) {
-                            if ((countSpaces - spaces.get(k)) == 2) {
-                                Dyml parent = sections.get(k);
+                        int parentSpaces = countSpaces - 2;
+                        if (parentSpaces < lastSectionsBySpaces.size()) {
+                            Dyml parent = lastSectionsBySpaces.get(parentSpaces);
+                            if (parent != null) {
                                 section.parent = parent;
                                 parent.children.add(section);
-                                break;
                             }
                         }
                     } else {
                         section.parent = root;
                         root.children.add(section);
                     }
-                    sections.add(section);
-                    spaces.add(countSpaces);
+                    while (lastSectionsBySpaces.size() <= countSpaces)
+                        lastSectionsBySpaces.add(null);
+                    lastSectionsBySpaces.set(countSpaces, section);
 
                 } else { // Comment goes until the end of the line
                     commentFound = true;
-                    lastComments.add(emptyToNull(line.substring(i, length)));
+                    lastComments.add(emptyToNull(line, start + i, start + length));
                 }
 
                 // Save important current line info
@@ -116,22 +134,23 @@ class DymlReader {
                 commentFound = false;
             }
         } catch (YamlReaderException | IOException e) {
-            if (file != null || inString != null) reader.close();
+            if (reader != null && (file != null || inString != null)) reader.close();
             throw e;
         } finally {
-            if (file != null || inString != null) reader.close();
+            if (reader != null && (file != null || inString != null)) reader.close();
         }
 
     }
 
     /**
-     * If the provided String is empty, return null.
-     * This is useful, because {@link String#substring(int)} returns an empty string instead of null,
-     * even though an empty string in YAML means that the value is null.
+     * Returns a new String from the provided chars range, or null if the range is empty or only contains whitespace.
+     * This is useful, because an empty string in YAML means that the value is null.
      */
-    private String emptyToNull(String s) {
-        if (s.trim().isEmpty()) return null;
-        return s;
+    private String emptyToNull(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] > ' ') return new String(chars, from, to - from);
+        }
+        return null;
     }
 
 }
@@ -9,6 +9,8 @@
 package com.osiris.dyml;
 
 import com.osiris.dyml.exceptions.YamlWriterException;
+import com.osiris.dyml.utils.AtomicFileOutputStream;
+import com.osiris.dyml.utils.FsyncPolicy;
 import com.osiris.dyml.utils.UtilsTimeStopper;
 
 import java.io.*;
@@ -23,13 +25,25 @@ class DymlWriter {
 
 
     public String parse(List<Dyml> sections, File file, OutputStream outputStream, String outString, boolean reset) throws YamlWriterException, IOException {
+        return parse(sections, file, outputStream, outString, reset, null);
+    }
+
+    /**
+     * @param fsyncPolicy if not null, the file gets written atomically via an {@link AtomicFileOutputStream}
+     *                    with this policy. Otherwise the file gets written directly.
+     */
+    public String parse(List<Dyml> sections, File file, OutputStream outputStream, String outString, boolean reset, FsyncPolicy fsyncPolicy) throws YamlWriterException, IOException {
         Objects.requireNonNull(sections);
         if (sections.isEmpty()) throw new YamlWriterException("Sections cannot be empty!");
         PrintWriter writer = null; // Buffered is faster than the regular Reader by around 0,100 ms
         StringWriter stringWriter = null;
+        AtomicFileOutputStream atomicOut = null;
         if (file != null) {
             if (!file.exists()) throw new YamlWriterException("File '" + file + "' doesn't exist!");
-            writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Dyml.charset)));
+            OutputStream out;
+            if (fsyncPolicy != null) out = atomicOut = new AtomicFileOutputStream(file.toPath(), fsyncPolicy);
+            else out = new FileOutputStream(file);
+            writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, Dyml.charset)));
         }
         if (outputStream != null) {
             writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outputStream, Dyml.charset)));
@@ -47,10 +61,14 @@ class DymlWriter {
             timer.start();
 
             writer.write(""); // Clear old content
-            if (reset) return null;
+            if (reset) {
+                if (atomicOut != null) commit(writer, atomicOut);
+                return null;
+            }
 
             List<Dyml> copy = new ArrayList<>(sections);
             writeSections(writer, copy);
+            if (atomicOut != null) commit(writer, atomicOut);
 
             if (stringWriter != null) return stringWriter.toString();
             writer.flush();
@@ -63,6 +81,17 @@ class DymlWriter {
         return null;
     }
 
+    /**
+     * Flushes the writer and replaces the target file with the written temporary file. <br>
+     * {@link PrintWriter} doesn't throw exceptions, thus its error state must be checked before,
+     * to make sure that no incomplete file replaces the target file.
+     */
+    private void commit(PrintWriter writer, AtomicFileOutputStream atomicOut) throws IOException {
+        writer.flush();
+        if (writer.checkError()) throw new IOException("Failed to write to '" + atomicOut.getTempFile() + "'.");
+        atomicOut.commit();
+    }
+
     /**
      * Writes all sections (parents and children) via the provided writer, recursively.
      */
@@ -0,0 +1,131 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits the content of a {@link Reader} into lines, without creating a String for each line. <br>
+ * The chars are read into a single, reused buffer and after each {@link #nextLine()} call
+ * the current line can be accessed via {@link #getBuffer()}, {@link #getLineStart()} and {@link #getLineEnd()}. <br>
+ * Note that the buffer content is only valid until the next {@link #nextLine()} call. <br>
+ * Line endings are handled like in {@link java.io.BufferedReader#readLine()},
+ * which means that '\n', '\r' and "\r\n" end a line and that there is no empty line after a trailing line ending.
+ */
+class LineScanner {
+    private final Reader reader;
+    private char[] buffer;
+    /**
+     * Start of the not yet returned chars.
+     */
+    private int pos = 0;
+    /**
+     * End of the valid chars in the buffer.
+     */
+    private int limit = 0;
+    private boolean eof = false;
+    /**
+     * True if the last line ended with '\r' at the end of the buffer,
+     * in that case a '\n' at the beginning of the next read chars must be skipped.
+     */
+    private boolean skipLF = false;
+    private int lineStart = 0;
+    private int lineEnd = 0;
+
+    LineScanner(Reader reader) {
+        this(reader, 8192);
+    }
+
+    LineScanner(Reader reader, int initialBufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, initialBufferSize)];
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return false if the end of the stream was reached and there are no more lines.
+     */
+    boolean nextLine() throws IOException {
+        int scanFrom = pos;
+        while (true) {
+            if (skipLF && pos < limit) {
+                if (buffer[pos] == '\n') {
+                    pos++;
+                    scanFrom = pos;
+                }
+                skipLF = false;
+            }
+            for (int i = scanFrom; i < limit; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    lineStart = pos;
+                    lineEnd = i;
+                    pos = i + 1;
+                    if (c == '\r') {
+                        if (pos < limit) {
+                            if (buffer[pos] == '\n') pos++;
+                        } else
+                            skipLF = true;
+                    }
+                    return true;
+                }
+            }
+            scanFrom = limit;
+            if (eof) {
+                skipLF = false;
+                if (pos < limit) { // Last line without line ending
+                    lineStart = pos;
+                    lineEnd = limit;
+                    pos = limit;
+                    return true;
+                }
+                return false;
+            }
+            // Move the unfinished line to the beginning of the buffer, or grow the buffer if the line doesn't fit
+            int unfinished = limit - pos;
+            if (pos > 0) {
+                System.arraycopy(buffer, pos, buffer, 0, unfinished);
+            } else if (unfinished == buffer.length) {
+                char[] bigger = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, bigger, 0, unfinished);
+                buffer = bigger;
+            }
+            scanFrom -= pos;
+            pos = 0;
+            limit = unfinished;
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read == -1) eof = true;
+            else limit += read;
+        }
+    }
+
+    /**
+     * The buffer containing the current line. Note that this may be another
+     * instance after each {@link #nextLine()} call.
+     */
+    char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Index of the first char of the current line in the {@link #getBuffer()}.
+     */
+    int getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Index after the last char of the current line (excluding the line ending) in the {@link #getBuffer()}.
+     */
+    int getLineEnd() {
+        return lineEnd;
+    }
+}
@@ -16,6 +16,16 @@ public class SmartString {
     public boolean isInsideQuotes = false;
 
     private String string;
+    /**
+     * The value returned by the last typed getter (for example an {@link Integer} for {@link #asInt()}), or null. <br>
+     * Repeated reads of the same type return it, instead of parsing the string again.
+     * Reset when the string changes. Boxed values are immutable, thus this is safe for concurrent readers.
+     */
+    private Object cachedValue;
+    /**
+     * The view returned by the last split method (for example {@link #split()}), or null. Reset when the string changes.
+     */
+    private SplitView cachedSplit;
 
     public SmartString() {
         this(null);
@@ -25,6 +35,12 @@ public class SmartString {
         this.string = string;
     }
 
+    private void setString(String string) {
+        this.string = string;
+        this.cachedValue = null;
+        this.cachedSplit = null;
+    }
+
     // GETTERS:
 
     /**
@@ -66,56 +82,147 @@ public class SmartString {
      * Note that this can be null.
      */
     public Boolean asBoolean() {
+        Object cached = cachedValue;
+        if (cached instanceof Boolean) return (Boolean) cached;
         if (string == null) return null;
-        return Boolean.parseBoolean(string);
+        Boolean value = Boolean.parseBoolean(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Byte asByte() {
+        Object cached = cachedValue;
+        if (cached instanceof Byte) return (Byte) cached;
         if (string == null) return null;
-        return Byte.parseByte(string);
+        Byte value = Byte.parseByte(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Short asShort() {
+        Object cached = cachedValue;
+        if (cached instanceof Short) return (Short) cached;
         if (string == null) return null;
-        return Short.parseShort(string);
+        Short value = Short.parseShort(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Integer asInt() {
+        Object cached = cachedValue;
+        if (cached instanceof Integer) return (Integer) cached;
         if (string == null) return null;
-        return Integer.parseInt(string);
+        Integer value = Integer.parseInt(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Long asLong() {
+        Object cached = cachedValue;
+        if (cached instanceof Long) return (Long) cached;
         if (string == null) return null;
-        return Long.parseLong(string);
+        Long value = Long.parseLong(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Float asFloat() {
+        Object cached = cachedValue;
+        if (cached instanceof Float) return (Float) cached;
         if (string == null) return null;
-        return Float.parseFloat(string);
+        Float value = Float.parseFloat(string);
+        cachedValue = value;
+        return value;
     }
 
     /**
      * Note that this can be null.
      */
     public Double asDouble() {
+        Object cached = cachedValue;
+        if (cached instanceof Double) return (Double) cached;
         if (string == null) return null;
-        return Double.parseDouble(string);
+        Double value = Double.parseDouble(string);
+        cachedValue = value;
+        return value;
+    }
+
+    /**
+     * Same as {@link #asBoolean()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public boolean asBooleanValue() {
+        return asBoolean();
+    }
+
+    /**
+     * Same as {@link #asByte()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public byte asByteValue() {
+        return asByte();
+    }
+
+    /**
+     * Same as {@link #asShort()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public short asShortValue() {
+        return asShort();
+    }
+
+    /**
+     * Same as {@link #asInt()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public int asIntValue() {
+        return asInt();
+    }
+
+    /**
+     * Same as {@link #asLong()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public long asLongValue() {
+        return asLong();
+    }
+
+    /**
+     * Same as {@link #asFloat()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public float asFloatValue() {
+        return asFloat();
+    }
+
+    /**
+     * Same as {@link #asDouble()}, but returns the primitive value.
+     *
+     * @throws NullPointerException if the value is null.
+     */
+    public double asDoubleValue() {
+        return asDouble();
     }
 
 
@@ -128,7 +235,7 @@ public class SmartString {
      * </pre>
      */
     public SmartString set(String[] values) {
-        string = Arrays.toString(values);
+        setString(Arrays.toString(values));
         return this;
     }
 
@@ -144,12 +251,53 @@ public class SmartString {
      */
     public String[] asArray() {
         if (string == null) return null;
-        if (string.startsWith("[") && string.endsWith("]")) {
-            String s = string.substring(1, string.length() - 1); // To remove first [ and last ]
-            return s.split(",");
-        } else {
-            return asArraySplitByColons();
-        }
+        return split().toArray();
+    }
+
+    /**
+     * Same as {@link #asArray()}, but returns a read-only view that is cached until the value changes,
+     * thus repeated calls don't allocate. <br>
+     * Use its typed getters like {@link SplitView#asIntArray()} for lists of numbers. <br>
+     * Note that this can be null.
+     */
+    public SplitView split() {
+        SplitView view = cachedSplit;
+        if (view != null && view.kind == '[') return view;
+        String s = string;
+        if (s == null) return null;
+        if (s.startsWith("[") && s.endsWith("]")) // Ignore first [ and last ]
+            view = SplitView.of('[', s, 1, s.length() - 1, ',');
+        else
+            view = SplitView.of('[', s, 0, s.length(), ',');
+        cachedSplit = view;
+        return view;
+    }
+
+    /**
+     * Shortcut for {@link SplitView#asIntArray()} of {@link #split()}. <br>
+     * Note that this can be null.
+     */
+    public int[] asIntArray() {
+        SplitView view = split();
+        return view == null ? null : view.asIntArray();
+    }
+
+    /**
+     * Shortcut for {@link SplitView#asLongArray()} of {@link #split()}. <br>
+     * Note that this can be null.
+     */
+    public long[] asLongArray() {
+        SplitView view = split();
+        return view == null ? null : view.asLongArray();
+    }
+
+    /**
+     * Shortcut for {@link SplitView#asDoubleArray()} of {@link #split()}. <br>
+     * Note that this can be null.
+     */
+    public double[] asDoubleArray() {
+        SplitView view = split();
+        return view == null ? null : view.asDoubleArray();
     }
 
     /**
@@ -159,7 +307,7 @@ public class SmartString {
      * </pre>
      */
     public SmartString set(List<String> values) {
-        string = Arrays.toString(values.toArray(new String[0]));
+        setString(Arrays.toString(values.toArray(new String[0])));
         return this;
     }
 
@@ -175,7 +323,7 @@ public class SmartString {
      */
     public List<String> asList() {
         if (string == null) return null;
-        return Arrays.asList(asArray());
+        return Arrays.asList(split().toArray());
     }
 
 
@@ -184,7 +332,7 @@ public class SmartString {
      */
     public String[] asArraySplitBySpaces() {
         if (string == null) return null;
-        return string.split(" ");
+        return splitBySpaces().toArray();
     }
 
     /**
@@ -192,7 +340,15 @@ public class SmartString {
      */
     public List<String> asListSplitBySpaces() {
         if (string == null) return null;
-        return Arrays.asList(string.split(" "));
+        return Arrays.asList(splitBySpaces().toArray());
+    }
+
+    /**
+     * Same as {@link #asArraySplitBySpaces()}, but returns a read-only view that is cached until the value changes. <br>
+     * Note that this can be null.
+     */
+    public SplitView splitBySpaces() {
+        return split(' ');
     }
 
     /**
@@ -200,7 +356,7 @@ public class SmartString {
      */
     public String[] asArraySplitByColons() {
         if (string == null) return null;
-        return string.split(",");
+        return splitByColons().toArray();
     }
 
     /**
@@ -208,7 +364,25 @@ public class SmartString {
      */
     public List<String> asListSplitByColons() {
         if (string == null) return null;
-        return Arrays.asList(string.split(","));
+        return Arrays.asList(splitByColons().toArray());
+    }
+
+    /**
+     * Same as {@link #asArraySplitByColons()}, but returns a read-only view that is cached until the value changes. <br>
+     * Note that this can be null.
+     */
+    public SplitView splitByColons() {
+        return split(',');
+    }
+
+    private SplitView split(char separator) {
+        SplitView view = cachedSplit;
+        if (view != null && view.kind == separator) return view;
+        String s = string;
+        if (s == null) return null;
+        view = SplitView.of(separator, s, 0, s.length(), separator);
+        cachedSplit = view;
+        return view;
     }
 
 
@@ -216,173 +390,158 @@ public class SmartString {
 
 
     public SmartString set(String value) {
-        this.string = value;
+        setString(value);
         return this;
     }
 
     public SmartString set(char[] value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(boolean value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Boolean value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(byte value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Byte value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(short value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Short value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(int value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
 
         return this;
     }
 
     public SmartString set(Integer value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(long value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Long value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(float value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Float value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
     public SmartString set(double value) {
-        this.string = String.valueOf(value);
+        setString(String.valueOf(value));
         return this;
     }
 
     public SmartString set(Double value) {
         if (value == null) {
-            this.string = null;
+            setString(null);
             return this;
         }
-        this.string = value.toString();
+        setString(value.toString());
+        cachedValue = value; // Same as parsing the string
         return this;
     }
 
 
     // TYPE CHECKS:
+    // These don't parse the value or throw exceptions, see ValueType.
 
+    /**
+     * Returns the narrowest type this value can be parsed to, without parsing it. <br>
+     * See {@link ValueType#detect(CharSequence)} for details.
+     */
+    public ValueType detectType() {
+        return ValueType.detect(string);
+    }
 
     public boolean isBoolean() {
-        return string.equalsIgnoreCase("true") || string.equalsIgnoreCase("false");
+        return ValueType.isBoolean(string);
     }
 
     public boolean isByte() {
-        try {
-            asByte();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isInteger(string, Byte.MIN_VALUE, Byte.MAX_VALUE);
     }
 
     public boolean isShort() {
-        try {
-            asShort();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isInteger(string, Short.MIN_VALUE, Short.MAX_VALUE);
     }
 
     public boolean isInt() {
-        try {
-            asInt();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isInteger(string, Integer.MIN_VALUE, Integer.MAX_VALUE);
     }
 
     public boolean isLong() {
-        try {
-            asLong();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isInteger(string, Long.MIN_VALUE, Long.MAX_VALUE);
     }
 
     public boolean isFloat() {
-        try {
-            asFloat();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isDecimal(string);
     }
 
     public boolean isDouble() {
-        try {
-            asDouble();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return ValueType.isDecimal(string);
     }
 }
@@ -0,0 +1,163 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, read-only view of a value split into its elements, like {@link String#split(String)} with a single character. <br>
+ * Returned by {@link SmartString#split()}, {@link SmartString#splitBySpaces()} and {@link SmartString#splitByColons()},
+ * which cache it until the value changes. Thus reading the same list-valued setting repeatedly doesn't allocate. <br>
+ * The typed getters (for example {@link #getInt(int)}) ignore leading/trailing whitespace of the elements,
+ * since lists are written like "[1, 2, 3]". Their parsed arrays are cached too.
+ */
+public final class SplitView extends AbstractList<String> implements RandomAccess {
+    /**
+     * How the value was split, so that {@link SmartString} knows which of its methods this is cached for.
+     */
+    final char kind;
+    private final String[] elements;
+    private volatile int[] ints;
+    private volatile long[] longs;
+    private volatile double[] doubles;
+
+    private SplitView(char kind, String[] elements) {
+        this.kind = kind;
+        this.elements = elements;
+    }
+
+    /**
+     * Splits the provided string between begin and end at each separator.
+     * Same result as {@link String#split(String)}, which means that trailing empty elements get removed.
+     */
+    static SplitView of(char kind, String string, int begin, int end, char separator) {
+        int count = 1;
+        for (int i = begin; i < end; i++) {
+            if (string.charAt(i) == separator) count++;
+        }
+        if (count == 1) return new SplitView(kind, new String[]{string.substring(begin, end)});
+
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        int element = 0, start = begin;
+        for (int i = begin; i < end; i++) {
+            if (string.charAt(i) == separator) {
+                starts[element] = start;
+                ends[element++] = i;
+                start = i + 1;
+            }
+        }
+        starts[element] = start;
+        ends[element] = end;
+        while (count > 0 && starts[count - 1] == ends[count - 1]) count--; // Remove trailing empty elements
+
+        String[] elements = new String[count];
+        for (int i = 0; i < count; i++) {
+            elements[i] = string.substring(starts[i], ends[i]);
+        }
+        return new SplitView(kind, elements);
+    }
+
+    @Override
+    public String get(int index) {
+        return elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Returns a new array containing the elements.
+     */
+    @Override
+    public String[] toArray() {
+        return elements.clone();
+    }
+
+    /**
+     * Parses the element at the provided index via {@link Integer#parseInt(String)} (only once).
+     */
+    public int getInt(int index) {
+        return ints()[index];
+    }
+
+    /**
+     * Parses the element at the provided index via {@link Long#parseLong(String)} (only once).
+     */
+    public long getLong(int index) {
+        return longs()[index];
+    }
+
+    /**
+     * Parses the element at the provided index via {@link Double#parseDouble(String)} (only once).
+     */
+    public double getDouble(int index) {
+        return doubles()[index];
+    }
+
+    /**
+     * Returns a new array containing all elements parsed via {@link Integer#parseInt(String)}.
+     */
+    public int[] asIntArray() {
+        return ints().clone();
+    }
+
+    /**
+     * Returns a new array containing all elements parsed via {@link Long#parseLong(String)}.
+     */
+    public long[] asLongArray() {
+        return longs().clone();
+    }
+
+    /**
+     * Returns a new array containing all elements parsed via {@link Double#parseDouble(String)}.
+     */
+    public double[] asDoubleArray() {
+        return doubles().clone();
+    }
+
+    private int[] ints() {
+        int[] result = ints;
+        if (result == null) {
+            result = new int[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                result[i] = Integer.parseInt(elements[i].trim());
+            }
+            ints = result;
+        }
+        return result;
+    }
+
+    private long[] longs() {
+        long[] result = longs;
+        if (result == null) {
+            result = new long[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                result[i] = Long.parseLong(elements[i].trim());
+            }
+            longs = result;
+        }
+        return result;
+    }
+
+    private double[] doubles() {
+        double[] result = doubles;
+        if (result == null) {
+            result = new double[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                result[i] = Double.parseDouble(elements[i]); // Already ignores whitespace
+            }
+            doubles = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+/**
+ * The type of a value, as detected by {@link #detect(CharSequence)}. <br>
+ * The checks of this class go through the characters once, without creating objects or throwing exceptions,
+ * and accept exactly what the parse methods of the wrapper classes accept (for example {@link Integer#parseInt(String)}). <br>
+ * Used by {@link SmartString#detectType()} and {@link Dyml#detectType()}.
+ */
+public enum ValueType {
+    /**
+     * The value is null.
+     */
+    NULL,
+    /**
+     * "true" or "false", ignoring case.
+     */
+    BOOLEAN,
+    BYTE,
+    SHORT,
+    INT,
+    LONG,
+    /**
+     * A decimal number (or an integer too big for a long), that can be parsed via {@link Double#parseDouble(String)}
+     * and {@link Float#parseFloat(String)}.
+     */
+    DOUBLE,
+    /**
+     * Anything else.
+     */
+    STRING;
+
+    /**
+     * Returns the narrowest type the provided value can be parsed to.
+     * Integers return the smallest fitting type of {@link #BYTE}, {@link #SHORT}, {@link #INT} and {@link #LONG}.
+     */
+    public static ValueType detect(CharSequence s) {
+        if (s == null) return NULL;
+        if (isBoolean(s)) return BOOLEAN;
+        ValueType integerType = detectInteger(s);
+        if (integerType != null) return integerType;
+        return isDecimal(s) ? DOUBLE : STRING;
+    }
+
+    /**
+     * Returns true if the provided value is "true" or "false", ignoring case.
+     */
+    public static boolean isBoolean(CharSequence s) {
+        if (s == null) return false;
+        return s.length() == 4 ? regionMatchesIgnoreCase(s, 0, "true") : s.length() == 5 && regionMatchesIgnoreCase(s, 0, "false");
+    }
+
+    /**
+     * Returns true if {@link Long#parseLong(String)} would succeed, but only if the value is between min and max. <br>
+     * Like the parse methods, this accepts an optional sign followed by digits.
+     */
+    public static boolean isInteger(CharSequence s, long min, long max) {
+        return s != null && accumulate(s, min, max) != 1;
+    }
+
+    /**
+     * Parses the integer like {@link Long#parseLong(String)}, but accumulates it negatively (since the negative range is bigger)
+     * and thus returns the negative absolute value, or 1 if it's not an integer between min and max.
+     */
+    private static long accumulate(CharSequence s, long min, long max) {
+        int len = s.length();
+        if (len == 0) return 1;
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-') {
+            negative = true;
+            i++;
+        } else if (first == '+') i++;
+        if (i == len) return 1;
+        long limit = negative ? min : -max;
+        long multMin = limit / 10;
+        long result = 0;
+        for (; i < len; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || result < multMin) return 1;
+            result *= 10;
+            if (result < limit + digit) return 1;
+            result -= digit;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest integer type the value fits in, or null if it's not an integer or too big for a long.
+     */
+    private static ValueType detectInteger(CharSequence s) {
+        long result = accumulate(s, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (result == 1) return null;
+        if (s.charAt(0) != '-') result = -result;
+        if (result >= Byte.MIN_VALUE && result <= Byte.MAX_VALUE) return BYTE;
+        if (result >= Short.MIN_VALUE && result <= Short.MAX_VALUE) return SHORT;
+        if (result >= Integer.MIN_VALUE && result <= Integer.MAX_VALUE) return INT;
+        return LONG;
+    }
+
+    /**
+     * Returns true if {@link Double#parseDouble(String)} (and thus {@link Float#parseFloat(String)}) would succeed. <br>
+     * That includes leading/trailing whitespace, an optional sign, "NaN", "Infinity", decimal numbers
+     * with optional exponent, hexadecimal floating point numbers and an optional f/F/d/D suffix.
+     */
+    public static boolean isDecimal(CharSequence s) {
+        if (s == null) return false;
+        int start = 0, end = s.length();
+        while (start < end && s.charAt(start) <= ' ') start++; // Like String.trim()
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        int i = start;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+        if (i == end) return false;
+        char c = s.charAt(i);
+        if (c == 'N') return end - i == 3 && regionMatches(s, i, "NaN");
+        if (c == 'I') return end - i == 8 && regionMatches(s, i, "Infinity");
+        if (c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X'))
+            return isHexDecimal(s, i + 2, end);
+
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) return false;
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i = skipExponent(s, i + 1, end);
+            if (i < 0) return false;
+        }
+        return isEndOrSuffix(s, i, end);
+    }
+
+    /**
+     * For example "1.8p1" (after "0x"). The binary exponent is required.
+     */
+    private static boolean isHexDecimal(CharSequence s, int i, int end) {
+        int digits = 0;
+        while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0 || i == end || (s.charAt(i) != 'p' && s.charAt(i) != 'P')) return false;
+        i = skipExponent(s, i + 1, end);
+        return i >= 0 && isEndOrSuffix(s, i, end);
+    }
+
+    /**
+     * Returns the index after the exponent digits, or -1 if there are none.
+     */
+    private static int skipExponent(CharSequence s, int i, int end) {
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+        int start = i;
+        while (i < end && isDigit(s.charAt(i))) i++;
+        return i == start ? -1 : i;
+    }
+
+    private static boolean isEndOrSuffix(CharSequence s, int i, int end) {
+        if (i == end) return true;
+        char c = s.charAt(i);
+        return i == end - 1 && (c == 'f' || c == 'F' || c == 'd' || c == 'D');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean regionMatches(CharSequence s, int offset, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            if (s.charAt(offset + i) != other.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares like {@link String#equalsIgnoreCase(String)}.
+     */
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int offset, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            char c1 = Character.toUpperCase(s.charAt(offset + i));
+            char c2 = Character.toUpperCase(other.charAt(i));
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) return false;
+        }
+        return true;
+    }
+}
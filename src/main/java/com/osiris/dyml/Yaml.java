@@ -9,6 +9,11 @@
 package com.osiris.dyml;
 
 import com.osiris.dyml.exceptions.*;
+import com.osiris.dyml.utils.AtomicFileOutputStream;
+import com.osiris.dyml.utils.FileLocks;
+import com.osiris.dyml.utils.FileVersion;
+import com.osiris.dyml.utils.FsyncPolicy;
+import com.osiris.dyml.utils.MappedFileReader;
 import com.osiris.dyml.utils.UtilsFile;
 import com.osiris.dyml.utils.UtilsYaml;
 import com.osiris.dyml.utils.UtilsYamlSection;
@@ -19,8 +24,7 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -29,11 +33,6 @@ import java.util.function.Consumer;
  */
 @SuppressWarnings("ALL")
 public class Yaml {
-    /**
-     * See {@link #lockFile()} and {@link #unlockFile()} for details.
-     */
-    public static final Map<String, ReentrantLock> pathsAndLocks = new HashMap<>();
-
     // Thread safety:
     public static Charset charset = StandardCharsets.UTF_8;
     /**
@@ -48,6 +47,42 @@ public class Yaml {
      * It gets cleared and refilled with new {@link YamlSection}s in {@link #load()}. <br>
      */
     public final List<YamlSection> loadedModules = new ArrayList<>();
+    /**
+     * Key based index for the {@link #inEditModules} list, used for fast lookups in {@link #get(List)}, {@link #put(List)}, {@link #add(YamlSection)} etc. <br>
+     * Gets updated automatically, when sections are added/removed via the methods of this class. <br>
+     */
+    public final YamlSectionIndex inEditIndex = new YamlSectionIndex(inEditModules);
+    /**
+     * Key based index for the {@link #loadedModules} list. Gets rebuilt in {@link #load()}. <br>
+     */
+    public final YamlSectionIndex loadedIndex = new YamlSectionIndex(loadedModules);
+    /**
+     * Cached result of {@link #createUnifiedList(List, List)} for the {@link #inEditModules} and {@link #loadedModules} lists,
+     * or null if it must be created again. See {@link #invalidateUnifiedList()}.
+     */
+    private List<YamlSection> unifiedList;
+    private int unifiedListInEditSize, unifiedListLoadedSize;
+    /**
+     * The filler modules created by the last {@link #createUnifiedList(List, List)} call.
+     * They get unlinked from their parents before the next call, since it creates new fillers.
+     */
+    private Collection<YamlSection> unifiedListFillers = Collections.emptyList();
+    /**
+     * The bytes written by the last partial save, or null. See {@link #isPartialSaveEnabled}.
+     */
+    volatile YamlWriter.WrittenFile writtenFile;
+    /**
+     * The version of the {@link #file} after the last load/save, or null. See {@link #getFileVersion()}.
+     */
+    volatile FileVersion fileVersion;
+    /**
+     * Not null if write-behind saving is enabled. See {@link #enableWriteBehind(long, long)}.
+     */
+    private volatile YamlWriteBehind writeBehind;
+    /**
+     * The last snapshot published via {@link #publishSnapshot()}, or null.
+     */
+    private volatile YamlSnapshot publishedSnapshot;
     // Utils:
     public final UtilsYaml utilsYaml = new UtilsYaml(this);
     public final UtilsYamlSection utilsYamlSection = new UtilsYamlSection();
@@ -64,6 +99,59 @@ public class Yaml {
      */
     public boolean isLoaded = false;
     public boolean isIgnoreNotLoadedException = false;
+    /**
+     * Disabled by default. <br>
+     * If enabled, {@link #load()} maps the {@link #file} into memory and reads it directly from there,
+     * which is faster for large files and creates less garbage. See {@link MappedFileReader} for details. <br>
+     * Has no effect when loading from an {@link InputStream} or String.
+     */
+    public boolean isMemoryMappedLoadingEnabled = false;
+    /**
+     * Disabled by default. <br>
+     * If enabled, {@link #save()} only writes the bytes of the {@link #file}, that changed since the last save,
+     * instead of rewriting the whole file. This makes frequent small changes to large files a lot cheaper. <br>
+     * The changed sections get written to memory and compared to the bytes of the last save. Sections with changed content
+     * but the same length are overwritten in place. After the first section with a different length, or if sections
+     * were added at the end, the rest of the file gets rewritten. <br>
+     * Only sections that are dirty (see {@link YamlSection#isDirty()}) are considered changed, thus if you modify the lists
+     * of a section directly, mark it via {@link YamlSection#setDirty(boolean)}. <br>
+     * The whole file gets rewritten on the first save, if the file was changed by someone else since the last save
+     * (compared to {@link #getFileVersion()}) or if the keys of a section changed (the structure changed). <br>
+     * Has no effect when saving to an {@link OutputStream} or String, when overwriting, or if {@link #isAtomicSaveEnabled} is enabled.
+     */
+    public boolean isPartialSaveEnabled = false;
+    /**
+     * Disabled by default. <br>
+     * If enabled, {@link #save()} writes to a temporary file in the same directory first,
+     * forces it according to the {@link #fsyncPolicy} and then atomically moves it to the {@link #file}. <br>
+     * This means that a crash while saving never leaves a truncated file and that readers never see partial content. <br>
+     * Note that {@link #isPartialSaveEnabled} has no effect if this is enabled, since partial saves write directly into the file. <br>
+     * See {@link AtomicFileOutputStream} for details.
+     */
+    public boolean isAtomicSaveEnabled = false;
+    /**
+     * {@link FsyncPolicy#DATA} by default. Defines what gets forced to the storage device before the move,
+     * when {@link #isAtomicSaveEnabled} is enabled.
+     */
+    public FsyncPolicy fsyncPolicy = FsyncPolicy.DATA;
+    /**
+     * Disabled by default. <br>
+     * If enabled, the file locks (see {@link #lockFile()}) also coordinate other processes (for example other JVMs),
+     * by locking a separate lock file next to the {@link #file} via {@link java.nio.channels.FileChannel#lock()}.
+     * See {@link FileLocks} for details. <br>
+     * Additionally {@link #load()} acquires the shared lock while reading, which means that multiple processes can read at the same time,
+     * and {@link #save()}, {@link #saveAndLoad()} and {@link #reset()} acquire the exclusive lock while writing.
+     * This is skipped if the current thread already holds a lock of the file. <br>
+     * Use {@link #lockFile()} around {@link #load()} and {@link #save()} to prevent other processes from writing in between. <br>
+     * Don't change this while holding a lock of the file, since it also defines how the lock gets released.
+     */
+    public boolean isProcessLockEnabled = false;
+    /**
+     * Disabled by default. <br>
+     * If enabled, {@link #load()} calls {@link #publishSnapshot()} after loading successfully,
+     * so that other threads always find the latest loaded state via {@link #getPublishedSnapshot()}.
+     */
+    public boolean isPublishSnapshotOnLoadEnabled = false;
     // Post-Processing:
     /**
      * Enabled by default. Convenience method for toggling post-processing.<br>
@@ -281,17 +369,53 @@ public class Yaml {
      */
     public Yaml load() throws IOException, YamlReaderException, IllegalListException, DuplicateKeyException {
         debugLogger.log(this, "Executing load()");
-        if (file != null && !file.exists()) {
-            if (file.getParentFile() != null) file.getParentFile().mkdirs();
-            file.createNewFile();
+        flushBeforeRead();
+        try (FileLocks.Handle lock = lockForIO(true)) {
+            if (file != null && !file.exists()) {
+                if (file.getParentFile() != null) file.getParentFile().mkdirs();
+                file.createNewFile();
+            }
+            new YamlReader().parse(this);
         }
-        new YamlReader().parse(this);
         isLoaded = true;
+        if (isPublishSnapshotOnLoadEnabled) publishSnapshot();
         return this;
     }
 
+    /**
+     * Returns a new immutable copy of all sections (the same sections as {@link #getAll()}). <br>
+     * Contrary to this {@link Yaml}, which must only be used by one thread at a time (since even {@link #get(String...)}
+     * modifies it), the snapshot can be queried by any amount of threads at the same time without locking. <br>
+     * Later changes to this {@link Yaml} are not visible in the returned snapshot. <br>
+     * Use {@link #publishSnapshot()} to share the snapshot with other threads.
+     */
+    public YamlSnapshot snapshot() {
+        return new YamlSnapshot(getUnifiedList());
+    }
+
+    /**
+     * Creates a new {@link #snapshot()} and atomically replaces the one returned by {@link #getPublishedSnapshot()} with it. <br>
+     * Threads that got the old snapshot can keep using it, while all following calls
+     * to {@link #getPublishedSnapshot()} return the new one. <br>
+     * See {@link #isPublishSnapshotOnLoadEnabled} to do this after every {@link #load()}.
+     */
+    public YamlSnapshot publishSnapshot() {
+        YamlSnapshot snapshot = snapshot();
+        this.publishedSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Returns the last snapshot published via {@link #publishSnapshot()}, or null if there is none. <br>
+     * Can be called from any thread without locking.
+     */
+    public YamlSnapshot getPublishedSnapshot() {
+        return publishedSnapshot;
+    }
+
     /**
      * If you access the same yaml file from multiple threads, its recommended to lock the file before loading it. <br>
+     * This acquires the exclusive lock of the file (see {@link FileLocks}), thus waits until no other thread holds a lock of the file. <br>
      * Remember to {@link #unlockFile()} so that other threads can work with the file too. <br>
      * If you don't do that, other threads will stay stuck at {@link #lockFile()} forever. <br>
      * Example: <br>
@@ -303,27 +427,55 @@ public class Yaml {
      *     yaml.save();
      *     yaml.unlockFile();
      * </pre>
+     * See {@link #exclusiveFileLock()} for a try-with-resources variant.
+     * If {@link #isProcessLockEnabled} this also waits until other processes released the file.
+     *
+     * @throws UncheckedIOException if {@link #isProcessLockEnabled} and the lock file couldn't be locked.
      */
     public void lockFile() {
-        if (file != null) {
-            ReentrantLock lock;
-            synchronized (pathsAndLocks) {
-                if (pathsAndLocks.containsKey(file.getAbsolutePath()))
-                    lock = pathsAndLocks.get(file.getAbsolutePath());
-                else {
-                    lock = new ReentrantLock();
-                    pathsAndLocks.put(file.getAbsolutePath(), lock);
-                }
-            }
-            lock.lock(); // If another thread has already the locked, the current thread will wait at this position until it gets unlocked
+        try {
+            FileLocks.lockExclusive(file, isProcessLockEnabled); // If another thread has already the locked, the current thread will wait at this position until it gets unlocked
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Acquires the shared lock of the file, which can be held by multiple threads at the same time,
+     * but not while another thread holds the exclusive lock via {@link #lockFile()}. <br>
+     * Use this if you only read the file (for example only {@link #load()}). <br>
+     * Note that a thread holding the shared lock cannot acquire the exclusive lock.
+     * If write-behind saving is enabled (see {@link #enableWriteBehind(long, long)}), {@link #load()}, {@link #reset()} and {@link #flush()}
+     * write pending saves first, which needs the exclusive lock. Thus they throw an {@link IllegalStateException} if a save is pending
+     * while the current thread holds the shared lock. Call {@link #flush()} before acquiring the shared lock to avoid that. <br>
+     * Remember to {@link #unlockFile()}.
+     */
+    public void lockFileShared() throws IOException {
+        FileLocks.lockShared(file, isProcessLockEnabled);
+    }
 
     /**
-     * If you access the same yaml file from multiple threads, its recommended to lock the file before loading it. <br>
-     * Remember to {@link #unlockFile()} so that other threads can work with the file too. <br>
-     * If you don't do that, other threads will stay stuck at {@link #lockFile()} forever. <br>
+     * Same as {@link #lockFile()}, but waits at most the provided timeout.
+     *
+     * @return true if the lock was acquired (or there is no file), false if the timeout was reached.
+     */
+    public boolean tryLockFile(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return FileLocks.tryLockExclusive(file, isProcessLockEnabled, timeout, unit) != null;
+    }
+
+    /**
+     * Same as {@link #lockFileShared()}, but waits at most the provided timeout.
+     *
+     * @return true if the lock was acquired (or there is no file), false if the timeout was reached.
+     */
+    public boolean tryLockFileShared(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return FileLocks.tryLockShared(file, isProcessLockEnabled, timeout, unit) != null;
+    }
+
+    /**
+     * Releases the lock acquired via {@link #lockFile()} or {@link #lockFileShared()}. <br>
+     * If the current thread holds the exclusive lock, it gets released, otherwise the shared lock. <br>
+     * If the current thread doesn't hold a lock of the file, nothing happens. <br>
      * Example: <br>
      * <pre>
      *     DreamYaml yaml = new DreamYaml("example.yml");
@@ -335,17 +487,39 @@ public class Yaml {
      * </pre>
      */
     public void unlockFile() {
-        if (file != null) {
-            ReentrantLock lock;
-            synchronized (pathsAndLocks) {
-                if (pathsAndLocks.containsKey(file.getAbsolutePath())) {
-                    lock = pathsAndLocks.get(file.getAbsolutePath()); // If another thread has already the locked, the current thread will wait until it gets unlocked
-                    lock.unlock();
-                    if (!lock.hasQueuedThreads())
-                        pathsAndLocks.remove(file.getAbsolutePath());
-                }
-            }
-        }
+        FileLocks.unlock(file, isProcessLockEnabled);
+    }
+
+    /**
+     * Acquires the exclusive lock of the file like {@link #lockFile()}
+     * and returns a handle, that releases it once closed. Example: <br>
+     * <pre>
+     *     try (FileLocks.Handle lock = yaml.exclusiveFileLock()) {
+     *         yaml.load();
+     *         // Do changes to file here
+     *         yaml.save();
+     *     }
+     * </pre>
+     */
+    public FileLocks.Handle exclusiveFileLock() throws IOException {
+        return FileLocks.lockExclusive(file, isProcessLockEnabled);
+    }
+
+    /**
+     * Acquires the shared lock of the file like {@link #lockFileShared()}
+     * and returns a handle, that releases it once closed.
+     */
+    public FileLocks.Handle sharedFileLock() throws IOException {
+        return FileLocks.lockShared(file, isProcessLockEnabled);
+    }
+
+    /**
+     * Returns the lock needed for reading/writing the file, if {@link #isProcessLockEnabled}
+     * and the current thread doesn't hold a lock of the file already. Otherwise nothing gets locked.
+     */
+    private FileLocks.Handle lockForIO(boolean shared) throws IOException {
+        File file = isProcessLockEnabled && !FileLocks.isHeldByCurrentThread(this.file) ? this.file : null;
+        return shared ? FileLocks.lockShared(file, true) : FileLocks.lockExclusive(file, true);
     }
 
     /**
@@ -356,10 +530,13 @@ public class Yaml {
      */
     public Yaml reset() throws IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
         debugLogger.log(this, "Executing reset()");
+        flushBeforeRead();
         if (inputStream == null) {
-            if (!isLoaded) this.load();
-            new YamlWriter().parse(this, true, true);
-            this.load();
+            try (FileLocks.Handle lock = lockForIO(false)) {
+                if (!isLoaded) this.load();
+                new YamlWriter().parse(this, true, true);
+                this.load();
+            }
         }
         return this;
     }
@@ -370,8 +547,10 @@ public class Yaml {
      */
     public Yaml saveAndLoad() throws IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
         if (!isLoaded) this.load();
-        this.save();
-        this.load();
+        try (FileLocks.Handle lock = lockForIO(false)) {
+            this.save();
+            this.load();
+        }
         return this;
     }
 
@@ -402,10 +581,152 @@ public class Yaml {
     public Yaml save(boolean overwrite) throws IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
         debugLogger.log(this, "Executing save()");
         if (!isLoaded) this.load();
-        new YamlWriter().parse(this, overwrite, false);
+        YamlWriteBehind writeBehind = this.writeBehind;
+        if (writeBehind != null) writeBehind.markDirty(new YamlWriter().render(this, overwrite));
+        else
+            try (FileLocks.Handle lock = lockForIO(false)) {
+                new YamlWriter().parse(this, overwrite, false);
+            }
+        return this;
+    }
+
+    /**
+     * Saves like {@link #save()}, but only if the {@link #file} wasn't changed by someone else
+     * (another {@link Yaml} instance or process) since it was loaded/saved the last time by this {@link Yaml}. <br>
+     * This allows you to load, do slow work and save, without holding {@link #lockFile()} the whole time.
+     * The file only gets locked while comparing and writing. <br>
+     * If the file was changed, nothing gets written and a {@link FileChangedException} is thrown.
+     * In that case {@link #load()} the new content, re-apply your changes and try again. <br>
+     * The file is compared to {@link #getFileVersion()} (size first, then the checksum).
+     * Note that this writes immediately, even if write-behind saving is enabled, and discards pending write-behind saves,
+     * since they are older. <br>
+     * If there is no {@link #file}, this is the same as {@link #save()}.
+     *
+     * @throws FileChangedException if the file was changed, or if the last write failed and thus its version is unknown.
+     */
+    public Yaml saveIfUnchanged() throws FileChangedException, IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
+        debugLogger.log(this, "Executing saveIfUnchanged()");
+        if (file == null) return save();
+        if (!isLoaded) this.load();
+        File lockedFile = FileLocks.isHeldByCurrentThread(file) ? null : file;
+        try (FileLocks.Handle lock = FileLocks.lockExclusive(lockedFile, isProcessLockEnabled)) {
+            FileVersion expected = this.fileVersion;
+            if (expected == null || !expected.matches(file.toPath()))
+                throw new FileChangedException(file, expected);
+            new YamlWriter().parse(this, false, false);
+            YamlWriteBehind writeBehind = this.writeBehind;
+            if (writeBehind != null) writeBehind.discardPending(); // Older than what was just written
+        }
+        return this;
+    }
+
+    /**
+     * Executes the provided body with a new {@link YamlTransaction}, which buffers all changes made via it. <br>
+     * After the body finished, all changes get applied together and this {@link Yaml} gets saved once (see {@link #save()}). <br>
+     * Nothing gets applied if the body throws an exception or calls {@link YamlTransaction#rollback()}.
+     * The keys of all changes get validated before anything gets applied, and if saving fails,
+     * the sections get restored to their state before the transaction. Example: <br>
+     * <pre>
+     *     yaml.transaction(tx -> {
+     *         tx.put("name").setValues("John");
+     *         tx.put("age").setValues(30);
+     *         tx.remove("old-key");
+     *     });
+     * </pre>
+     * Note that the changes are not visible in this {@link Yaml} while the body runs. <br>
+     * If write-behind saving is enabled (see {@link #enableWriteBehind(long, long)}), the commit still writes immediately,
+     * so that a failed write restores the sections instead of being retried in the background.
+     *
+     * @throws NotLoadedException if this {@link Yaml} wasn't loaded yet.
+     */
+    public <E extends Exception> Yaml transaction(YamlTransaction.Body<E> body) throws E, NotLoadedException, IllegalKeyException, IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
+        Objects.requireNonNull(body);
+        YamlTransaction tx = new YamlTransaction(this);
+        body.run(tx);
+        tx.commit();
+        return this;
+    }
+
+    /**
+     * Returns the version of the {@link #file} (last modified time, size and checksum)
+     * at the time it was loaded/saved the last time by this {@link Yaml}, or null if unknown
+     * (not loaded yet, not a file, or the last write failed). See {@link #saveIfUnchanged()}.
+     */
+    public FileVersion getFileVersion() {
+        return fileVersion;
+    }
+
+    /**
+     * Enables write-behind saving. <br>
+     * Once enabled, {@link #save()} doesn't write to the file directly anymore, but marks this {@link Yaml} as changed
+     * and schedules the save to happen later in the background. Multiple saves within the delay get coalesced into a single write. <br>
+     * Each save delays the write by the provided delay again, but the write never happens later than the provided max latency
+     * after the first unsaved save. <br>
+     * The content gets rendered by the thread calling {@link #save()}, thus changing this {@link Yaml}
+     * while the background write happens is safe, and the write contains exactly the state of the last save.
+     * Only the write happens in the background, which locks the file via {@link #lockFile()}
+     * and thus waits until other threads unlocked the file. <br>
+     * The file always gets rewritten completely, even if {@link #isPartialSaveEnabled} is true. <br>
+     * Pending saves get written by {@link #flush()}, {@link #load()}, {@link #reset()}, {@link #disableWriteBehind()}
+     * and on JVM shutdown (waiting at most a few seconds for the file lock, so that a thread that never releases it
+     * doesn't prevent the JVM from exiting). <br>
+     * Errors while writing in the background get printed and the changes stay unsaved until the next flush/save.
+     *
+     * @param delayMillis      how long to wait after the last save, before writing.
+     * @param maxLatencyMillis max time between the first unsaved save and the write. Must be bigger or equal to the delay.
+     */
+    public Yaml enableWriteBehind(long delayMillis, long maxLatencyMillis) throws IOException, YamlWriterException {
+        YamlWriteBehind old = this.writeBehind;
+        this.writeBehind = new YamlWriteBehind(this, delayMillis, maxLatencyMillis);
+        if (old != null) old.disable();
         return this;
     }
 
+    /**
+     * Writes pending saves and disables write-behind saving. See {@link #enableWriteBehind(long, long)} for details.
+     */
+    public Yaml disableWriteBehind() throws IOException, YamlWriterException {
+        YamlWriteBehind writeBehind = this.writeBehind;
+        this.writeBehind = null;
+        if (writeBehind != null) writeBehind.disable();
+        return this;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehind != null;
+    }
+
+    /**
+     * Returns true if write-behind saving is enabled and there are saves that weren't written yet.
+     */
+    public boolean isWriteBehindPending() {
+        YamlWriteBehind writeBehind = this.writeBehind;
+        return writeBehind != null && writeBehind.isDirty();
+    }
+
+    /**
+     * Writes pending saves now, if write-behind saving is enabled. See {@link #enableWriteBehind(long, long)} for details.
+     *
+     * @throws IllegalStateException if a save is pending and the current thread holds the shared lock of the file, see {@link #lockFileShared()}.
+     */
+    public Yaml flush() throws IOException, YamlWriterException {
+        YamlWriteBehind writeBehind = this.writeBehind;
+        if (writeBehind != null) writeBehind.flush();
+        return this;
+    }
+
+    /**
+     * Pending saves must be written before reading the file, otherwise the not yet written changes
+     * would be overwritten by the old values of the file.
+     */
+    private void flushBeforeRead() throws IOException {
+        try {
+            flush();
+        } catch (YamlWriterException e) {
+            throw new IOException("Failed to write pending save before reading: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Returns the {@link YamlSection} with matching keys or null. <br>
      * Details: <br>
@@ -431,12 +752,14 @@ public class Yaml {
      */
     public YamlSection get(List<String> keys) {
         Objects.requireNonNull(keys);
-        debugLogger.log(this, "Executing get(" + keys.toString() + ")");
-        YamlSection module = utilsYamlSection.getExisting(keys, inEditModules);
+        debugLogger.log(this, () -> "Executing get(" + keys + ")");
+        YamlSection module = inEditIndex.get(keys);
         if (module == null) {
-            module = utilsYamlSection.getExisting(keys, loadedModules);
+            module = loadedIndex.get(keys);
             if (module != null) {
                 inEditModules.add(module);
+                inEditIndex.added(module);
+                invalidateUnifiedList();
             }
         }
         return module;
@@ -473,14 +796,16 @@ public class Yaml {
      */
     public YamlSection put(List<String> keys) throws NotLoadedException, IllegalKeyException {
         Objects.requireNonNull(keys);
-        debugLogger.log(this, "Executing add(" + keys.toString() + ")");
+        debugLogger.log(this, () -> "Executing put(" + keys + ")");
 
-        YamlSection section = utilsYamlSection.getExisting(keys, inEditModules);
+        YamlSection section = inEditIndex.get(keys);
         if (section != null)
             return section;
-        section = utilsYamlSection.getExisting(keys, loadedModules);
+        section = loadedIndex.get(keys);
         if (section != null) {
             inEditModules.add(section);
+            inEditIndex.added(section);
+            invalidateUnifiedList();
             return section;
         }
         try {
@@ -488,7 +813,7 @@ public class Yaml {
         } catch (NotLoadedException | IllegalKeyException e) {
             throw e;
         } catch (DuplicateKeyException ignored) {
-            debugLogger.log(this, "This shouldn't happen! Error while adding " + keys.toString() + " Message: " + ignored.getMessage());
+            debugLogger.log(DYDebugLogger.Level.WARN, this, () -> "This shouldn't happen! Error while adding " + keys + " Message: " + ignored.getMessage());
         }
         return section;
     }
@@ -548,29 +873,125 @@ public class Yaml {
     public YamlSection add(YamlSection module) throws IllegalKeyException, NotLoadedException, DuplicateKeyException {
         Objects.requireNonNull(module);
         Objects.requireNonNull(module.getKeys());
-        debugLogger.log(this, "Executing add(" + module.getKeys().toString() + ")");
+        debugLogger.log(this, () -> "Executing add(" + module.getKeys() + ")");
         if (module.getKeys().isEmpty()) throw new IllegalKeyException("Keys list of this module cannot be empty!");
         if (!isLoaded) throw new NotLoadedException(); // load() should've been called at least once before
         if (module.getKeys().contains(null))
             throw new IllegalKeyException("The provided keys list contains null key(s)! This is not allowed!");
 
-        if (utilsYamlSection.getExisting(module, this.inEditModules) != null)
+        if (inEditIndex.get(module.getKeys()) != null)
             throw new DuplicateKeyException(getSource().toString(), module.getKeys().toString());
 
-        if (utilsYamlSection.getExisting(module, this.loadedModules) != null)
+        if (loadedIndex.get(module.getKeys()) != null)
             throw new DuplicateKeyException(getSource().toString(), module.getKeys().toString());
 
         int closestParentIndex = utilsYamlSection.getClosestParentIndex(module.getKeys(), inEditModules);
-        if (closestParentIndex == -1) {
+        if (closestParentIndex != -1 && closestParentIndex + 1 <= inEditModules.size())
+            this.inEditModules.add(closestParentIndex + 1, module);
+        else
             this.inEditModules.add(module);
-            return module;
+        inEditIndex.added(module);
+        invalidateUnifiedList();
+        return module;
+    }
+
+    /**
+     * Adds all provided {@link YamlSection}s at once, or none of them if one already exists. <br>
+     * Faster than calling {@link #add(YamlSection)} for each section, since the insert position
+     * is only searched once and the sections get inserted as a single block, in the provided order. <br>
+     * Thus the sections are expected to be in hierarchical order (parents before children, like they
+     * appear in the file) and to belong to the same parent, for example the subtree of an object
+     * written by {@link YamlSection#putJavaChildSection(Object)}. <br>
+     * See {@link #add(YamlSection)} for details.
+     *
+     * @param modules modules to add.
+     * @return the added modules.
+     * @throws NotLoadedException    if the yaml file has not been loaded once yet
+     * @throws DuplicateKeyException if another module with the same keys already exists, or is contained twice in the provided list
+     */
+    public List<YamlSection> addAll(List<YamlSection> modules) throws IllegalKeyException, NotLoadedException, DuplicateKeyException {
+        Objects.requireNonNull(modules);
+        debugLogger.log(this, () -> "Executing addAll(" + modules.size() + " modules)");
+        if (modules.isEmpty()) return modules;
+        if (!isLoaded) throw new NotLoadedException(); // load() should've been called at least once before
+        Set<List<String>> batchKeys = new HashSet<>();
+        for (YamlSection module : modules) {
+            Objects.requireNonNull(module.getKeys());
+            if (module.getKeys().isEmpty()) throw new IllegalKeyException("Keys list of this module cannot be empty!");
+            if (module.getKeys().contains(null))
+                throw new IllegalKeyException("The provided keys list contains null key(s)! This is not allowed!");
+            if (!batchKeys.add(module.getKeys())
+                    || inEditIndex.get(module.getKeys()) != null
+                    || loadedIndex.get(module.getKeys()) != null)
+                throw new DuplicateKeyException(getSource().toString(), module.getKeys().toString());
         }
-        if (closestParentIndex + 1 <= inEditModules.size()) {
-            this.inEditModules.add(closestParentIndex + 1, module);
-            return module;
+
+        int closestParentIndex = utilsYamlSection.getClosestParentIndex(modules.get(0).getKeys(), inEditModules);
+        if (closestParentIndex != -1 && closestParentIndex + 1 <= inEditModules.size())
+            this.inEditModules.addAll(closestParentIndex + 1, modules);
+        else
+            this.inEditModules.addAll(modules);
+        for (YamlSection module : modules) {
+            inEditIndex.added(module);
         }
-        this.inEditModules.add(module);
-        return module;
+        invalidateUnifiedList();
+        return modules;
+    }
+
+    /**
+     * Like {@link #put(List)} for each of the provided keys, but all new sections get inserted into
+     * the {@link #inEditModules} list in a single pass, instead of searching the insert position for each. <br>
+     * New sections get inserted after the last section with the same G0 key, in the provided order,
+     * or at the end if there is none. The keys must be valid (not empty and without null keys). <br>
+     * Used by {@link YamlTransaction}.
+     *
+     * @return the existing or new sections, in the order of the provided keys.
+     */
+    List<YamlSection> putAll(List<List<String>> keysList) {
+        List<YamlSection> result = new ArrayList<>(keysList.size());
+        Map<List<String>, YamlSection> newModules = new HashMap<>();
+        Map<String, List<YamlSection>> g0KeysAndNewModules = new LinkedHashMap<>();
+        for (List<String> keys : keysList) {
+            YamlSection module = inEditIndex.get(keys);
+            if (module == null) module = newModules.get(keys);
+            if (module == null) {
+                module = loadedIndex.get(keys);
+                if (module != null) {
+                    inEditModules.add(module);
+                    inEditIndex.added(module);
+                } else {
+                    module = new YamlSection(this, new ArrayList<>(keys), null, null, null);
+                    newModules.put(module.getKeys(), module);
+                    g0KeysAndNewModules.computeIfAbsent(keys.get(0), k -> new ArrayList<>()).add(module);
+                }
+            }
+            result.add(module);
+        }
+        if (!newModules.isEmpty()) {
+            Map<String, Integer> g0KeysAndLastIndex = new HashMap<>();
+            for (int i = 0; i < inEditModules.size(); i++) {
+                String g0Key = inEditModules.get(i).getKeys().get(0);
+                if (g0KeysAndNewModules.containsKey(g0Key)) g0KeysAndLastIndex.put(g0Key, i);
+            }
+            List<YamlSection> merged = new ArrayList<>(inEditModules.size() + newModules.size());
+            for (int i = 0; i < inEditModules.size(); i++) {
+                YamlSection module = inEditModules.get(i);
+                merged.add(module);
+                String g0Key = module.getKeys().get(0);
+                Integer lastIndex = g0KeysAndLastIndex.get(g0Key);
+                if (lastIndex != null && lastIndex == i) merged.addAll(g0KeysAndNewModules.remove(g0Key));
+            }
+            for (List<YamlSection> modules : g0KeysAndNewModules.values()) {
+                merged.addAll(modules);
+            }
+            inEditModules.clear();
+            inEditModules.addAll(merged);
+            for (YamlSection module : newModules.values()) {
+                inEditIndex.added(module);
+            }
+        }
+        invalidateUnifiedList();
+        return result;
     }
 
     /**
@@ -585,17 +1006,20 @@ public class Yaml {
         debugLogger.log(this, "Executing replace()");
         Objects.requireNonNull(moduleToReplace);
         Objects.requireNonNull(newModule);
-        YamlSection module = utilsYamlSection.getExisting(moduleToReplace, inEditModules);
+        YamlSection module = inEditIndex.get(moduleToReplace.getKeys());
         if (module == null) {
-            module = utilsYamlSection.getExisting(moduleToReplace, loadedModules);
+            module = loadedIndex.get(moduleToReplace.getKeys());
             if (module != null) {
                 inEditModules.add(newModule);
+                inEditIndex.added(newModule);
             }
         } else {
             int i = inEditModules.indexOf(moduleToReplace);
             inEditModules.remove(moduleToReplace);
             inEditModules.add(i, newModule);
+            inEditIndex.replaced(moduleToReplace, newModule);
         }
+        if (module != null) invalidateUnifiedList();
         return module;
     }
 
@@ -611,6 +1035,9 @@ public class Yaml {
     public void removeAll() {
         inEditModules.clear();
         loadedModules.clear();
+        inEditIndex.rebuild();
+        loadedIndex.rebuild();
+        invalidateUnifiedList();
     }
 
     /**
@@ -618,15 +1045,50 @@ public class Yaml {
      */
     public Yaml remove(YamlSection module) {
         debugLogger.log(this, "Executing remove()");
-        YamlSection addedM = utilsYamlSection.getExisting(module, inEditModules);
-        if (addedM != null)
+        YamlSection addedM = inEditIndex.get(module.getKeys());
+        if (addedM != null) {
             this.inEditModules.remove(addedM);
-        YamlSection loadedM = utilsYamlSection.getExisting(module, loadedModules);
-        if (loadedM != null)
+            inEditIndex.removed(addedM);
+        }
+        YamlSection loadedM = loadedIndex.get(module.getKeys());
+        if (loadedM != null) {
             this.loadedModules.remove(loadedM);
+            loadedIndex.removed(loadedM);
+        }
+        if (addedM != null || loadedM != null) invalidateUnifiedList();
         return this;
     }
 
+    /**
+     * Removes the child sections of the provided parent (including their children),
+     * except the ones with a key contained in the provided set. <br>
+     * Used when writing collections and maps, to remove the elements that don't exist anymore. <br>
+     * The children to remove are found via {@link YamlSection#getChildSections()}, thus the modules lists only get scanned
+     * if something gets removed.
+     */
+    void removeChildSectionsExcept(YamlSection parent, Set<String> keptKeys) {
+        Set<String> removedKeys = new HashSet<>();
+        for (YamlSection child : parent.getChildSections()) {
+            String key = child.getLastKey();
+            if (!keptKeys.contains(key)) removedKeys.add(key);
+        }
+        if (removedKeys.isEmpty()) return;
+        List<String> parentKeys = parent.getKeys();
+        int depth = parentKeys.size();
+        for (List<YamlSection> sections : Arrays.asList(inEditModules, loadedModules)) {
+            YamlSectionIndex index = sections == inEditModules ? inEditIndex : loadedIndex;
+            sections.removeIf(section -> {
+                List<String> keys = section.getKeys();
+                if (keys.size() <= depth || !removedKeys.contains(keys.get(depth))
+                        || !keys.subList(0, depth).equals(parentKeys)) return false;
+                index.removed(section);
+                return true;
+            });
+        }
+        parent.getChildSections().removeIf(child -> removedKeys.contains(child.getLastKey())); // The index notices it
+        invalidateUnifiedList();
+    }
+
 
     // WATCHER:
 
@@ -656,156 +1118,338 @@ public class Yaml {
      * and that new modules are inserted in the correct position. <br>
      * Logic: <br>
      * 1. If the loaded modules list is empty, nothing needs to be done! Return {@link #inEditModules}. <br>
-     * 2. Else go through the loaded modules and compare each module with the {@link #inEditModules} list.
+     * 2. Else go through the loaded modules and look up each module in a map of the {@link #inEditModules} by keys.
      * If there is an inEdit module with the same keys, add it to the unified list instead of the loaded module. <br>
-     * 3. If there are NEW modules in the {@link #inEditModules} list, insert them into the right places of unified list. <br>
+     * 3. If there are NEW modules in the {@link #inEditModules} list, insert them into the right places of unified list.
+     * This is done with a tree of the modules keys, that knows the last module of each hierarchy,
+     * so that a new module gets inserted after the last module of its closest existing parent.
+     * Missing parents get created as fillers. New G0 modules get added to the beginning. <br>
+     * This runs in linear time, relative to the count of modules and their keys.
      *
      * @return a fresh unified list containing loaded modules extended by {@link #inEditModules}.
      */
     public List<YamlSection> createUnifiedList(List<YamlSection> inEditModules, List<YamlSection> loadedModules) {
+        unlinkUnifiedListFillers();
         if (loadedModules.isEmpty()) return inEditModules;
-
-        debugLogger.log(this, "### CREATE UNIFIED LIST ###");
-        debugLogger.log(this, "This process creates a single list out of the 'inEditModules' and 'loadedModules' lists.");
-        debugLogger.log(this, "Printing contents of both lists:");
-        debugLogger.log(this, "EM: inEditModule, LM: loadedModule.");
-        for (YamlSection m :
-                inEditModules) {
-            debugLogger.log(this, "EM: " + m.getKeys());
-        }
-
-        for (YamlSection m :
-                loadedModules) {
-            debugLogger.log(this, "LM: " + m.getKeys());
+        boolean isDebug = debugLogger.isEnabled(DYDebugLogger.Level.TRACE);
+        if (isDebug) {
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "### CREATE UNIFIED LIST ###");
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "This process creates a single list out of the 'inEditModules' and 'loadedModules' lists.");
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "Printing contents of both lists:");
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "EM: inEditModule, LM: loadedModule.");
+            for (YamlSection m :
+                    inEditModules) {
+                debugLogger.log(DYDebugLogger.Level.TRACE, this, "EM: " + m.getKeys());
+            }
+            for (YamlSection m :
+                    loadedModules) {
+                debugLogger.log(DYDebugLogger.Level.TRACE, this, "LM: " + m.getKeys());
+            }
         }
 
-        List<YamlSection> copyInEditModules = new CopyOnWriteArrayList<>(inEditModules);
-        List<YamlSection> unifiedList = new ArrayList<>();
         // Go through the loadedModules list and take its structure.
-        debugLogger.log(this, "Create the unified list: ");
-        debugLogger.log(this, "We go thorough the loadedModules list, to keep its structure and");
-        debugLogger.log(this, "add its modules to the unified list. If there is a inEditModule that has the");
-        debugLogger.log(this, "same keys as the loadedModule, it gets added instead.");
-        debugLogger.log(this, "EM: inEditModule, LM: loadedModule.");
+        // If there is an inEditModule that has the same keys as the loadedModule, it gets added instead.
+        Map<List<String>, ArrayDeque<YamlSection>> keysAndInEditModules = new HashMap<>();
+        for (YamlSection m : inEditModules) {
+            keysAndInEditModules.computeIfAbsent(m.getKeys(), k -> new ArrayDeque<>(1)).add(m);
+        }
+        Set<YamlSection> usedInEditModules = Collections.newSetFromMap(new IdentityHashMap<>());
+        UnifiedListBuilder builder = new UnifiedListBuilder();
         for (YamlSection loadedModule :
                 loadedModules) {
-            // Check if there is the same 'inEdit module' available
-            YamlSection existing = utilsYamlSection.getExisting(loadedModule, copyInEditModules);
+            ArrayDeque<YamlSection> sameKeys = keysAndInEditModules.get(loadedModule.getKeys());
+            YamlSection existing = sameKeys == null ? null : sameKeys.poll();
             if (existing != null) {
-                unifiedList.add(existing);
-                // Also remove it from its own list, so at the end there are only 'new' modules in that list
-                copyInEditModules.remove(existing);
-                debugLogger.log(this, "+ EM " + existing.getKeys().toString() + " to unified.");
+                usedInEditModules.add(existing);
+                builder.addBase(existing);
+                if (isDebug) debugLogger.log(DYDebugLogger.Level.TRACE, this, "+ EM " + existing.getKeys().toString() + " to unified.");
             } else {
-                unifiedList.add(loadedModule);
-                debugLogger.log(this, "+ LM " + loadedModule.getKeys().toString() + " to unified.");
+                builder.addBase(loadedModule);
+                if (isDebug) debugLogger.log(DYDebugLogger.Level.TRACE, this, "+ LM " + loadedModule.getKeys().toString() + " to unified.");
+            }
+        }
+
+        // The remaining inEditModules are completely new modules.
+        // Insert G0 modules at the beginning of the unified list and
+        // other generations after the last module of their parent.
+        for (YamlSection newModule :
+                inEditModules) {
+            if (usedInEditModules.contains(newModule)) continue;
+            builder.insert(newModule);
+            if (isDebug) debugLogger.log(DYDebugLogger.Level.TRACE, this, "+ NM " + newModule.getKeys().toString());
+        }
+
+        List<YamlSection> unifiedList = builder.build();
+        unifiedListFillers = builder.fillers;
+        if (isDebug) {
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "Finished creation of unified list. Quick overview of the result:");
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "UM: unifiedModule.");
+            for (YamlSection m :
+                    unifiedList) {
+                debugLogger.log(DYDebugLogger.Level.TRACE, this, "UM: " + m.getKeys().toString());
             }
+            debugLogger.log(DYDebugLogger.Level.TRACE, this, "### FINISHED CREATE UNIFIED LIST ###");
         }
+        return unifiedList;
+    }
 
-        debugLogger.log(this, "Now go through the copyInEditModules(" + copyInEditModules.size() + ") list, which");
-        debugLogger.log(this, "should now only contain new modules, that didn't exist in the loadedModules list.");
-        debugLogger.log(this, "Insert those modules, into the unified list, at the right place:");
-        debugLogger.log(this, "NM: newModule.");
+    /**
+     * Used by {@link #createUnifiedList(List, List)} to insert new modules into the base (loaded) modules. <br>
+     * Contains a tree of keys, where each node knows its module and the last module in its hierarchy (itself or its last child). <br>
+     * New modules (with their fillers) are not inserted into a list directly, but remembered as chains
+     * that follow a specific module (anchor), which avoids expensive list inserts.
+     */
+    private class UnifiedListBuilder {
+        private final KeyNode root = new KeyNode(null);
+        private final List<YamlSection> base = new ArrayList<>();
+        /**
+         * Chains of modules, that get inserted at the beginning of the list.
+         */
+        private final ArrayDeque<List<YamlSection>> head = new ArrayDeque<>();
+        /**
+         * Chains of modules, that get inserted directly after the key module.
+         * Later inserted chains come first, since they are inserted directly after the module.
+         */
+        private final Map<YamlSection, ArrayDeque<List<YamlSection>>> anchorsAndChains = new IdentityHashMap<>();
+        private final Set<YamlSection> fillers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        void addBase(YamlSection module) {
+            base.add(module);
+            KeyNode node = root;
+            for (String key : module.getKeys()) {
+                node = node.getOrCreateChild(key);
+                node.lastModule = module; // Base modules are added in order, thus this is the last one
+            }
+            if (node.module == null) node.module = module;
+        }
 
+        void insert(YamlSection newModule) {
+            List<String> keys = newModule.getKeys();
+            // Find the closest existing parent (the deepest existing node)
+            KeyNode closest = root;
+            int countMatchingKeys = 0;
+            for (int i = 0; i < keys.size() - 1; i++) {
+                KeyNode child = closest.children.get(keys.get(i));
+                if (child == null) break;
+                closest = child;
+                countMatchingKeys++;
+            }
 
-        // The copyInEditModules, now only contains completely new modules.
-        // Go through that list, add G0 modules to the end of the unifiedModules list and
-        // other generations to their respective parents, also at the last position.
-        for (YamlSection newModule :
-                copyInEditModules) {
-
-            if (newModule.getKeys().size() > 1) {
-                // Find the module with the most matching keys, to determine its position in the hierarchy
-                int currentIndex = 0; // The current index in the loop below
-                int bestMatchIndex = 0; // The index of the module, with the highest count of matching keys
-                int highestCountOfMatchingKeys = 0;
-                for (YamlSection unifiedModule : // Compare each unified modules keys against the new modules keys
-                        unifiedList) {
-                    for (int j = 0; j < unifiedModule.getKeys().size(); j++) {
-                        if (unifiedModule.getKeys().get(j).equals(newModule.getKeys().get(j))) {
-                            // Not >= because we don't want to get child modules. In the example below we are searching for [g0, g1]:
-                            // g0:
-                            //   g1: <--- Keys as list: [g0, g1]
-                            //     g2: <--- Keys as list: [g0, g1, g2]
-                            // As you can see above, both contain g0 and g1 in their keys list.
-                            // With >= we ensure, that NOT only the first module is picked as best match, but
-                            // we get to the last child modules position.
-                            // This ensures, that the new module is added to the end of that generation.
-                            // g0:
-                            //   g1-1:
-                            //   g1-2: <---
-                            if (j + 1 >= highestCountOfMatchingKeys) { // Since j is the index, add +1 to get the actual count
-                                debugLogger.log(this, "Set bestMatchIndex to " + currentIndex + " because of " + (j + 1) + "x similar keys found in unifiedModule, while searching for " + newModule.getKeys().toString());
-                                bestMatchIndex = currentIndex;
-                                highestCountOfMatchingKeys = j + 1; // Since j is the index, add +1 to get the actual count
-                            }
-                        } else
-                            break;
-                    }
-                    currentIndex++;
+            if (countMatchingKeys == keys.size() - 1) {
+                KeyNode node = closest.children.get(keys.get(keys.size() - 1));
+                if (node != null && node.module != null && fillers.contains(node.module)) {
+                    // A filler was created for this module before, thus replace the filler
+                    replaceFiller(node, newModule);
+                    return;
                 }
+            }
 
+            // Create fillers for the missing parents
+            List<YamlSection> chain = new ArrayList<>(keys.size() - countMatchingKeys);
+            YamlSection parent = closest.module;
+            KeyNode node = closest;
+            for (int i = countMatchingKeys; i < keys.size() - 1; i++) {
+                YamlSection fillerModule = new YamlSection(Yaml.this, new ArrayList<>(keys.subList(0, i + 1)), null, null, null);
+                fillers.add(fillerModule);
+                link(parent, fillerModule);
+                chain.add(fillerModule);
+                node = node.getOrCreateChild(keys.get(i));
+                node.module = fillerModule;
+                parent = fillerModule;
+            }
+            link(parent, newModule);
+            chain.add(newModule);
+            node = node.getOrCreateChild(keys.get(keys.size() - 1));
+            if (node.module == null) node.module = newModule;
+
+            if (countMatchingKeys == 0) {
+                head.addFirst(chain);
+                for (YamlSection m : chain) updateLastModule(m.getKeys(), null, newModule);
+            } else {
+                YamlSection anchor = closest.lastModule;
+                anchorsAndChains.computeIfAbsent(anchor, k -> new ArrayDeque<>(1)).addFirst(chain);
+                updateLastModule(keys, anchor, newModule);
+            }
+        }
 
-                if (highestCountOfMatchingKeys != newModule.getKeys().size() - 1) { // -1 Because we want the parent module
-                    // This means that the 'parent' module has less matching keys and thus cannot be the direct parent.
-                    // Lets imagine we added a new module with these keys [g0, g1, g2, g3], but the loaded file looks like this:
-                    // g0:
-                    //   g1: <---
-                    // In this case the highest count of matching keys is 2: [g0, g1], but the parent should be [g0, g1, g2], aka
-                    // the highest count of matching keys should be 3.
-                    // Thus we need to create and add those missing modules in between, as fillers.
-                    YamlSection beforeFillerModule = null;
-                    for (int i = highestCountOfMatchingKeys; i < newModule.getKeys().size() - 1; i++) { // -1 Because we want the parent module
-                        YamlSection fillerModule = new YamlSection(this, newModule.getKeys().subList(0, i), null, null, null);
-                        bestMatchIndex++; // So that the new filler module gets added in the right position
-                        unifiedList.add(bestMatchIndex, fillerModule);
-                        if (beforeFillerModule != null) {
-                            beforeFillerModule.addChildSections(fillerModule);
-                            fillerModule.setParentSection(beforeFillerModule);
-                        }
-                        debugLogger.log(this, "+ Filler at index " + bestMatchIndex + " " + fillerModule.getKeys().toString());
-                        beforeFillerModule = fillerModule;
-                    }
+        /**
+         * Sets the last module of the nodes along the provided keys, to the new last module, if
+         * their last module was the old last module, or if they are new nodes.
+         */
+        private void updateLastModule(List<String> keys, YamlSection oldLastModule, YamlSection newLastModule) {
+            KeyNode node = root;
+            for (String key : keys) {
+                node = node.children.get(key);
+                if (node == null) return;
+                if (node.lastModule == null || node.lastModule == oldLastModule)
+                    node.lastModule = newLastModule;
+            }
+        }
+
+        private void replaceFiller(KeyNode node, YamlSection newModule) {
+            YamlSection filler = node.module;
+            node.module = newModule;
+            fillers.remove(filler);
+            // Replace in its chain
+            for (List<YamlSection> chain : allChains()) {
+                int i = chain.indexOf(filler);
+                if (i != -1) {
+                    chain.set(i, newModule);
+                    break;
                 }
+            }
+            ArrayDeque<List<YamlSection>> chains = anchorsAndChains.remove(filler);
+            if (chains != null) anchorsAndChains.put(newModule, chains);
+            // Move parent and children
+            YamlSection parent = filler.getParentSection();
+            if (parent != null) {
+                parent.removeChildSection(filler);
+                link(parent, newModule);
+            }
+            for (YamlSection child : filler.getChildSections()) {
+                link(newModule, child);
+            }
+            updateLastModule(newModule.getKeys(), filler, newModule);
+        }
+
+        private List<List<YamlSection>> allChains() {
+            List<List<YamlSection>> all = new ArrayList<>(head);
+            for (ArrayDeque<List<YamlSection>> chains : anchorsAndChains.values()) {
+                all.addAll(chains);
+            }
+            return all;
+        }
+
+        private void link(YamlSection parent, YamlSection child) {
+            if (parent == null) return;
+            child.setParentSection(parent);
+            if (!parent.getChildSections().contains(child))
+                parent.addChildSections(child);
+        }
+
+        /**
+         * Returns the list of base modules, with the new modules inserted.
+         */
+        List<YamlSection> build() {
+            List<YamlSection> result = new ArrayList<>(base.size() + fillers.size() + anchorsAndChains.size());
+            // Explicit stack of iterators, to avoid deep recursion for long chains
+            ArrayDeque<Iterator<YamlSection>> stack = new ArrayDeque<>();
+            for (List<YamlSection> chain : head) {
+                stack.push(chain.iterator());
+                addAll(result, stack);
+            }
+            stack.push(base.iterator());
+            addAll(result, stack);
+            return result;
+        }
 
-                try {
-                    YamlSection parent = unifiedList.get(bestMatchIndex);
-                    bestMatchIndex++; // +1 because we currently got the index for the parent, before this module.
-                    unifiedList.add(bestMatchIndex, newModule);
-                    parent.addChildSections(newModule);
-                    newModule.setParentSection(parent);
-                    debugLogger.log(this, "> Insert at index " + bestMatchIndex + " " + newModule.getKeys().toString());
-                } catch (Exception e) {
-                    debugLogger.log(this, "! Failed to find parent for: " + newModule.getKeys().toString() + " Probably a new module.");
-                    unifiedList.add(0, newModule); // Can be a completely new >G0 module
-                    debugLogger.log(this, "+ NM " + newModule.getKeys().toString());
+        private void addAll(List<YamlSection> result, ArrayDeque<Iterator<YamlSection>> stack) {
+            while (!stack.isEmpty()) {
+                Iterator<YamlSection> it = stack.peek();
+                if (!it.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                YamlSection module = it.next();
+                result.add(module);
+                ArrayDeque<List<YamlSection>> chains = anchorsAndChains.get(module);
+                if (chains != null) {
+                    // Push in reverse order, so that the first chain gets added first
+                    Iterator<List<YamlSection>> reverse = chains.descendingIterator();
+                    while (reverse.hasNext()) stack.push(reverse.next().iterator());
                 }
-            } else {
-                unifiedList.add(0, newModule); // G0 modules get added to the end of the file
-                debugLogger.log(this, "+ NM at G0 " + newModule.getKeys().toString());
             }
         }
+    }
 
-        debugLogger.log(this, "Finished creation of unified list. Quick overview of the result:");
-        debugLogger.log(this, "UM: unifiedModule.");
-        for (YamlSection m :
-                unifiedList) {
-            debugLogger.log(this, "UM: " + m.getKeys().toString());
+    private static class KeyNode {
+        private final Map<String, KeyNode> children = new HashMap<>();
+        /**
+         * The first module with exactly the keys of this node, or null.
+         */
+        private YamlSection module;
+        /**
+         * The last module of this nodes hierarchy, aka the module with the keys of this node or the last of its children.
+         */
+        private YamlSection lastModule;
+
+        private KeyNode(YamlSection module) {
+            this.module = module;
+        }
+
+        private KeyNode getOrCreateChild(String key) {
+            KeyNode child = children.get(key);
+            if (child == null) {
+                child = new KeyNode(null);
+                children.put(key, child);
+            }
+            return child;
         }
-        debugLogger.log(this, "### FINISHED CREATE UNIFIED LIST ###");
-        return unifiedList;
     }
 
 
+    /**
+     * Removes the filler modules of the last {@link #createUnifiedList(List, List)} call from the child sections
+     * of their parents, and clears the cached unified list, since it contains them. <br>
+     * Used by {@link YamlTransaction}, so that it only snapshots the links of real sections.
+     */
+    void unlinkUnifiedListFillers() {
+        if (unifiedListFillers.isEmpty()) return;
+        for (YamlSection filler : unifiedListFillers) {
+            YamlSection parent = filler.getParentSection();
+            if (parent != null) parent.removeChildSection(filler);
+        }
+        unifiedListFillers = Collections.emptyList();
+        invalidateUnifiedList();
+    }
+
     /**
      * Returns a fresh unified, ordered list with {@link #loadedModules} and {@link #inEditModules} merged together. <br>
+     * The merge result gets cached until the sections change, thus this only copies the cached list. <br>
      * Note that this is not the original list, but a copy and thus any changes to it, won't have affect and changes to the original
      * won't be reflected in this copy. <br>
      * This list is the one, that gets written to the yaml file. <br>
      * See {@link #createUnifiedList(List, List)} for details.
      */
     public List<YamlSection> getAll() {
-        return createUnifiedList(this.inEditModules, this.loadedModules);
+        return new ArrayList<>(getUnifiedList());
+    }
+
+    /**
+     * Returns the cached unified list, or creates it if the {@link #inEditModules}/{@link #loadedModules} lists were changed. <br>
+     * The returned list must not be modified.
+     */
+    List<YamlSection> getUnifiedList() {
+        List<YamlSection> list = this.unifiedList;
+        // The size checks detect changes to the lists, that were made directly and not via the methods of this class
+        if (list == null || unifiedListInEditSize != inEditModules.size() || unifiedListLoadedSize != loadedModules.size()) {
+            list = createUnifiedList(this.inEditModules, this.loadedModules);
+            this.unifiedList = list;
+            this.unifiedListInEditSize = inEditModules.size();
+            this.unifiedListLoadedSize = loadedModules.size();
+        }
+        return list;
+    }
+
+    /**
+     * Clears the cached result of {@link #createUnifiedList(List, List)}, used by {@link #getAll()} and {@link #save()}. <br>
+     * Gets called automatically when sections are added/removed/replaced via the methods of this class,
+     * when their keys change and on {@link #load()}. <br>
+     * Only call this if you modified the {@link #inEditModules} or {@link #loadedModules} lists directly.
+     */
+    public void invalidateUnifiedList() {
+        this.unifiedList = null;
+    }
+
+    /**
+     * Gets called by {@link YamlSection} when its keys were changed, to keep the indexes in sync.
+     *
+     * @param oldKeys the keys of the section before they were changed.
+     */
+    void keysChanged(YamlSection section, List<String> oldKeys) {
+        inEditIndex.keysChanged(section, oldKeys);
+        loadedIndex.keysChanged(section, oldKeys);
+        invalidateUnifiedList();
     }
 
     /**
@@ -0,0 +1,333 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import com.osiris.dyml.exceptions.IllegalListException;
+import com.osiris.dyml.exceptions.YamlReaderException;
+import com.osiris.dyml.utils.MappedFileReader;
+import com.osiris.dyml.utils.UtilsYamlSection;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Streaming pull-parser for yaml files, that reads the file line by line and returns
+ * {@link DYEvent}s, without building {@link YamlSection}s. <br>
+ * This means that files of any size can be read in constant memory. <br>
+ * It uses the same tokenizing logic as {@link Yaml#load()}, thus the keys, values and comments are
+ * the same as the ones of the loaded {@link YamlSection}s (with the default post-processing options). <br>
+ * Example:
+ * <pre>
+ * try (YamlEventReader reader = new YamlEventReader(file)) {
+ *     while (reader.hasNext()) {
+ *         if (reader.next() == DYEvent.VALUE &amp;&amp; reader.getKeys().equals(Arrays.asList("server", "port")))
+ *             port = reader.getValue();
+ *     }
+ * }
+ * </pre>
+ * Events of a section: <br>
+ * {@link DYEvent#START_SECTION}, then its comments as {@link DYEvent#COMMENT}s, then its values as {@link DYEvent#VALUE}s
+ * (each followed by its side comment if there is one), then the events of its child sections
+ * and finally {@link DYEvent#END_SECTION}. <br>
+ * Note that null values are skipped.
+ */
+public class YamlEventReader implements Closeable {
+    /**
+     * Enabled by default. Trims the values. See {@link Yaml#isTrimLoadedValuesEnabled}.
+     */
+    public boolean isTrimValuesEnabled = true;
+    /**
+     * Enabled by default. Removes quotation marks from the values. See {@link Yaml#isRemoveQuotesFromLoadedValuesEnabled}.
+     */
+    public boolean isRemoveQuotesFromValuesEnabled = true;
+    /**
+     * Enabled by default. Trims the comments. See {@link Yaml#isTrimCommentsEnabled}.
+     */
+    public boolean isTrimCommentsEnabled = true;
+
+    private final Reader reader;
+    private final boolean isCloseReader;
+    private final String sourceName;
+    private final LineScanner scanner;
+    private final DYLine line = new DYLine();
+    private final UtilsYamlSection utils = new UtilsYamlSection();
+    private final ArrayDeque<Event> readyEvents = new ArrayDeque<>();
+    /**
+     * Currently open sections, the last one is the innermost section.
+     */
+    private final List<Section> openSections = new ArrayList<>();
+    /**
+     * Comments of lines without a key/hyphen, that belong to the next section/value.
+     */
+    private final List<Event> topComments = new ArrayList<>();
+    /**
+     * The last value, which is not returned yet, because the next lines could still extend it.
+     */
+    private Event pendingValue;
+    private Event pendingSideComment;
+    private int lineNumber = 0;
+    private boolean isEndOfInput = false;
+    // Current event:
+    private DYEvent eventType;
+    private List<String> keys = Collections.emptyList();
+    private String value;
+    private String comment;
+    private int eventLineNumber;
+
+    /**
+     * Reads the provided yaml file.
+     */
+    public YamlEventReader(File file) throws IOException, YamlReaderException {
+        this(file, false);
+    }
+
+    /**
+     * Reads the provided yaml file.
+     *
+     * @param isMemoryMapped if true, the file gets read via a {@link MappedFileReader}.
+     */
+    public YamlEventReader(File file, boolean isMemoryMapped) throws IOException, YamlReaderException {
+        if (!file.exists()) throw new YamlReaderException("File '" + file + "' doesn't exist!");
+        this.reader = isMemoryMapped ? new MappedFileReader(file.toPath(), Yaml.charset)
+                : new InputStreamReader(Files.newInputStream(file.toPath()), Yaml.charset);
+        this.isCloseReader = true;
+        this.sourceName = file.getName();
+        this.scanner = new LineScanner(reader);
+    }
+
+    /**
+     * Reads the yaml content from the provided {@link InputStream}, using the {@link Yaml#charset}. <br>
+     * Note that the stream does not get closed by {@link #close()}.
+     */
+    public YamlEventReader(InputStream inputStream) {
+        this(new InputStreamReader(inputStream, Yaml.charset), "<InputStream>", false);
+    }
+
+    /**
+     * Reads the yaml content from the provided {@link Reader}. <br>
+     * Note that the reader does not get closed by {@link #close()}.
+     */
+    public YamlEventReader(Reader reader) {
+        this(reader, "<Reader>", false);
+    }
+
+    private YamlEventReader(Reader reader, String sourceName, boolean isCloseReader) {
+        this.reader = reader;
+        this.isCloseReader = isCloseReader;
+        this.sourceName = sourceName;
+        this.scanner = new LineScanner(reader);
+    }
+
+    /**
+     * Returns true if there are more events. Reads the next lines if needed.
+     */
+    public boolean hasNext() throws IOException, IllegalListException {
+        while (readyEvents.isEmpty() && !isEndOfInput)
+            readLine();
+        return !readyEvents.isEmpty();
+    }
+
+    /**
+     * Moves to the next event and returns its type. <br>
+     * Details about the event can be retrieved via the getters, like {@link #getKeys()}.
+     *
+     * @throws NoSuchElementException if there are no more events.
+     */
+    public DYEvent next() throws IOException, IllegalListException {
+        if (!hasNext()) throw new NoSuchElementException("There are no more events.");
+        Event event = readyEvents.poll();
+        this.eventType = event.type;
+        this.keys = event.keys;
+        this.value = event.value;
+        this.comment = event.comment;
+        this.eventLineNumber = event.lineNumber;
+        return eventType;
+    }
+
+    /**
+     * Returns the type of the current event, or null if {@link #next()} wasn't called yet.
+     */
+    public DYEvent getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the unmodifiable keys list of the section the current event belongs to.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the last key of {@link #getKeys()}, or null if there are no keys.
+     */
+    public String getKey() {
+        return keys.isEmpty() ? null : keys.get(keys.size() - 1);
+    }
+
+    /**
+     * Returns the value of the current {@link DYEvent#VALUE} event, otherwise null.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the comment of the current {@link DYEvent#COMMENT} event, otherwise null.
+     */
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * Returns the line number (starting at 1) of the current event. <br>
+     * For {@link DYEvent#END_SECTION} this is the line that ended the section.
+     */
+    public int getLineNumber() {
+        return eventLineNumber;
+    }
+
+    /**
+     * Returns the depth of the current events section. Sections without a parent have depth 1.
+     */
+    public int getDepth() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        isEndOfInput = true;
+        readyEvents.clear();
+        if (isCloseReader) reader.close();
+    }
+
+    private void readLine() throws IOException, IllegalListException {
+        if (!scanner.nextLine()) {
+            isEndOfInput = true;
+            flushPendingValue();
+            List<String> currentKeys = openSections.isEmpty() ? Collections.emptyList() : openSections.get(openSections.size() - 1).keys;
+            flushTopComments(currentKeys);
+            closeSections(0);
+            return;
+        }
+        lineNumber++;
+        line.reset(scanner.getBuffer(), scanner.getLineStart(), scanner.getLineEnd(), lineNumber);
+        if (line.isBlank()) return;
+        YamlReader.tokenize(line);
+
+        if (line.isKeyFound()) {
+            flushPendingValue();
+            int countSpaces = line.getCountSpaces();
+            closeSections(countSpaces);
+            List<String> sectionKeys;
+            Section parent = openSections.isEmpty() ? null : openSections.get(openSections.size() - 1);
+            if (parent != null && parent.countSpaces == countSpaces - 2) {
+                sectionKeys = new ArrayList<>(parent.keys.size() + 1);
+                sectionKeys.addAll(parent.keys);
+            } else {
+                closeSections(0); // No parent, thus this is a G0 section
+                sectionKeys = new ArrayList<>(1);
+            }
+            sectionKeys.add(line.getRawKey());
+            Section section = new Section(countSpaces, Collections.unmodifiableList(sectionKeys));
+            openSections.add(section);
+            readyEvents.add(new Event(DYEvent.START_SECTION, section.keys, null, null, lineNumber));
+            flushTopComments(section.keys);
+            pendingValue = new Event(DYEvent.VALUE, section.keys, line.getRawValue(), null, lineNumber);
+            if (line.isCommentFound())
+                pendingSideComment = new Event(DYEvent.COMMENT, section.keys, null, line.getRawComment(), lineNumber);
+        } else if (line.isHyphenFound()) {
+            // Value of a list, that belongs to the last section
+            if (openSections.isEmpty())
+                throw new IllegalListException(sourceName, new DYLine(line.getFullLine(), lineNumber));
+            flushPendingValue();
+            List<String> sectionKeys = openSections.get(openSections.size() - 1).keys;
+            flushTopComments(sectionKeys);
+            pendingValue = new Event(DYEvent.VALUE, sectionKeys, line.getRawValue(), null, lineNumber);
+            if (line.isCommentFound())
+                pendingSideComment = new Event(DYEvent.COMMENT, sectionKeys, null, line.getRawComment(), lineNumber);
+        } else if (line.isCommentFound()) {
+            topComments.add(new Event(DYEvent.COMMENT, null, null, line.getRawComment(), lineNumber));
+        } else if (pendingValue != null) {
+            // Multiline value, which means that the content of this line must be appended to the last value
+            if (pendingValue.value == null)
+                pendingValue.value = line.getFullLine();
+            else
+                pendingValue.value = pendingValue.value + "\n" + line.getFullLine();
+        }
+    }
+
+    /**
+     * Closes all open sections that have the same or more spaces than provided.
+     */
+    private void closeSections(int countSpaces) {
+        for (int i = openSections.size() - 1; i >= 0; i--) {
+            Section section = openSections.get(i);
+            if (section.countSpaces < countSpaces) break;
+            openSections.remove(i);
+            readyEvents.add(new Event(DYEvent.END_SECTION, section.keys, null, null, lineNumber));
+        }
+    }
+
+    private void flushTopComments(List<String> sectionKeys) {
+        for (Event event : topComments) {
+            event.keys = sectionKeys;
+            if (isTrimCommentsEnabled && event.comment != null) event.comment = event.comment.trim();
+            readyEvents.add(event);
+        }
+        topComments.clear();
+    }
+
+    private void flushPendingValue() {
+        if (pendingValue != null) {
+            String s = pendingValue.value;
+            if (s != null && isTrimValuesEnabled) s = s.trim();
+            if (s != null && isRemoveQuotesFromValuesEnabled && s.length() > 1 && utils.isEncapsulatedInQuotes(s))
+                s = s.substring(1, s.length() - 1);
+            if (s != null) {
+                pendingValue.value = s;
+                readyEvents.add(pendingValue);
+            }
+            pendingValue = null;
+        }
+        if (pendingSideComment != null) {
+            if (isTrimCommentsEnabled && pendingSideComment.comment != null)
+                pendingSideComment.comment = pendingSideComment.comment.trim();
+            readyEvents.add(pendingSideComment);
+            pendingSideComment = null;
+        }
+    }
+
+    private static final class Section {
+        private final int countSpaces;
+        private final List<String> keys;
+
+        private Section(int countSpaces, List<String> keys) {
+            this.countSpaces = countSpaces;
+            this.keys = keys;
+        }
+    }
+
+    private static final class Event {
+        private final DYEvent type;
+        private final int lineNumber;
+        private List<String> keys;
+        private String value;
+        private String comment;
+
+        private Event(DYEvent type, List<String> keys, String value, String comment, int lineNumber) {
+            this.type = type;
+            this.keys = keys;
+            this.value = value;
+            this.comment = comment;
+            this.lineNumber = lineNumber;
+        }
+    }
+}
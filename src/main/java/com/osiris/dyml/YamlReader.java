@@ -11,12 +11,14 @@ package com.osiris.dyml;
 
 import com.osiris.dyml.exceptions.IllegalListException;
 import com.osiris.dyml.exceptions.YamlReaderException;
+import com.osiris.dyml.utils.FileVersion;
+import com.osiris.dyml.utils.MappedFileReader;
 import com.osiris.dyml.utils.UtilsTimeStopper;
 import com.osiris.dyml.utils.UtilsYamlSection;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -27,10 +29,10 @@ import java.util.List;
  */
 class YamlReader {
     /**
-     * A list that only contains already read lines, that contain a key. <br>
-     * Is used when working with regular modules <br>
+     * Contains at index n the last loaded section, whose line had n spaces. <br>
+     * Is used to find the parent of regular modules in O(1). <br>
      */
-    private final List<DYLine> keyLinesList = new ArrayList<>();
+    private final List<YamlSection> lastSectionsBySpaces = new ArrayList<>();
     private DYDebugLogger debug;
     private DYLine beforeLine;
     private int countEmptyBeforeLines = 0;
@@ -45,53 +47,67 @@ class YamlReader {
         UtilsTimeStopper timer = new UtilsTimeStopper();
         timer.start();
 
-        BufferedReader reader = null;
+        Reader reader = null;
+        FileVersion.ChecksumInputStream checksumIn = null;
+        MappedFileReader mappedReader = null;
         try {
             if (yaml.file != null) {
                 if (!yaml.file.exists()) throw new YamlReaderException("File '" + yaml.file + "' doesn't exist!");
-                reader = new BufferedReader(new InputStreamReader(Files.newInputStream(yaml.file.toPath()), Yaml.charset));
-                debug.log(this, "Started reading yaml from file '" + yaml.file + "'");
+                if (yaml.isMemoryMappedLoadingEnabled) {
+                    mappedReader = new MappedFileReader(yaml.file.toPath(), Yaml.charset);
+                    reader = mappedReader;
+                } else {
+                    checksumIn = new FileVersion.ChecksumInputStream(Files.newInputStream(yaml.file.toPath()));
+                    reader = new InputStreamReader(checksumIn, Yaml.charset);
+                }
+                debug.log(this, () -> "Started reading yaml from file '" + yaml.file + "'");
             }
             if (yaml.inputStream != null) {
-                reader = new BufferedReader(new InputStreamReader(yaml.inputStream, Yaml.charset));
-                debug.log(this, "Started reading yaml from InputStream '" + yaml.inputStream + "'");
+                reader = new InputStreamReader(yaml.inputStream, Yaml.charset);
+                debug.log(this, () -> "Started reading yaml from InputStream '" + yaml.inputStream + "'");
             }
             if (yaml.inString != null) {
-                reader = new BufferedReader(new StringReader(yaml.inString));
-                debug.log(this, "Started reading yaml from String '" + yaml.inString + "'");
+                reader = new StringReader(yaml.inString);
+                debug.log(this, () -> "Started reading yaml from String '" + yaml.inString + "'");
             }
             if (reader == null) {
                 debug.log(this, "File and InputStream are both null. Nothing to read/load yaml from!");
                 return;
             }
             yaml.getAllLoaded().clear();
+            yaml.invalidateUnifiedList();
 
             int lineNumber = 1; // Start at 1 because it makes more sense. This number is only used to display the line number in exceptions and has no effect on important stuff.
 
+            // Lines are read into a single reused buffer and tokenized from there, without creating Strings for each line.
+            // Only two line objects are needed, the current and the before line, which get swapped after each line.
+            LineScanner scanner = new LineScanner(reader);
+            DYLine currentLine = new DYLine();
+            DYLine nextLine = new DYLine();
+
             // Parse the first line manually, so that the beforeLine is NOT null, and we don't have to check it every time
-            String firstLine = reader.readLine();
-            if (firstLine == null)
-                firstLine = "";
-            DYLine firstDyLine = new DYLine(firstLine, lineNumber);
-            parseFirstLine(yaml, firstDyLine); // beforeModule gets set here at the end
-            if (firstDyLine.isKeyFound())
-                keyLinesList.add(firstDyLine);
-            beforeLine = firstDyLine;
+            if (scanner.nextLine())
+                currentLine.reset(scanner.getBuffer(), scanner.getLineStart(), scanner.getLineEnd(), lineNumber);
+            else
+                currentLine.reset(new char[0], 0, 0, lineNumber);
+            parseFirstLine(yaml, currentLine); // beforeModule gets set here at the end
+            beforeLine = currentLine;
+            currentLine = nextLine;
             lineNumber++;
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String finalLine = line; // Its important, that a new, unique Object is created for each line and number
-                int finalLineNumber = lineNumber; // Its important, that a new, unique Object is created for each line and number
-                DYLine dyLine = new DYLine(finalLine, finalLineNumber);
-                parseLine(yaml, dyLine); // beforeModule gets set here at the end
-                if (dyLine.isKeyFound())
-                    // the size of the loadedModules list, and this list, stay the same.
-                    keyLinesList.add(dyLine);
-                beforeLine = dyLine;
+            while (scanner.nextLine()) {
+                currentLine.reset(scanner.getBuffer(), scanner.getLineStart(), scanner.getLineEnd(), lineNumber);
+                parseLine(yaml, currentLine); // beforeModule gets set here at the end
+                DYLine oldBeforeLine = beforeLine;
+                beforeLine = currentLine;
+                currentLine = oldBeforeLine;
                 lineNumber++;
             }
 
+            // The keys of the loaded sections are final now, thus index them
+            yaml.loadedIndex.rebuild();
+            yaml.invalidateUnifiedList();
+
             UtilsYamlSection utils = new UtilsYamlSection();
             // Set isInsideQuotes for values
             for (YamlSection m :
@@ -99,6 +115,7 @@ class YamlReader {
                 for (SmartString value : m.getValues()) {
                     value.isInsideQuotes = utils.isEncapsulatedInQuotes(value.asString());
                 }
+                m.setDirty(false); // Same as in the file
             }
 
             // Do post processing if enabled
@@ -136,35 +153,42 @@ class YamlReader {
             if (!yaml.getAllLoaded().isEmpty())
                 for (YamlSection inEditM :
                         yaml.getAllInEdit()) {
-                    YamlSection loadedM = utils.getExisting(inEditM, yaml.getAllLoaded());
+                    YamlSection loadedM = yaml.loadedIndex.get(inEditM.getKeys());
+                    if (loadedM == null) continue; // Section doesn't exist in the file yet
                     inEditM.setSValues(loadedM.getValues());
                     inEditM.setParentSection(loadedM.getParentSection());
                     inEditM.setChildSections(loadedM.getChildSections());
+                    inEditM.setDirty(false);
                 }
 
             timer.stop();
 
-            debug.log(this, "Loaded modules details:");
-            for (YamlSection loadedModule :
-                    yaml.getAllLoaded()) {
+            if (debug.isEnabled(DYDebugLogger.Level.TRACE)) {
+                debug.log(DYDebugLogger.Level.TRACE, this, "Loaded modules details:");
+                for (YamlSection loadedModule :
+                        yaml.getAllLoaded()) {
 
-                debug.log(this, "");
-                debug.log(this, "---> " + loadedModule.toPrintString());
-                if (loadedModule.getParentSection() != null)
-                    debug.log(this, "PARENT -> " + loadedModule.getParentSection().toPrintString());
-                else
-                    debug.log(this, "PARENT -> NULL");
-
-                for (YamlSection childModule :
-                        loadedModule.getChildSections()) {
-                    if (childModule != null)
-                        debug.log(this, "CHILD -> " + childModule.toPrintString());
+                    debug.log(DYDebugLogger.Level.TRACE, this, "");
+                    debug.log(DYDebugLogger.Level.TRACE, this, "---> " + loadedModule.toPrintString());
+                    if (loadedModule.getParentSection() != null)
+                        debug.log(DYDebugLogger.Level.TRACE, this, "PARENT -> " + loadedModule.getParentSection().toPrintString());
                     else
-                        debug.log(this, "CHILD -> NULL");
+                        debug.log(DYDebugLogger.Level.TRACE, this, "PARENT -> NULL");
+
+                    for (YamlSection childModule :
+                            loadedModule.getChildSections()) {
+                        if (childModule != null)
+                            debug.log(DYDebugLogger.Level.TRACE, this, "CHILD -> " + childModule.toPrintString());
+                        else
+                            debug.log(DYDebugLogger.Level.TRACE, this, "CHILD -> NULL");
+                    }
                 }
             }
+            yaml.writtenFile = null; // Loaded values aren't marked as dirty, thus partial saves can't reuse the written bytes
+            if (yaml.file != null) // Calculated from the read bytes, thus it's the version of exactly the parsed content
+                yaml.fileVersion = checksumIn != null ? checksumIn.toVersion(yaml.file.toPath()) : mappedReader.toVersion();
             debug.log(this, "");
-            debug.log(this, "Finished reading, took " + timer.getFormattedMillis() + "ms or " + timer.getFormattedSeconds() + "s");
+            debug.log(this, () -> "Finished reading, took " + timer.getFormattedMillis() + "ms or " + timer.getFormattedSeconds() + "s");
         } catch (YamlReaderException | IOException | IllegalListException e) {
             if (yaml.file != null || yaml.inString != null) reader.close();
             throw e;
@@ -174,114 +198,105 @@ class YamlReader {
     }
 
     /**
-     * Checks the provided charCode and adds information
-     * like, if the line contains a hashtag, to the provided {@link DYLine} object.
+     * Goes through the chars of the provided {@link DYLine} once and adds information
+     * like, if the line contains a hashtag, its key, value and comment positions, to it. <br>
+     * Stops at the first comment. <br>
      *
-     * @param line        this object receives information about this charCode.
-     * @param charCode    the charCode to interpret.
-     * @param charCodePos the chars/charCodes index position in the full line.
+     * @param line this object receives information about its chars.
      */
-    public void checkChar(DYLine line, int charCode, int charCodePos) {
-        switch (charCode) {
-            case 32: //
-                // Empty space before a colon, indicates objects tree position. Increment until a char is found.
-                if (!line.isCharFound())
-                    line.setCountSpaces(line.getCountSpaces() + 1);
-                break;
-            case 35: { // #
-                // Hashtag indicates start of a comment but only if the char before didn't exist or it was a space
-                line.setCharFound(true);
-                int charCodeBefore = 0;
-                try {
-                    charCodeBefore = line.getFullLine().codePointAt(charCodePos - 1);
-                    // This may fail if we are at the last/first char.
-                } catch (Exception ignored) {
-                } // Don't use an if statement to avoid, bc this is more efficient.
-                if (charCodeBefore == 0 || charCodeBefore == 32) {
-                    // Since we support side comments keep this in mind:
-                    // key: value# # Side-Comment
-                    // First # belongs to the value and not the side comment
-                    line.setCommentFound(true);
-                    boolean anotherHashtagFound = false;
-                    for (int i = charCodePos + 1; i < line.getFullLine().length(); i++) {
-                        if (line.getFullLine().codePointAt(i) == 35) {
-                            anotherHashtagFound = true;
-                            line.setRawComment(line.getFullLine().substring(i + 1));
-                            // Since we got side comments, also remove this from the value
-                            if (line.getRawValue() != null)
-                                if (line.isKeyFound())
-                                    line.setRawValue(line.getFullLine().substring(line.getKeyFoundPos() + 1, i));
-                                else if (line.isHyphenFound())
-                                    line.setRawValue(line.getFullLine().substring(line.getHyphenFoundPos() + 1, i));
+    static void tokenize(DYLine line) {
+        char[] chars = line.getBuffer();
+        int offset = line.getStart();
+        int length = line.length();
+        boolean charFound = false;
+        int countSpaces = 0;
+        boolean keyFound = false;
+        int keyFoundPos = 0;
+        boolean hyphenFound = false;
+        int hyphenFoundPos = 0;
+        loop:
+        for (int i = 0; i < length; i++) {
+            switch (chars[offset + i]) {
+                case ' ':
+                    // Empty space before a colon, indicates objects tree position. Increment until a char is found.
+                    if (!charFound)
+                        countSpaces++;
+                    break;
+                case '#': { // Hashtag indicates start of a comment but only if the char before didn't exist or it was a space
+                    charFound = true;
+                    char before = i == 0 ? 0 : chars[offset + i - 1];
+                    if (before == 0 || before == ' ') {
+                        // Since we support side comments keep this in mind:
+                        // key: value# # Side-Comment
+                        // First # belongs to the value and not the side comment.
+                        // If there are more hashtags after this one, the comment starts after the last hashtag.
+                        int commentPos = i;
+                        for (int j = length - 1; j > i; j--) {
+                            if (chars[offset + j] == '#') {
+                                commentPos = j;
+                                break;
+                            }
                         }
-                    }
-                    if (!anotherHashtagFound) {
-                        line.setRawComment(line.getFullLine().substring(charCodePos + 1));
+                        line.setCommentFound(true);
+                        line.setRawCommentRange(commentPos + 1, length);
                         // Since we got side comments, also remove this from the value
-                        if (line.getRawValue() != null)
-                            if (line.isKeyFound())
-                                line.setRawValue(line.getFullLine().substring(line.getKeyFoundPos() + 1, charCodePos));
-                            else if (line.isHyphenFound())
-                                line.setRawValue(line.getFullLine().substring(line.getHyphenFoundPos() + 1, charCodePos));
+                        if (line.hasRawValue())
+                            if (keyFound)
+                                line.setRawValueRange(keyFoundPos + 1, commentPos, false);
+                            else if (hyphenFound)
+                                line.setRawValueRange(hyphenFoundPos + 1, commentPos, false);
+                        break loop;
                     }
+                    break;
                 }
-                break;
-            }
-            case 58: // :
-                // Colon enables us to define a key and a value.
-                // Note that the next char must be a space for this to be a key.
-                line.setCharFound(true);
-                if (line.isKeyFound()) break; // Skip if the key was already found.
-                if (line.isHyphenFound()) break; // Skip if inside a list.
-                int charCodeNext = 0;
-                try {
-                    charCodeNext = line.getFullLine().codePointAt(charCodePos + 1); // This may fail if we are at the last/first char.
-                } catch (Exception ignored) {
-                } // Don't use an if statement to avoid, bc this is more efficient.
-                if (charCodeNext == 32 || charCodeNext == 0) {
-                    line.setKeyFound(true);
-                    line.setKeyFoundPos(charCodePos);
-                    line.setRawKey(line.getFullLine().substring(line.getCountSpaces(), charCodePos));
-                    line.setRawValue(emptyToNull(line.getFullLine().substring(charCodePos + 1)));
+                case ':': {
+                    // Colon enables us to define a key and a value.
+                    // Note that the next char must be a space for this to be a key.
+                    charFound = true;
+                    if (keyFound) break; // Skip if the key was already found.
+                    if (hyphenFound) break; // Skip if inside a list.
+                    char next = i + 1 == length ? 0 : chars[offset + i + 1];
+                    if (next == ' ' || next == 0) {
+                        keyFound = true;
+                        keyFoundPos = i;
+                        line.setKeyFound(true);
+                        line.setKeyFoundPos(i);
+                        line.setRawKeyRange(countSpaces, i);
+                        line.setRawValueRange(i + 1, length, true);
+                    }
+                    break;
                 }
-                break;
-            case 45: { // -
-                // Hyphen indicates a list object but only if the char before didn't exist or it was a space
-                line.setCharFound(true);
-                if (!line.isHyphenFound()) {
-                    int charCodeBefore = 0;
-                    try {
-                        charCodeBefore = line.getFullLine().codePointAt(charCodePos - 1); // This may fail if we are at the last/first char.
-                    } catch (Exception ignored) {
-                    } // Don't use an if statement to avoid, bc this is more efficient.
-                    if ((charCodeBefore == 32 || charCodeBefore == 0)
-                            && !line.isKeyFound()) { // To avoid hyphens inside values
-                        line.setHyphenFound(true);
-                        line.setHyphenFoundPos(charCodePos);
-                        line.setRawValue(emptyToNull(line
-                                .getFullLine()
-                                .substring(charCodePos + 1)));
+                case '-': {
+                    // Hyphen indicates a list object but only if the char before didn't exist or it was a space
+                    charFound = true;
+                    if (!hyphenFound) {
+                        char before = i == 0 ? 0 : chars[offset + i - 1];
+                        if ((before == ' ' || before == 0)
+                                && !keyFound) { // To avoid hyphens inside values
+                            hyphenFound = true;
+                            hyphenFoundPos = i;
+                            line.setHyphenFound(true);
+                            line.setHyphenFoundPos(i);
+                            line.setRawValueRange(i + 1, length, true);
+                        }
                     }
+                    break;
                 }
-                break;
+                default:
+                    // Any other char than above will count as word
+                    charFound = true;
             }
-            default:
-                // Any other charCode than above will count as word
-                line.setCharFound(true);
         }
+        line.setCountSpaces(countSpaces);
+        line.setCharFound(charFound);
     }
 
     public void parseFirstLine(Yaml yaml, DYLine currentLine) throws IllegalListException {
-        if (!currentLine.getFullLine().isEmpty()) {
-            debug.log(this, "Reading line '" + currentLine.getLineNumber() + "' with content: '" + currentLine.getFullLine() + "'");
-            // Go thorough each character of the string, until a special one is found
-            int charCode;
-            for (int i = 0; i < currentLine.getFullLine().length(); i++) {
-                charCode = currentLine.getFullLine().codePointAt(i);
-                checkChar(currentLine, charCode, i);
-                if (currentLine.isCommentFound()) // Not at currentLine.isColonFound() or currentLine.isHyphenFound() because of side-comments
-                    break;
-            }
+        if (currentLine.length() != 0) {
+            if (debug.isEnabled(DYDebugLogger.Level.TRACE))
+                debug.log(DYDebugLogger.Level.TRACE, this, "Reading line '" + currentLine.getLineNumber() + "' with content: '" + currentLine.getFullLine() + "'");
+            // Go thorough each character of the line, until a comment is found
+            tokenize(currentLine);
 
             // In comparison to parseLine we got a lot less stuff to check.
             YamlSection module = new YamlSection(yaml);
@@ -291,6 +306,7 @@ class YamlReader {
                             .setSValues(new SmartString(currentLine.getRawValue()));
                     module.addSideComments(currentLine.getRawComment());
                     yaml.getAllLoaded().add(module);
+                    setLastSection(currentLine.getCountSpaces(), module);
                 } else if (currentLine.isHyphenFound()) { // Its a side comment, so we add of a value in a list
                     throw new IllegalListException((yaml.getInputStream() == null ? yaml.getFile().getName() : "<InputStream>"), currentLine);
                 } else { // Regular comment, so add it to the module
@@ -301,6 +317,7 @@ class YamlReader {
                 module.setKeys(currentLine.getRawKey())
                         .setValues(currentLine.getRawValue());
                 yaml.getAllLoaded().add(module);
+                setLastSection(currentLine.getCountSpaces(), module);
             } else if (currentLine.isHyphenFound()) {
                 throw new IllegalListException((yaml.getInputStream() == null ? yaml.getFile().getName() : "<InputStream>"), currentLine);
             }
@@ -325,24 +342,18 @@ class YamlReader {
      */
     public void parseLine(Yaml yaml, DYLine currentLine) {
 
-        if (currentLine.getFullLine().trim().isEmpty()) {
+        if (currentLine.isBlank()) {
             countEmptyBeforeLines++;
             return;
         }
-        debug.log(this, "Reading line '" + currentLine.getLineNumber() + "' with content: '" + currentLine.getFullLine() + "'");
+        if (debug.isEnabled(DYDebugLogger.Level.TRACE))
+            debug.log(DYDebugLogger.Level.TRACE, this, "Reading line '" + currentLine.getLineNumber() + "' with content: '" + currentLine.getFullLine() + "'");
 
         // Add the module to the yaml loaded modules list, but only under certain circumstances (logic below)
         List<YamlSection> allLoaded = yaml.getAllLoaded();
         YamlSection module = new YamlSection(yaml);
-        // Go thorough each character of the string, until a special one is found
-        int charCode;
-        String fullLine = currentLine.getFullLine();
-        for (int i = 0; i < fullLine.length(); i++) {
-            charCode = fullLine.codePointAt(i);
-            checkChar(currentLine, charCode, i);
-            if (currentLine.isCommentFound()) // Not at currentLine.isColonFound() or currentLine.isHyphenFound() because of side-comments
-                break;
-        }
+        // Go thorough each character of the line, until a comment is found
+        tokenize(currentLine);
 
         // The code below does all the magic, of reading the keys, values and comments, and putting them together into modules.
         // "<---" in the examples, shows that this could be the current line
@@ -360,18 +371,14 @@ class YamlReader {
                     countEmptyBeforeLines = 0;
                 }
 
-                // Go reversely through the lines list, search for the parent and copy its keys.
+                // Search for the parent (the last key line with 2 spaces less) and copy its keys.
                 // It can be that this is a G0 module. In that case we don't need to search for a parent.
                 if (currentLine.getCountSpaces() > 0) {
-                    for (int i = keyLinesList.size() - 1; i >= 0; i--) {
-                        DYLine oldLine = keyLinesList.get(i);
-                        if ((currentLine.getCountSpaces() - oldLine.getCountSpaces()) == 2) {
-                            YamlSection oldModule = allLoaded.get(i);
-                            module.getKeys().addAll(oldModule.getKeys());
-                            module.setParentSection(oldModule);
-                            oldModule.addChildSections(module);
-                            break;
-                        }
+                    YamlSection oldModule = getLastSection(currentLine.getCountSpaces() - 2);
+                    if (oldModule != null) {
+                        module.getKeys().addAll(oldModule.getKeys());
+                        module.setParentSection(oldModule);
+                        oldModule.addChildSections(module);
                     }
                 }
 
@@ -379,6 +386,7 @@ class YamlReader {
                 module.setSValues(new SmartString(currentLine.getRawValue()));
                 module.addSideComments(currentLine.getRawComment());
                 allLoaded.add(module);
+                setLastSection(currentLine.getCountSpaces(), module);
             } else if (currentLine.isHyphenFound()) { // Comment + Hyphen found without a key
                 // Its a side comment from a value in a list. Also add support for value top comments inside a list. Example:
                 // list:
@@ -409,7 +417,6 @@ class YamlReader {
                 if (!beforeLine.isHyphenFound() && oldModule.getValues().size() == 1 && oldModule.getValues().get(0).asString() == null)
                     oldModule.getValues().remove(0);
 
-                // Since the allLoaded lists and keyLinesList sizes are the same we can do the below:
                 oldModule.addValues(new SmartString(currentLine.getRawValue()));
                 oldModule.addSideComments(currentLine.getRawComment());
             } else { // No side-comment, but regular comment
@@ -437,24 +444,21 @@ class YamlReader {
                 countEmptyBeforeLines = 0;
             }
 
-            // Go reversely through the lines list, search for the parent and copy its keys.
+            // Search for the parent (the last key line with 2 spaces less) and copy its keys.
             // It can be that this is a G0 module. In that case we don't need to search for a parent.
             if (currentLine.getCountSpaces() > 0) {
-                for (int i = keyLinesList.size() - 1; i >= 0; i--) {
-                    DYLine oldLine = keyLinesList.get(i);
-                    if ((currentLine.getCountSpaces() - oldLine.getCountSpaces()) == 2) {
-                        YamlSection oldModule = allLoaded.get(i);
-                        module.getKeys().addAll(oldModule.getKeys());
-                        module.setParentSection(oldModule);
-                        oldModule.addChildSections(module);
-                        break;
-                    }
+                YamlSection oldModule = getLastSection(currentLine.getCountSpaces() - 2);
+                if (oldModule != null) {
+                    module.getKeys().addAll(oldModule.getKeys());
+                    module.setParentSection(oldModule);
+                    oldModule.addChildSections(module);
                 }
             }
 
             module.addKeys(currentLine.getRawKey());
             module.setValues(currentLine.getRawValue());
             allLoaded.add(module);
+            setLastSection(currentLine.getCountSpaces(), module);
         } else if (currentLine.isHyphenFound()) { // CURRENT LINE DOES NOT CONTAIN A COMMENT OR A KEY! Multiple examples:
             // m1:
             //   - value1
@@ -498,13 +502,20 @@ class YamlReader {
     }
 
     /**
-     * If the provided String is empty, return null.
-     * This is useful, because {@link String#substring(int)} returns an empty string instead of null,
-     * even though an empty string in YAML means that the value is null.
+     * Remembers the provided section as the last loaded section with the provided count of spaces.
+     */
+    private void setLastSection(int countSpaces, YamlSection section) {
+        while (lastSectionsBySpaces.size() <= countSpaces)
+            lastSectionsBySpaces.add(null);
+        lastSectionsBySpaces.set(countSpaces, section);
+    }
+
+    /**
+     * Returns the last loaded section with the provided count of spaces, or null.
      */
-    private String emptyToNull(String s) {
-        if (s.trim().isEmpty()) return null;
-        return s;
+    private YamlSection getLastSection(int countSpaces) {
+        if (countSpaces < 0 || countSpaces >= lastSectionsBySpaces.size()) return null;
+        return lastSectionsBySpaces.get(countSpaces);
     }
 
 
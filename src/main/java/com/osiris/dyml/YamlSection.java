@@ -9,15 +9,15 @@
 package com.osiris.dyml;
 
 
+import com.osiris.dyml.exceptions.DuplicateKeyException;
 import com.osiris.dyml.exceptions.IllegalKeyException;
 import com.osiris.dyml.exceptions.NotLoadedException;
+import com.osiris.dyml.mapper.YamlMapper;
+import com.osiris.dyml.mapper.YamlMappers;
 import com.osiris.dyml.utils.UtilsYamlSection;
 
 import java.lang.reflect.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * The in-memory representation of a yaml section.
@@ -35,9 +35,23 @@ public class YamlSection {
     private List<String> sideComments;
     private List<String> defaultSideComments;
     private int countTopLineBreaks;
+    /**
+     * True if the keys were changed since the last save. See {@link #isKeysDirty()}.
+     */
+    private boolean keysDirty;
+    /**
+     * True if the keys, values or comments were changed since the last save. See {@link #isDirty()}.
+     */
+    private boolean dirty;
 
     private YamlSection parentSection = null;
-    private List<YamlSection> childSections = new ArrayList<>();
+    private ChildList childSections = new ChildList();
+    /**
+     * Index of the {@link #childSections} by their last key, see {@link #getChild(String)}.
+     * Built on first use, updated by {@link #addChildSections(YamlSection...)} and
+     * rebuilt if the list was replaced or modified directly, or if the keys of a child changed via {@link #setKeys(List)}.
+     */
+    private volatile ChildIndex childIndex;
 
     /**
      * See {@link #YamlSection(Yaml, List, List, List, List)} for details.
@@ -121,7 +135,9 @@ public class YamlSection {
      * Clears the {@link #keys} list.
      */
     public YamlSection removeAllKeys() {
+        List<String> oldKeys = new ArrayList<>(keys);
         keys.clear();
+        markKeysDirty(oldKeys);
         return this;
     }
 
@@ -130,6 +146,7 @@ public class YamlSection {
      */
     public YamlSection removeAllValues() {
         values.clear();
+        dirty = true;
         return this;
     }
 
@@ -138,6 +155,7 @@ public class YamlSection {
      */
     public YamlSection removeAllDefValues() {
         defaultValues.clear();
+        dirty = true;
         return this;
     }
 
@@ -146,6 +164,7 @@ public class YamlSection {
      */
     public YamlSection removeAllComments() {
         comments.clear();
+        dirty = true;
         return this;
     }
 
@@ -158,11 +177,13 @@ public class YamlSection {
      * Duplicate keys and null keys are not allowed.
      */
     public YamlSection addKeys(String... keys) {
+        List<String> oldKeys = new ArrayList<>(this.keys);
         for (String key :
                 keys) {
             Objects.requireNonNull(key);
             this.keys.add(key);
         }
+        markKeysDirty(oldKeys);
         return this;
     }
 
@@ -204,18 +225,23 @@ public class YamlSection {
             for (SmartString value : v) Objects.requireNonNull(value);
             this.values.addAll(v);
         } else this.values.add(new SmartString((String) null));
+        dirty = true;
         return this;
     }
 
     public YamlSection addComments(String... c) {
-        if (c != null)
+        if (c != null) {
             this.comments.addAll(Arrays.asList(c));
+            dirty = true;
+        }
         return this;
     }
 
     public YamlSection addSideComments(String... c) {
-        if (c != null)
+        if (c != null) {
             this.sideComments.addAll(Arrays.asList(c));
+            dirty = true;
+        }
         return this;
     }
 
@@ -263,18 +289,23 @@ public class YamlSection {
             defaultValues.addAll(v);
         } else
             defaultValues.add(new SmartString((String) null));
+        dirty = true;
         return this;
     }
 
     public YamlSection addDefComments(String... c) {
-        if (c != null)
+        if (c != null) {
             this.defaultComments.addAll(Arrays.asList(c));
+            dirty = true;
+        }
         return this;
     }
 
     public YamlSection addDefSideComments(String... c) {
-        if (c != null)
+        if (c != null) {
             this.defaultSideComments.addAll(Arrays.asList(c));
+            dirty = true;
+        }
         return this;
     }
 
@@ -339,8 +370,10 @@ public class YamlSection {
      */
     public YamlSection setKeys(List<String> keys) {
         if (keys != null) {
+            List<String> oldKeys = new ArrayList<>(this.keys);
             this.keys.clear();
             this.keys.addAll(keys);
+            markKeysDirty(oldKeys);
         }
         return this;
     }
@@ -358,15 +391,10 @@ public class YamlSection {
      * its default value, if the value is null/empty and {@link Yaml#isReturnDefaultWhenValueIsNullEnabled()} is set to true.
      */
     public SmartString getValueAt(int i) {
-        SmartString v = new SmartString((String) null);
-        try {
-            v = values.get(i);
-        } catch (Exception ignored) {
-        }
-
-        if (v.asString() == null && yaml.isReturnDefaultWhenValueIsNullEnabled)
+        SmartString v = i >= 0 && i < values.size() ? values.get(i) : null;
+        if ((v == null || v.asString() == null) && yaml.isReturnDefaultWhenValueIsNullEnabled)
             return getDefValueAt(i);
-        return v;
+        return v != null ? v : new SmartString((String) null);
     }
 
     /**
@@ -430,18 +458,21 @@ public class YamlSection {
      * Returns the {@link SmartString} at index i in the default values list.
      */
     public SmartString getDefValueAt(int i) {
-        SmartString v = new SmartString((String) null);
-        try {
-            v = defaultValues.get(i);
-        } catch (Exception ignored) {
-        }
-        return v;
+        if (i >= 0 && i < defaultValues.size()) return defaultValues.get(i);
+        return new SmartString((String) null);
     }
 
     public List<SmartString> getDefValues() {
         return defaultValues;
     }
 
+    /**
+     * Returns the original values list, without falling back to the default values like {@link #getValues()}.
+     */
+    List<SmartString> getRawValues() {
+        return values;
+    }
+
     /**
      * @see #setDefSValues(List)
      */
@@ -509,6 +540,7 @@ public class YamlSection {
         if (c != null) {
             this.comments.clear();
             this.comments.addAll(c);
+            dirty = true;
         }
         return this;
     }
@@ -544,6 +576,7 @@ public class YamlSection {
         if (c != null) {
             this.defaultComments.clear();
             this.defaultComments.addAll(c);
+            dirty = true;
         }
         return this;
     }
@@ -579,6 +612,7 @@ public class YamlSection {
         if (c != null) {
             this.sideComments.clear();
             this.sideComments.addAll(c);
+            dirty = true;
         }
         return this;
     }
@@ -614,6 +648,7 @@ public class YamlSection {
         if (c != null) {
             this.defaultSideComments.clear();
             this.defaultSideComments.addAll(c);
+            dirty = true;
         }
         return this;
     }
@@ -637,6 +672,7 @@ public class YamlSection {
      * and adds them to this {@link YamlSection}, as children. <br>
      * Note that if the provided object is enum, this sections value gets set
      * instead of its children. <br>
+     * If there is a {@link YamlMapper} for the objects' class (see {@link YamlMappers}), it is used instead of reflection. <br>
      * The counterpart to this is the {@link #as(Class, boolean)} method. <br>
      * Supports: <br>
      * - Public and private constructors. <br>
@@ -644,6 +680,10 @@ public class YamlSection {
      * - Public and private fields (set includePrivateFields to true). <br>
      * - Fields that are primitives. <br>
      * - Fields that are objects. <br>
+     * - Fields that are arrays, {@link List}s, {@link Set}s and other {@link Collection}s. If their elements are
+     * primitives, text or enums, they are stored as the values of a single section (like "- a" items),
+     * otherwise each element gets its own child section. <br>
+     * - Fields that are {@link Map}s, whose entries are stored as child sections with the map keys as keys. <br>
      * Limited support: <br>
      * - Fields that are enum (enum must have no constructors/fields). <br>
      * Not supported: <br>
@@ -653,32 +693,7 @@ public class YamlSection {
      *            So it should not be of type int.class or Integer.class for example.
      */
     public YamlSection putJavaChildSection(YamlSection section, Object obj, boolean includePrivateFields) throws NotLoadedException, IllegalKeyException, IllegalAccessException {
-        Class<?> aClass = obj.getClass();
-        if (aClass.isEnum()) {
-            // CLASS IS ENUM
-            section.setValues(((Enum) obj).name());
-        } else {
-            // CLASS IS NOT ENUM
-            for (Field field : aClass.getDeclaredFields()) {
-                if (!Modifier.isPublic(field.getModifiers())) {
-                    if (includePrivateFields) field.setAccessible(true);
-                    else continue;
-                }
-                Object rawValue = field.get(obj);
-                if (rawValue != null) {
-                    List<String> keys = new ArrayList<>(section.keys);
-                    keys.add(field.getName());
-                    YamlSection childSection = yaml.put(keys);
-                    if (isPrimitive(rawValue.getClass()) || isText(rawValue.getClass())) {
-                        String value = "" + rawValue;
-                        childSection.setValues(value);
-                    } else {
-                        putJavaChildSection(childSection, rawValue, includePrivateFields);
-                    }
-                }
-                // else the value is null and nothing is added to yaml (not even the key)
-            }
-        }
+        putJavaObject(section, obj, includePrivateFields, false);
         return this;
     }
 
@@ -701,33 +716,136 @@ public class YamlSection {
      * the values it sets the default values.
      */
     public YamlSection putDefJavaChildSection(YamlSection section, Object obj, boolean includePrivateFields) throws NotLoadedException, IllegalKeyException, IllegalAccessException {
+        putJavaObject(section, obj, includePrivateFields, true);
+        return this;
+    }
+
+    /**
+     * Writes the provided object into the provided section. <br>
+     * The fields are walked in one pass and the child sections that don't exist yet are created directly
+     * (instead of via {@link Yaml#put(List)} for each field), and then added via a single {@link Yaml#addAll(List)}.
+     */
+    private void putJavaObject(YamlSection section, Object obj, boolean includePrivateFields, boolean isDefault) throws NotLoadedException, IllegalKeyException, IllegalAccessException {
+        List<YamlSection> newSections = new ArrayList<>();
+        putJavaObject(section, obj, includePrivateFields, isDefault, newSections);
+        addNewSections(newSections);
+    }
+
+    private void putJavaObject(YamlSection section, Object obj, boolean includePrivateFields, boolean isDefault,
+                               List<YamlSection> newSections) throws NotLoadedException, IllegalKeyException, IllegalAccessException {
         Class<?> aClass = obj.getClass();
-        if (aClass.isEnum()) {
+        YamlMapper<?> mapper = includePrivateFields ? null : YamlMappers.get(aClass); // Mappers only map public fields
+        if (obj instanceof Enum) {
             // CLASS IS ENUM
-            this.setDefValues(((Enum) obj).name());
+            if (isDefault) section.setDefValues(((Enum) obj).name());
+            else section.setValues(((Enum) obj).name());
+        } else if (mapper != null) {
+            // CLASS HAS MAPPER
+            // The mapper puts its children itself, thus the section must exist in yaml before
+            addNewSections(newSections);
+            writeViaMapper(mapper, section, obj, isDefault);
+        } else if (aClass.isArray() || obj instanceof Collection) {
+            // CLASS IS ARRAY OR COLLECTION
+            List<SmartString> values = ClassMapping.toValues(obj);
+            if (values != null) {
+                removeJavaChildren(section, Collections.emptySet());
+                if (isDefault) section.setDefSValues(values);
+                else section.setSValues(values);
+            } else {
+                // Contains objects, thus each element gets its own section, with its index as key.
+                // Null elements are skipped, their index is kept by the following elements.
+                Set<String> writtenKeys = new HashSet<>();
+                int i = 0;
+                for (Object element : aClass.isArray() ? Arrays.asList((Object[]) obj) : (Collection<?>) obj) {
+                    if (element != null) {
+                        String key = String.valueOf(i);
+                        writtenKeys.add(key);
+                        putJavaValue(putJavaChild(section, key, newSections), element, includePrivateFields, isDefault, newSections);
+                    }
+                    i++;
+                }
+                removeJavaChildren(section, writtenKeys);
+                if (isDefault) section.removeAllDefValues();
+                else section.removeAllValues();
+            }
+        } else if (obj instanceof Map) {
+            // CLASS IS MAP
+            Set<String> writtenKeys = new HashSet<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                if (entry.getValue() != null) {
+                    String key = ClassMapping.toSmartString(entry.getKey()).asString();
+                    writtenKeys.add(key);
+                    putJavaValue(putJavaChild(section, key, newSections), entry.getValue(), includePrivateFields, isDefault, newSections);
+                }
+            }
+            removeJavaChildren(section, writtenKeys);
+            if (isDefault) section.removeAllDefValues();
+            else section.removeAllValues();
         } else {
             // CLASS IS NOT ENUM
-            for (Field field : aClass.getDeclaredFields()) {
-                if (!Modifier.isPublic(field.getModifiers())) {
-                    if (includePrivateFields) field.setAccessible(true);
-                    else continue;
-                }
+            for (ClassMapping.FieldMapping field : ClassMapping.of(aClass).getFields(includePrivateFields)) {
                 Object rawValue = field.get(obj);
-                if (rawValue != null) {
-                    List<String> keys = new ArrayList<>(section.keys);
-                    keys.add(field.getName());
-                    YamlSection childSection = yaml.put(keys);
-                    if (isPrimitive(rawValue.getClass()) || isText(rawValue.getClass())) {
-                        String value = "" + rawValue;
-                        childSection.setDefValues(value);
-                    } else {
-                        putDefJavaChildSection(childSection, rawValue, includePrivateFields);
-                    }
-                }
+                if (rawValue != null)
+                    putJavaValue(putJavaChild(section, field.name, newSections), rawValue, includePrivateFields, isDefault, newSections);
                 // else the value is null and nothing is added to yaml (not even the key)
             }
         }
-        return this;
+    }
+
+    private static <T> void writeViaMapper(YamlMapper<T> mapper, YamlSection section, Object obj, boolean isDefault) throws NotLoadedException, IllegalKeyException {
+        T typedObj = mapper.getType().cast(obj); // Mappers are registered for exactly their type
+        if (isDefault) mapper.writeDefaults(section, typedObj);
+        else mapper.write(section, typedObj);
+    }
+
+    private void putJavaValue(YamlSection section, Object value, boolean includePrivateFields, boolean isDefault,
+                              List<YamlSection> newSections) throws NotLoadedException, IllegalKeyException, IllegalAccessException {
+        if (ClassMapping.of(value.getClass()).isValue) {
+            if (isDefault) section.setDefValues("" + value);
+            else section.setValues("" + value);
+        } else {
+            putJavaObject(section, value, includePrivateFields, isDefault, newSections);
+        }
+    }
+
+    /**
+     * Removes the child sections of the provided collection/map section, that were not written (anymore),
+     * like elements that were removed from the collection since the last write.
+     * New sections have no children yet, thus nothing needs to be removed for them.
+     */
+    private void removeJavaChildren(YamlSection section, Set<String> writtenKeys) {
+        if (yaml.inEditIndex.get(section.keys) == section)
+            yaml.removeChildSectionsExcept(section, writtenKeys);
+    }
+
+    /**
+     * Returns the existing child section with the provided key, or creates a new one and adds it to the provided list. <br>
+     * The child gets linked to the section (see {@link #getChildSections()}), so that {@link #removeJavaChildren(YamlSection, Set)} finds it.
+     */
+    private YamlSection putJavaChild(YamlSection section, String key, List<YamlSection> newSections) {
+        List<String> keys = new ArrayList<>(section.keys.size() + 1);
+        keys.addAll(section.keys);
+        keys.add(key);
+        YamlSection childSection = yaml.get(keys);
+        if (childSection == null) {
+            childSection = new YamlSection(yaml, keys, null, null, null);
+            newSections.add(childSection);
+        }
+        if (section.getChild(key) != childSection) {
+            childSection.setParentSection(section);
+            section.addChildSections(childSection);
+        }
+        return childSection;
+    }
+
+    private void addNewSections(List<YamlSection> newSections) throws NotLoadedException, IllegalKeyException {
+        if (newSections.isEmpty()) return;
+        try {
+            yaml.addAll(newSections);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("Sections were added while writing the object!", e); // Only new keys were collected
+        }
+        newSections.clear();
     }
 
 
@@ -752,6 +870,7 @@ public class YamlSection {
      * Deserialises this YAML section
      * (its children) to a Java object of the provided type. <br>
      * Note that if the provided object is enum, this sections value is read instead of its children. <br>
+     * If there is a {@link YamlMapper} for the provided type (see {@link YamlMappers}), it is used instead of reflection. <br>
      * Its counterpart is the {@link #putJavaChildSection(Object, boolean)} method. <br>
      * Supports: <br>
      * - Public and private constructors. <br>
@@ -759,6 +878,10 @@ public class YamlSection {
      * - Public and private fields (set includePrivateFields to true). <br>
      * - Fields that are primitives. <br>
      * - Fields that are objects. <br>
+     * - Fields that are arrays, {@link List}s, {@link Set}s and other {@link Collection}s. If their elements are
+     * primitives, text or enums, they are stored as the values of a single section (like "- a" items),
+     * otherwise each element gets its own child section. <br>
+     * - Fields that are {@link Map}s, whose entries are stored as child sections with the map keys as keys. <br>
      * Limited support: <br>
      * - Fields that are enum (enum must have no constructors/fields). <br>
      * Not supported: <br>
@@ -770,106 +893,110 @@ public class YamlSection {
      */
     @SuppressWarnings("unchecked") // type is verified by the class parameter
     public <V> V as(YamlSection section, Class<V> type, boolean includePrivateFields) throws InstantiationException, IllegalAccessException, NotLoadedException, IllegalKeyException, InvocationTargetException {
+        if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+            return (V) asJavaContainer(section, type, type, includePrivateFields);
+        YamlMapper<V> mapper = includePrivateFields ? null : YamlMappers.get(type); // Mappers only map public fields
         if (type.isEnum()) {
             // CLASS IS ENUM
             if (section.asString() == null) return null;
             else return (V) Enum.valueOf(((Class<Enum>) type), section.asString());
+        } else if (mapper != null) {
+            // CLASS HAS MAPPER
+            return mapper.read(section);
         } else {
             // CLASS IS NOT ENUM
             // Create an instance/object of the provided type, which then later gets returned:
-            V instance;
-            if (type.getDeclaredConstructors().length == 0) {
-                instance = type.newInstance();
-            } else {
-                Constructor<?> constructor = getTopConstructor(type);
-                Parameter[] params = constructor.getParameters();
-                if (params.length > 0) {
-                    Object[] paramValues = new Object[params.length];
-                    for (int i = 0; i < params.length; i++) {
-                        paramValues[i] = 0;
-                        if (isPrimitive(params[i].getType()))
-                            paramValues[i] = 0;
-                        else
-                            paramValues[i] = null;
-                    }
-                    if (!Modifier.isPublic(constructor.getModifiers())) constructor.setAccessible(true);
-                    instance = (V) constructor.newInstance(paramValues);
-                } else {
-                    if (!Modifier.isPublic(constructor.getModifiers())) constructor.setAccessible(true);
-                    instance = (V) constructor.newInstance();
-                }
-            }
+            ClassMapping mapping = ClassMapping.of(type);
+            V instance = (V) mapping.newInstance();
 
             // Fill object with data from this sections' children:
-            for (Field field : type.getDeclaredFields()) {
-                if (!Modifier.isPublic(field.getModifiers())) {
-                    if (includePrivateFields) field.setAccessible(true);
-                    else continue;
-                }
-                YamlSection childSection = null;
-                for (YamlSection cs : section.getChildSections()) {
-                    if (cs.getLastKey().equals(field.getName())) {
-                        childSection = cs;
-                        break;
-                    }
-                }
-
+            for (ClassMapping.FieldMapping fieldMapping : mapping.getFields(includePrivateFields)) {
+                YamlSection childSection = section.getChild(fieldMapping.name);
                 if (childSection != null) {
-                    if (field.getType().equals(String.class) || field.getType().equals(Character.class))
-                        field.set(instance, childSection.asString());
-                    else if (field.getType().equals(boolean.class) || field.getType().equals(Boolean.class))
-                        field.set(instance, childSection.asBoolean());
-                    else if (field.getType().equals(byte.class) || field.getType().equals(Byte.class))
-                        field.set(instance, childSection.asByte());
-                    else if (field.getType().equals(short.class) || field.getType().equals(Short.class))
-                        field.set(instance, childSection.asShort());
-                    else if (field.getType().equals(int.class) || field.getType().equals(Integer.class))
-                        field.set(instance, childSection.asInt());
-                    else if (field.getType().equals(long.class) || field.getType().equals(Long.class))
-                        field.set(instance, childSection.asLong());
-                    else if (field.getType().equals(float.class) || field.getType().equals(Float.class))
-                        field.set(instance, childSection.asFloat());
-                    else if (field.getType().equals(double.class) || field.getType().equals(Double.class))
-                        field.set(instance, childSection.asDouble());
+                    if (fieldMapping.converter >= ClassMapping.FieldMapping.OBJECT)
+                        fieldMapping.set(instance, asJava(childSection, fieldMapping.field.getType(), fieldMapping.genericType, includePrivateFields));
                     else
-                        field.set(instance, as(childSection, field.getType(), includePrivateFields));
+                        fieldMapping.bind(instance, childSection);
                 }
             }
-            return (V) instance;
+            return instance;
         }
     }
 
     /**
-     * Returns the declared constructor with least parameters.
+     * Deserialises the provided section to the provided type, which may also be a single value.
+     *
+     * @param genericType the type including its type arguments, to know the element types of collections and maps.
      */
-    private Constructor getTopConstructor(Class<?> clazz) {
-        Constructor<?> result = null;
-        for (Constructor<?> c : clazz.getDeclaredConstructors()) {
-            if (result == null) result = c;
-            else if (c.getParameterCount() < result.getParameterCount()) result = c;
-        }
-        return result;
+    private Object asJava(YamlSection section, Class<?> type, Type genericType, boolean includePrivateFields) throws InstantiationException, IllegalAccessException, NotLoadedException, IllegalKeyException, InvocationTargetException {
+        if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+            return asJavaContainer(section, type, genericType, includePrivateFields);
+        if (ClassMapping.of(type).isValue) return ClassMapping.toValue(section.getValue(), type);
+        return as(section, type, includePrivateFields);
     }
 
     /**
-     * Is primitive check that includes big primitives.
+     * Reads the elements of a collection of objects from the child sections of the provided section.
+     * Their keys are the indexes of the elements, thus missing indexes (null elements) are null in the returned list.
+     * Children without a valid index (for example written by hand) are added in order.
      */
-    private boolean isPrimitive(Class<?> clazz) {
-        return clazz.isPrimitive() ||
-                clazz.equals(Boolean.class) ||
-                clazz.equals(Byte.class) ||
-                clazz.equals(Short.class) ||
-                clazz.equals(Integer.class) ||
-                clazz.equals(Long.class) ||
-                clazz.equals(Float.class) ||
-                clazz.equals(Double.class) ||
-                clazz.equals(Character.class);
-    }
-
-    private boolean isText(Class<?> clazz) {
-        return
-                clazz.equals(String.class) ||
-                        clazz.equals(CharSequence.class);
+    private List<Object> asJavaElements(YamlSection section, Class<?> elementClass, Type elementType, boolean includePrivateFields) throws InstantiationException, IllegalAccessException, NotLoadedException, IllegalKeyException, InvocationTargetException {
+        List<YamlSection> children = section.getChildSections();
+        List<Object> elements = new ArrayList<>(children.size());
+        for (YamlSection child : children) {
+            int index;
+            try {
+                index = Integer.parseInt(child.getLastKey());
+            } catch (NumberFormatException e) {
+                index = -1;
+            }
+            while (index > elements.size()) elements.add(null);
+            elements.add(asJava(child, elementClass, elementType, includePrivateFields));
+        }
+        return elements;
+    }
+
+    /**
+     * Deserialises the provided section to an array, collection or map. <br>
+     * Arrays and collections of single values are read from the sections' values,
+     * otherwise from its child sections (see {@link #asJavaElements(YamlSection, Class, Type, boolean)}).
+     * Maps are read from the child sections, with their keys as map keys.
+     */
+    private Object asJavaContainer(YamlSection section, Class<?> type, Type genericType, boolean includePrivateFields) throws InstantiationException, IllegalAccessException, NotLoadedException, IllegalKeyException, InvocationTargetException {
+        if (type.isArray()) {
+            Type componentType = ClassMapping.componentType(genericType);
+            Class<?> componentClass = ClassMapping.rawType(componentType);
+            if (ClassMapping.isSingleValue(componentClass))
+                return ClassMapping.toArray(section.getValues(), componentClass);
+            List<Object> elements = asJavaElements(section, componentClass, componentType, includePrivateFields);
+            return elements.toArray((Object[]) Array.newInstance(componentClass, elements.size()));
+        } else if (Collection.class.isAssignableFrom(type)) {
+            Collection<Object> collection = ClassMapping.newCollection(type);
+            Type elementType = ClassMapping.typeArgument(genericType, 0);
+            Class<?> elementClass = ClassMapping.rawType(elementType);
+            if (ClassMapping.isSingleValue(elementClass)) {
+                for (SmartString value : section.getValues()) {
+                    collection.add(ClassMapping.toValue(value, elementClass));
+                }
+            } else {
+                for (Object element : asJavaElements(section, elementClass, elementType, includePrivateFields)) {
+                    if (element != null || collection instanceof List) collection.add(element);
+                }
+            }
+            return collection;
+        } else {
+            Map<Object, Object> map = ClassMapping.newMap(type);
+            Class<?> keyClass = ClassMapping.rawType(ClassMapping.typeArgument(genericType, 0));
+            Type valueType = ClassMapping.typeArgument(genericType, 1);
+            Class<?> valueClass = ClassMapping.rawType(valueType);
+            boolean isSingleValue = ClassMapping.isSingleValue(valueClass);
+            for (YamlSection child : section.getChildSections()) {
+                Object key = ClassMapping.toValue(new SmartString(child.getLastKey()), keyClass);
+                map.put(key, isSingleValue ? ClassMapping.toValue(child.getValue(), valueClass)
+                        : asJava(child, valueClass, valueType, includePrivateFields));
+            }
+            return map;
+        }
     }
 
     /**
@@ -921,7 +1048,7 @@ public class YamlSection {
     }
 
     public boolean asBoolean(int i) {
-        return getValueAt(i).asBoolean();
+        return getValueAt(i).asBooleanValue();
     }
 
     /**
@@ -932,7 +1059,7 @@ public class YamlSection {
     }
 
     public byte asByte(int i) {
-        return getValueAt(i).asByte();
+        return getValueAt(i).asByteValue();
     }
 
     /**
@@ -943,7 +1070,7 @@ public class YamlSection {
     }
 
     public short asShort(int i) {
-        return getValueAt(i).asShort();
+        return getValueAt(i).asShortValue();
     }
 
     /**
@@ -954,7 +1081,7 @@ public class YamlSection {
     }
 
     public int asInt(int i) {
-        return getValueAt(i).asInt();
+        return getValueAt(i).asIntValue();
     }
 
     /**
@@ -965,7 +1092,7 @@ public class YamlSection {
     }
 
     public long asLong(int i) {
-        return getValueAt(i).asLong();
+        return getValueAt(i).asLongValue();
     }
 
     /**
@@ -976,7 +1103,7 @@ public class YamlSection {
     }
 
     public float asFloat(int i) {
-        return getValueAt(i).asFloat();
+        return getValueAt(i).asFloatValue();
     }
 
     /**
@@ -1029,19 +1156,126 @@ public class YamlSection {
      * <p style="color:red;">Do not modify this list directly, unless you know what you are doing!</p>
      * A list containing this modules child modules, aka the next generation. <br>
      * Note that this list does NOT contain generations beyond that. <br>
-     * More about generations here: {@link YamlReader#parseLine(Yaml, DYLine)}.
+     * More about generations here: {@link YamlReader#parseLine(Yaml, DYLine)}. <br>
+     * The provided list gets copied, unless it was returned by {@link #getChildSections()} of a {@link YamlSection},
+     * in which case both sections share the same list.
      */
     public YamlSection setChildSections(List<YamlSection> childSections) {
-        this.childSections = childSections;
+        this.childSections = childSections instanceof ChildList ? (ChildList) childSections : new ChildList(childSections);
+        this.childIndex = null;
         return this;
     }
 
     public YamlSection addChildSections(YamlSection... cModules) {
         Objects.requireNonNull(cModules);
+        ChildIndex index = childIndex;
+        if (index != null && !index.isValidFor(childSections)) index = childIndex = null;
         childSections.addAll(Arrays.asList(cModules));
+        if (index != null) {
+            for (YamlSection child : cModules) {
+                index.add(child);
+            }
+            index.synced();
+        }
         return this;
     }
 
+    /**
+     * Removes the provided child section from {@link #getChildSections()}.
+     */
+    void removeChildSection(YamlSection child) {
+        if (childSections.remove(child)) childIndex = null;
+    }
+
+    /**
+     * Returns the child section with the provided last key, or null if there is none. <br>
+     * If there are multiple, the first one in {@link #getChildSections()} is returned. <br>
+     * Uses an index that is built on the first call, thus repeated lookups don't scan the child sections. <br>
+     * The index notices modifications of {@link #getChildSections()} and key changes via {@link #setKeys(List)},
+     * but not keys that were modified directly in the list returned by {@link #getKeys()}.
+     */
+    public YamlSection getChild(String key) {
+        ChildIndex index = childIndex;
+        if (index == null || !index.isValidFor(childSections)) index = buildChildIndex();
+        YamlSection child = index.map.get(key);
+        if (child != null && !key.equals(child.getLastKey())) { // Keys changed without setKeys()
+            index = buildChildIndex();
+            child = index.map.get(key);
+        }
+        return child;
+    }
+
+    private ChildIndex buildChildIndex() {
+        ChildList list = childSections;
+        ChildIndex index = new ChildIndex(list);
+        for (YamlSection child : list) {
+            index.add(child);
+        }
+        index.synced();
+        childIndex = index;
+        return index;
+    }
+
+    /**
+     * The list of child sections. Additionally to the structural modifications counted by {@link ArrayList},
+     * counts replacements via {@link #set(int, YamlSection)}, so that the {@link ChildIndex} notices all modifications.
+     */
+    private static final class ChildList extends ArrayList<YamlSection> {
+        private int replacements;
+
+        ChildList() {
+        }
+
+        ChildList(Collection<? extends YamlSection> c) {
+            super(c);
+        }
+
+        @Override
+        public YamlSection set(int index, YamlSection element) {
+            replacements++;
+            return super.set(index, element);
+        }
+
+        /**
+         * Changes with every modification of this list.
+         */
+        long version() {
+            return ((long) modCount << 32) | (replacements & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Maps the last keys of child sections to them.
+     */
+    private static final class ChildIndex {
+        final ChildList list;
+        final Map<String, YamlSection> map = new HashMap<>();
+        long version;
+
+        ChildIndex(ChildList list) {
+            this.list = list;
+        }
+
+        /**
+         * Returns true if the provided list is the indexed one and wasn't modified since.
+         */
+        boolean isValidFor(ChildList list) {
+            return this.list == list && version == list.version();
+        }
+
+        void add(YamlSection child) {
+            String key = child.getLastKey();
+            if (key != null) map.putIfAbsent(key, child);
+        }
+
+        /**
+         * Must be called after adding all children of the list.
+         */
+        void synced() {
+            version = list.version();
+        }
+    }
+
 
     /**
      * The count of line breaks before this {@link YamlSection}. <br>
@@ -1078,6 +1312,45 @@ public class YamlSection {
      */
     public YamlSection setCountTopLineBreaks(int countTopLineBreaks) {
         this.countTopLineBreaks = countTopLineBreaks;
+        dirty = true;
+        return this;
+    }
+
+    /**
+     * Returns true if the keys, values or comments of this section were changed via its methods,
+     * since the last save (or since it was created). <br>
+     * Note that changes made directly to the returned lists, or to {@link SmartString}s via {@link SmartString#set(String)},
+     * are not tracked. <br>
+     * See {@link Yaml#isPartialSaveEnabled}.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Returns true if the keys of this section were changed via its methods, since the last save. <br>
+     * A changed key means that the structure of the yaml file changed. <br>
+     * See {@link Yaml#isPartialSaveEnabled}.
+     */
+    public boolean isKeysDirty() {
+        return keysDirty;
+    }
+
+    /**
+     * Sets the dirty state. Use true to mark this section as changed and false to mark it as saved. <br>
+     * See {@link #isDirty()}.
+     */
+    public YamlSection setDirty(boolean dirty) {
+        this.dirty = dirty;
+        if (!dirty) this.keysDirty = false;
         return this;
     }
+
+    private void markKeysDirty(List<String> oldKeys) {
+        this.dirty = true;
+        this.keysDirty = true;
+        if (yaml != null) yaml.keysChanged(this, oldKeys);
+        YamlSection parent = parentSection;
+        if (parent != null) parent.childIndex = null; // Last key may have changed
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash based index over a list of {@link YamlSection}s, that maps their keys to the section itself. <br>
+ * Used by {@link Yaml} to find sections in O(depth) instead of comparing the keys of every section in the list. <br>
+ * The index gets updated by {@link Yaml} on load/add/remove/replace and
+ * when the keys of a section are changed via its methods (see {@link #keysChanged(YamlSection, List)}). <br>
+ * If the backing list was modified directly (its size changed without the index knowing about it),
+ * the index gets rebuilt on the next lookup. <br>
+ * Note that the keys list of an indexed section should not be modified directly (use {@link YamlSection#setKeys(List)}),
+ * since the section can't be found by its new keys until the index gets rebuilt.
+ */
+public class YamlSectionIndex {
+    private final List<YamlSection> sections;
+    /**
+     * Maps keys to a single {@link YamlSection}, or to a {@link List} of {@link YamlSection}s if there are duplicates.
+     * The first section in that list is the one returned by {@link #get(List)}.
+     */
+    private final Map<List<String>, Object> keysAndSections = new HashMap<>();
+    /**
+     * The size of {@link #sections} the last time the index was in sync with it, or -1 if it must be rebuilt.
+     */
+    private int syncedSize = 0;
+
+    /**
+     * @param sections the list to index. Note that the index holds a reference to this list and
+     *                 does not copy it.
+     */
+    public YamlSectionIndex(List<YamlSection> sections) {
+        this.sections = sections;
+        rebuild();
+    }
+
+    /**
+     * Returns the section with exactly the provided keys, or null if there is none. <br>
+     * If the list contains multiple sections with the same keys, the first one is returned.
+     */
+    public YamlSection get(List<String> keys) {
+        if (syncedSize != sections.size()) rebuild();
+        YamlSection section = first(keysAndSections.get(keys));
+        if (section != null && !section.getKeys().equals(keys)) {
+            // The sections keys list was changed directly, after it was indexed
+            rebuild();
+            section = first(keysAndSections.get(keys));
+        }
+        return section;
+    }
+
+    /**
+     * Must be called after the section was added to the backing list.
+     */
+    public void added(YamlSection section) {
+        put(new ArrayList<>(section.getKeys()), section);
+        if (syncedSize != -1) syncedSize++;
+    }
+
+    /**
+     * Must be called after the section was removed from the backing list.
+     */
+    public void removed(YamlSection section) {
+        if (!remove(section.getKeys(), section))
+            syncedSize = -1; // Its keys list was changed directly, thus it can only be found by a rebuild
+        else if (syncedSize != -1) syncedSize--;
+    }
+
+    /**
+     * Must be called after the old section was replaced with the new section in the backing list.
+     */
+    public void replaced(YamlSection oldSection, YamlSection newSection) {
+        if (!remove(oldSection.getKeys(), oldSection)) syncedSize = -1;
+        put(new ArrayList<>(newSection.getKeys()), newSection);
+    }
+
+    /**
+     * Must be called after the keys of the provided section were changed. Does nothing
+     * if the section is not indexed under its old keys (for example because it's not in the backing list).
+     *
+     * @param oldKeys the keys of the section before they were changed.
+     */
+    public void keysChanged(YamlSection section, List<String> oldKeys) {
+        if (remove(oldKeys, section))
+            put(new ArrayList<>(section.getKeys()), section);
+    }
+
+    /**
+     * Clears the index and indexes all sections of the backing list again.
+     */
+    public void rebuild() {
+        keysAndSections.clear();
+        for (YamlSection section : sections) {
+            put(new ArrayList<>(section.getKeys()), section);
+        }
+        syncedSize = sections.size();
+    }
+
+    /**
+     * Returns the count of indexed, unique keys.
+     */
+    public int size() {
+        return keysAndSections.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static YamlSection first(Object indexed) {
+        if (indexed instanceof List) return ((List<YamlSection>) indexed).get(0);
+        return (YamlSection) indexed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(List<String> keys, YamlSection section) {
+        Object indexed = keysAndSections.putIfAbsent(keys, section);
+        if (indexed == null) return;
+        // Duplicate keys
+        if (indexed instanceof List) ((List<YamlSection>) indexed).add(section);
+        else {
+            List<YamlSection> duplicates = new ArrayList<>(2);
+            duplicates.add((YamlSection) indexed);
+            duplicates.add(section);
+            keysAndSections.put(keys, duplicates);
+        }
+    }
+
+    /**
+     * Removes the provided section from the provided keys. Returns false if it wasn't indexed under those keys.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean remove(List<String> keys, YamlSection section) {
+        Object indexed = keysAndSections.get(keys);
+        if (indexed == section) {
+            keysAndSections.remove(keys);
+            return true;
+        }
+        if (!(indexed instanceof List)) return false;
+        List<YamlSection> duplicates = (List<YamlSection>) indexed;
+        for (int i = 0; i < duplicates.size(); i++) {
+            if (duplicates.get(i) == section) {
+                duplicates.remove(i);
+                if (duplicates.size() == 1) keysAndSections.put(keys, duplicates.get(0));
+                return true;
+            }
+        }
+        return false;
+    }
+}
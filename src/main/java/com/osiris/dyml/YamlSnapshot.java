@@ -0,0 +1,200 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import java.util.*;
+
+/**
+ * Immutable, read-only copy of the sections of a {@link Yaml} at the time it was created. <br>
+ * Contains the same sections in the same order as {@link Yaml#getAll()}, but their keys, values and comments
+ * are copied into unmodifiable lists, thus later changes to the {@link Yaml} are not visible. <br>
+ * Since nothing can be modified, any amount of threads can query it at the same time without locking. <br>
+ * Sections are indexed by their keys, thus {@link #get(String...)} is a hash lookup. <br>
+ * See {@link Yaml#snapshot()} and {@link Yaml#publishSnapshot()} for details.
+ */
+public final class YamlSnapshot {
+    private final List<Section> sections;
+    private final Map<List<String>, Section> keysAndSections;
+    private final Map<List<String>, List<Section>> keysAndChildSections;
+
+    /**
+     * Must be called by the thread working with the {@link Yaml} the sections belong to,
+     * or while holding its lock.
+     */
+    YamlSnapshot(List<YamlSection> yamlSections) {
+        List<Section> sections = new ArrayList<>(yamlSections.size());
+        Map<List<String>, Section> keysAndSections = new HashMap<>();
+        Map<List<String>, List<Section>> keysAndChildSections = new HashMap<>();
+        for (YamlSection yamlSection : yamlSections) {
+            Section section = new Section(this, yamlSection);
+            sections.add(section);
+            keysAndSections.putIfAbsent(section.keys, section);
+        }
+        for (Section section : sections) {
+            if (section.keys.size() > 1)
+                keysAndChildSections.computeIfAbsent(section.keys.subList(0, section.keys.size() - 1), k -> new ArrayList<>())
+                        .add(section);
+        }
+        for (Map.Entry<List<String>, List<Section>> entry : keysAndChildSections.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.sections = Collections.unmodifiableList(sections);
+        this.keysAndSections = keysAndSections;
+        this.keysAndChildSections = keysAndChildSections;
+    }
+
+    private static List<String> copy(List<String> list) {
+        return Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    /**
+     * Returns the section with matching keys or null.
+     */
+    public Section get(String... keys) {
+        Objects.requireNonNull(keys);
+        return get(Arrays.asList(keys));
+    }
+
+    /**
+     * Returns the section with matching keys or null.
+     */
+    public Section get(List<String> keys) {
+        Objects.requireNonNull(keys);
+        return keysAndSections.get(keys);
+    }
+
+    /**
+     * Returns an unmodifiable list containing all sections.
+     */
+    public List<Section> getAll() {
+        return sections;
+    }
+
+    public int size() {
+        return sections.size();
+    }
+
+    /**
+     * Read-only copy of a {@link YamlSection}.
+     */
+    public static final class Section {
+        private final YamlSnapshot snapshot;
+        private final List<String> keys;
+        private final List<String> values;
+        private final List<String> comments;
+        private final List<String> sideComments;
+
+        private Section(YamlSnapshot snapshot, YamlSection section) {
+            this.snapshot = snapshot;
+            this.keys = copy(section.getKeys());
+            int countValues = section.getValues().size();
+            List<String> values = new ArrayList<>(countValues);
+            for (int i = 0; i < countValues; i++) {
+                values.add(section.getValueAt(i).asString()); // Includes the default value, if enabled
+            }
+            this.values = Collections.unmodifiableList(values);
+            this.comments = copy(section.getComments());
+            this.sideComments = copy(section.getSideComments());
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public String getFirstKey() {
+            return keys.get(0);
+        }
+
+        public String getLastKey() {
+            return keys.get(keys.size() - 1);
+        }
+
+        /**
+         * Returns the values as they were returned by {@link YamlSection#getValueAt(int)}
+         * at the time the snapshot was created. Note that values can be null.
+         */
+        public List<String> getValues() {
+            return values;
+        }
+
+        public List<String> getComments() {
+            return comments;
+        }
+
+        public List<String> getSideComments() {
+            return sideComments;
+        }
+
+        /**
+         * Returns the parent section, or null if this is a top level section.
+         */
+        public Section getParentSection() {
+            if (keys.size() < 2) return null;
+            return snapshot.get(keys.subList(0, keys.size() - 1));
+        }
+
+        /**
+         * Returns an unmodifiable list containing the child sections (only the next generation).
+         */
+        public List<Section> getChildSections() {
+            return snapshot.keysAndChildSections.getOrDefault(keys, Collections.emptyList());
+        }
+
+        /**
+         * Shortcut for retrieving the first value. Note that this can be null.
+         */
+        public String asString() {
+            return asString(0);
+        }
+
+        /**
+         * Returns the value at the provided index, or null if there is none.
+         */
+        public String asString(int i) {
+            return i < values.size() ? values.get(i) : null;
+        }
+
+        public boolean asBoolean() {
+            return asBoolean(0);
+        }
+
+        public boolean asBoolean(int i) {
+            return Boolean.parseBoolean(asString(i));
+        }
+
+        public int asInt() {
+            return asInt(0);
+        }
+
+        public int asInt(int i) {
+            return Integer.parseInt(asString(i));
+        }
+
+        public long asLong() {
+            return asLong(0);
+        }
+
+        public long asLong(int i) {
+            return Long.parseLong(asString(i));
+        }
+
+        public double asDouble() {
+            return asDouble(0);
+        }
+
+        public double asDouble(int i) {
+            return Double.parseDouble(asString(i));
+        }
+
+        @Override
+        public String toString() {
+            return keys + "=" + values;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import com.osiris.dyml.exceptions.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Buffers changes to a {@link Yaml} and applies them together. See {@link Yaml#transaction(Body)} for details. <br>
+ * Changes made via this transaction are not visible in the {@link Yaml} until the transaction was committed.
+ */
+public final class YamlTransaction {
+    private final Yaml yaml;
+    private final List<Change> changes = new ArrayList<>();
+    private boolean isRolledBack = false;
+
+    YamlTransaction(Yaml yaml) {
+        this.yaml = yaml;
+    }
+
+    /**
+     * Puts the section with the provided keys once committed. See {@link Yaml#put(String...)} for details. <br>
+     * Use the returned {@link Edit} to change its values and comments.
+     */
+    public Edit put(String... keys) {
+        Objects.requireNonNull(keys);
+        return put(Arrays.asList(keys));
+    }
+
+    /**
+     * Puts the section with the provided keys once committed. See {@link Yaml#put(List)} for details. <br>
+     * Use the returned {@link Edit} to change its values and comments.
+     */
+    public Edit put(List<String> keys) {
+        Objects.requireNonNull(keys);
+        Edit edit = new Edit(new ArrayList<>(keys));
+        changes.add(edit);
+        return edit;
+    }
+
+    /**
+     * Removes the section with the provided keys once committed. See {@link Yaml#remove(String...)} for details.
+     */
+    public YamlTransaction remove(String... keys) {
+        Objects.requireNonNull(keys);
+        changes.add(new Removal(new ArrayList<>(Arrays.asList(keys))));
+        return this;
+    }
+
+    /**
+     * Discards all changes of this transaction. Changes made after this are discarded too.
+     */
+    public void rollback() {
+        isRolledBack = true;
+        changes.clear();
+    }
+
+    public boolean isRolledBack() {
+        return isRolledBack;
+    }
+
+    public Yaml getYaml() {
+        return yaml;
+    }
+
+    /**
+     * Applies all changes and saves the {@link Yaml} once. <br>
+     * The sections of consecutive puts get added in one batch (see {@link Yaml#putAll(List)}), removals are applied in between. <br>
+     * All keys get validated before anything is applied. If saving fails,
+     * the sections, their values and their parent/child links get restored to their state before the commit.
+     * Only the links of the sections with the keys of a change, and of their parents get saved for that,
+     * since saving only links new sections to them. <br>
+     * If write-behind saving is enabled, the {@link Yaml} gets flushed too, so that write failures are noticed here.
+     */
+    void commit() throws NotLoadedException, IllegalKeyException, IOException, DuplicateKeyException, YamlReaderException, IllegalListException, YamlWriterException {
+        if (isRolledBack || changes.isEmpty()) return;
+        if (!yaml.isLoaded) throw new NotLoadedException();
+        for (Change change : changes) {
+            if (change.keys.isEmpty()) throw new IllegalKeyException("Keys list of this module cannot be empty!");
+            if (change.keys.contains(null))
+                throw new IllegalKeyException("The provided keys list contains null key(s)! This is not allowed!");
+        }
+        yaml.debugLogger.log(this, () -> "Committing transaction with " + changes.size() + " change(s)");
+
+        yaml.unlinkUnifiedListFillers(); // They get created again on save, thus must not be part of the snapshot
+        List<YamlSection> oldInEditModules = new ArrayList<>(yaml.inEditModules);
+        List<YamlSection> oldLoadedModules = new ArrayList<>(yaml.loadedModules);
+        Map<YamlSection, SectionState> oldStates = new IdentityHashMap<>();
+        Map<YamlSection, SectionLinks> oldLinks = new IdentityHashMap<>();
+        for (Change change : changes) {
+            // Saving only links new sections to their parents, thus snapshot the touched sections and their parents
+            for (int i = change.keys.size(); i > 0; i--) {
+                List<String> keys = change.keys.subList(0, i);
+                YamlSection inEdit = yaml.inEditIndex.get(keys), loaded = yaml.loadedIndex.get(keys);
+                if (inEdit != null) oldLinks.computeIfAbsent(inEdit, SectionLinks::new);
+                if (loaded != null) oldLinks.computeIfAbsent(loaded, SectionLinks::new);
+            }
+        }
+        try {
+            List<Edit> edits = new ArrayList<>();
+            for (Change change : changes) {
+                if (change instanceof Edit) {
+                    edits.add((Edit) change);
+                } else {
+                    apply(edits, oldStates);
+                    yaml.remove(change.keys.toArray(new String[0]));
+                }
+            }
+            apply(edits, oldStates);
+            yaml.save();
+            yaml.flush(); // Write-behind would only mark it dirty
+        } catch (IOException | DuplicateKeyException | YamlReaderException | IllegalListException | YamlWriterException
+                 | RuntimeException e) {
+            restore(oldInEditModules, oldLoadedModules, oldStates, oldLinks);
+            if (yaml.isWriteBehindEnabled()) {
+                try { // Replace the pending save of the failed commit
+                    yaml.save();
+                } catch (Exception e2) {
+                    e.addSuppressed(e2);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Puts the sections of the provided edits in one batch (see {@link Yaml#putAll(List)}),
+     * applies their values and comments, and clears the provided list.
+     */
+    private void apply(List<Edit> edits, Map<YamlSection, SectionState> oldStates) {
+        if (edits.isEmpty()) return;
+        List<List<String>> keysList = new ArrayList<>(edits.size());
+        for (Edit edit : edits) {
+            keysList.add(edit.keys);
+        }
+        List<YamlSection> sections = yaml.putAll(keysList);
+        for (int i = 0; i < edits.size(); i++) {
+            edits.get(i).apply(sections.get(i), oldStates);
+        }
+        edits.clear();
+    }
+
+    private void restore(List<YamlSection> oldInEditModules, List<YamlSection> oldLoadedModules,
+                         Map<YamlSection, SectionState> oldStates, Map<YamlSection, SectionLinks> oldLinks) {
+        yaml.debugLogger.log(DYDebugLogger.Level.WARN, this, "Failed to commit transaction, restoring the previous state.");
+        yaml.inEditModules.clear();
+        yaml.inEditModules.addAll(oldInEditModules);
+        yaml.loadedModules.clear();
+        yaml.loadedModules.addAll(oldLoadedModules);
+        yaml.inEditIndex.rebuild();
+        yaml.loadedIndex.rebuild();
+        yaml.invalidateUnifiedList();
+        for (Map.Entry<YamlSection, SectionLinks> entry : oldLinks.entrySet()) {
+            entry.getValue().restore(entry.getKey());
+        }
+        for (Map.Entry<YamlSection, SectionState> entry : oldStates.entrySet()) {
+            entry.getValue().restore(entry.getKey());
+        }
+    }
+
+    /**
+     * A function that can throw exceptions, used by {@link Yaml#transaction(Body)}.
+     */
+    @FunctionalInterface
+    public interface Body<E extends Exception> {
+        void run(YamlTransaction tx) throws E;
+    }
+
+    private static abstract class Change {
+        final List<String> keys;
+
+        Change(List<String> keys) {
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Buffered changes to a single section. Values get converted to {@link SmartString}s immediately.
+     */
+    public final class Edit extends Change {
+        private List<SmartString> values;
+        private List<SmartString> defValues;
+        private List<String> comments;
+
+        private Edit(List<String> keys) {
+            super(keys);
+        }
+
+        /**
+         * See {@link YamlSection#setValues(Object[])} for details.
+         */
+        @SafeVarargs
+        public final <T> Edit setValues(T... v) {
+            this.values = new ArrayList<>(v.length);
+            for (T t : v) { // Not passed on, see @SafeVarargs
+                this.values.add(new SmartString(t == null ? null : t.toString()));
+            }
+            return this;
+        }
+
+        /**
+         * See {@link YamlSection#setValues(List)} for details.
+         */
+        public <T> Edit setValues(List<T> v) {
+            this.values = yaml.utilsYamlSection.listToValuesList(v);
+            return this;
+        }
+
+        /**
+         * See {@link YamlSection#setDefValues(Object[])} for details.
+         */
+        @SafeVarargs
+        public final <T> Edit setDefValues(T... v) {
+            this.defValues = new ArrayList<>(v.length);
+            for (T t : v) { // Not passed on, see @SafeVarargs
+                this.defValues.add(new SmartString(t == null ? null : t.toString()));
+            }
+            return this;
+        }
+
+        /**
+         * See {@link YamlSection#setComments(String...)} for details.
+         */
+        public Edit setComments(String... c) {
+            if (c != null) this.comments = new ArrayList<>(Arrays.asList(c));
+            return this;
+        }
+
+        private void apply(YamlSection section, Map<YamlSection, SectionState> oldStates) {
+            oldStates.computeIfAbsent(section, SectionState::new);
+            if (values != null) section.setSValues(values);
+            if (defValues != null) section.setDefSValues(defValues);
+            if (comments != null) section.setComments(comments);
+        }
+    }
+
+    private final class Removal extends Change {
+        private Removal(List<String> keys) {
+            super(keys);
+        }
+    }
+
+    /**
+     * The values and comments of a section before the commit.
+     */
+    private static final class SectionState {
+        private final List<SmartString> values;
+        private final List<SmartString> defValues;
+        private final List<String> comments;
+
+        private SectionState(YamlSection section) {
+            this.values = new ArrayList<>(section.getRawValues());
+            this.defValues = new ArrayList<>(section.getDefValues());
+            this.comments = new ArrayList<>(section.getComments());
+        }
+
+        private void restore(YamlSection section) {
+            section.setSValues(values);
+            section.setDefSValues(defValues);
+            section.setComments(comments);
+        }
+    }
+
+    /**
+     * The parent and child sections of a section before the commit. <br>
+     * The child list is restored in place, since it may be shared between the loaded and in-edit section.
+     */
+    private static final class SectionLinks {
+        private final YamlSection parentSection;
+        private final List<YamlSection> childSections;
+        private final List<YamlSection> children;
+
+        private SectionLinks(YamlSection section) {
+            this.parentSection = section.getParentSection();
+            this.childSections = section.getChildSections();
+            this.children = new ArrayList<>(childSections);
+        }
+
+        private void restore(YamlSection section) {
+            section.setParentSection(parentSection);
+            childSections.clear();
+            childSections.addAll(children);
+            section.setChildSections(childSections);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml;
+
+import com.osiris.dyml.exceptions.YamlWriterException;
+import com.osiris.dyml.utils.FileLocks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the saves of a single {@link Yaml} and writes them later on a background thread. <br>
+ * The content gets rendered by the thread calling {@link Yaml#save()} (see {@link YamlWriter#render(Yaml, boolean)}),
+ * thus the background thread never reads the sections while they are changed, only the rendered bytes. <br>
+ * Each {@link #markDirty(byte[])} (re-)schedules the write to happen after the delay,
+ * but never later than the max latency after the first unsaved change. <br>
+ * All writes are executed one after another by a single daemon thread, shared by all {@link Yaml}s.
+ * Pending writes get flushed when the JVM shuts down. <br>
+ * See {@link Yaml#enableWriteBehind(long, long)} for details.
+ */
+class YamlWriteBehind {
+    private static final ScheduledThreadPoolExecutor scheduler;
+    /**
+     * Instances with pending writes, that get flushed on shutdown.
+     * Instances get removed once written, so that idle ones can be garbage collected.
+     */
+    private static final Set<YamlWriteBehind> active = ConcurrentHashMap.newKeySet();
+    /**
+     * How long to wait for the file lock of each {@link Yaml} on shutdown,
+     * so that a thread that never releases its lock doesn't prevent the JVM from exiting.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    static {
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Yaml-Write-Behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true); // Otherwise each rescheduled save stays in the queue until its delay passed
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (YamlWriteBehind writeBehind : active) {
+                try {
+                    if (!writeBehind.tryFlush(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                        System.err.println("Failed to save '" + writeBehind.yaml.getSource()
+                                + "' on shutdown, since its file lock wasn't released in time.");
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Yaml-Write-Behind-Shutdown"));
+    }
+
+    private final Yaml yaml;
+    private final long delayNanos;
+    private final long maxLatencyNanos;
+    // Guarded by this:
+    /**
+     * The rendered content to write, or null if there is nothing to write.
+     */
+    private byte[] pending;
+    private boolean writing;
+    private long firstDirtyNanos;
+    private ScheduledFuture<?> scheduledSave;
+
+    YamlWriteBehind(Yaml yaml, long delayMillis, long maxLatencyMillis) {
+        if (delayMillis < 0) throw new IllegalArgumentException("Delay cannot be negative!");
+        if (maxLatencyMillis < delayMillis)
+            throw new IllegalArgumentException("Max latency cannot be smaller than the delay!");
+        this.yaml = yaml;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+    }
+
+    /**
+     * Replaces the content to write and (re-)schedules the write.
+     *
+     * @param rendered the content of the last save, see {@link YamlWriter#render(Yaml, boolean)}.
+     */
+    synchronized void markDirty(byte[] rendered) {
+        long now = System.nanoTime();
+        if (pending == null) firstDirtyNanos = now;
+        pending = rendered;
+        active.add(this);
+        long delay = Math.max(0, Math.min(delayNanos, maxLatencyNanos - (now - firstDirtyNanos)));
+        if (scheduledSave != null) scheduledSave.cancel(false);
+        scheduledSave = scheduler.schedule(this::flushInBackground, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Discards the content to write, since newer content was written directly. <br>
+     * Must be called while holding the exclusive lock of the file, so that a running flush can't write it anymore.
+     */
+    synchronized void discardPending() {
+        if (pending == null) return;
+        pending = null;
+        if (scheduledSave != null) {
+            scheduledSave.cancel(false);
+            scheduledSave = null;
+        }
+        if (!writing) active.remove(this);
+    }
+
+    /**
+     * Returns true if there are changes that weren't written yet, or that are being written right now.
+     */
+    synchronized boolean isDirty() {
+        return pending != null || writing;
+    }
+
+    /**
+     * Writes now, if there are unsaved changes. <br>
+     * The file gets locked via {@link Yaml#exclusiveFileLock()} while writing, which means that this waits
+     * for threads that currently hold the lock. If the write fails, the changes stay unsaved.
+     *
+     * @throws IllegalStateException if there are unsaved changes and the current thread holds the shared lock of the file,
+     *                               since it cannot be upgraded to the exclusive lock.
+     */
+    void flush() throws IOException, YamlWriterException {
+        synchronized (this) {
+            if (pending == null) return; // Don't wait for the lock, since the current thread may hold the shared lock
+        }
+        File file = yaml.getFile();
+        if (file != null && FileLocks.isSharedHeldByCurrentThread(file))
+            throw new IllegalStateException("Cannot write the pending save of '" + file + "' while the current thread holds" +
+                    " the shared lock of the file, since it cannot be upgraded to the exclusive lock. Flush before locking the file shared.");
+        // Lock before the monitor, so that threads holding the file lock can still call markDirty()
+        write(yaml.exclusiveFileLock());
+    }
+
+    /**
+     * Same as {@link #flush()}, but waits at most the provided timeout for the file lock.
+     *
+     * @return false if the timeout was reached, true otherwise.
+     */
+    boolean tryFlush(long timeout, TimeUnit unit) throws IOException, YamlWriterException, InterruptedException {
+        synchronized (this) {
+            if (pending == null) return true;
+        }
+        FileLocks.Handle lock = FileLocks.tryLockExclusive(yaml.getFile(), yaml.isProcessLockEnabled, timeout, unit);
+        if (lock == null) return false;
+        write(lock);
+        return true;
+    }
+
+    /**
+     * Writes the pending content while holding the provided exclusive lock, which gets released after.
+     */
+    private void write(FileLocks.Handle lock) throws IOException, YamlWriterException {
+        try {
+            byte[] bytes;
+            synchronized (this) {
+                if (pending == null) return;
+                bytes = pending;
+                this.pending = null;
+                this.writing = true;
+                if (scheduledSave != null) {
+                    scheduledSave.cancel(false);
+                    scheduledSave = null;
+                }
+            }
+            try {
+                new YamlWriter().write(yaml, bytes);
+            } catch (IOException | YamlWriterException | RuntimeException e) {
+                synchronized (this) {
+                    if (pending == null) { // Otherwise there is newer content to write
+                        firstDirtyNanos = System.nanoTime();
+                        pending = bytes;
+                    }
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    this.writing = false;
+                    if (pending == null) active.remove(this);
+                }
+            }
+        } finally {
+            lock.close();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (Exception e) {
+            yaml.debugLogger.log(DYDebugLogger.Level.ERROR, this, () -> "Failed to save '" + yaml.getSource() + "' in background: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Flushes, since this instance won't be used anymore.
+     */
+    void disable() throws IOException, YamlWriterException {
+        flush();
+    }
+}
@@ -9,13 +9,22 @@
 package com.osiris.dyml;
 
 import com.osiris.dyml.exceptions.YamlWriterException;
+import com.osiris.dyml.utils.AtomicFileOutputStream;
 import com.osiris.dyml.utils.BufferedSBWriter;
+import com.osiris.dyml.utils.FileVersion;
 import com.osiris.dyml.utils.UtilsTimeStopper;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * Responsible for parsing and writing the provided modules.
@@ -26,25 +35,43 @@ class YamlWriter {
     public void parse(Yaml yaml, boolean overwrite, boolean reset) throws YamlWriterException, IOException {
         this.yaml = yaml;
         DYDebugLogger logger = yaml.debugLogger;
-        boolean isDebug = yaml.debugLogger.isEnabled();
+        boolean isDebug = logger.isEnabled(DYDebugLogger.Level.DEBUG);
 
         UtilsTimeStopper timer = new UtilsTimeStopper();
         timer.start();
 
+        if (yaml.file != null && yaml.isPartialSaveEnabled && !yaml.isAtomicSaveEnabled && !overwrite && !reset) {
+            parsePartial(yaml);
+            timer.stop();
+            if (isDebug)
+                logger.log(this, "Finished partial writing, took " + timer.getFormattedMillis() + "ms or " + timer.getFormattedSeconds() + "s");
+            return;
+        }
+        yaml.writtenFile = null;
+
         BufferedWriter writer = null;
+        AtomicFileOutputStream atomicOut = null;
+        FileVersion.ChecksumOutputStream checksumOut = null;
+        boolean isWritten = false;
         if (yaml.outputStream != null) {
             writer = new BufferedWriter(new OutputStreamWriter(yaml.outputStream, Yaml.charset), 32768); // TODO compare speed with def buffer
-            logger.log(this, "Started writing yaml to OutputStream '" + yaml.outputStream + "' with overwrite: " + overwrite + " and reset: " + reset);
+            logger.log(this, () -> "Started writing yaml to OutputStream '" + yaml.outputStream + "' with overwrite: " + overwrite + " and reset: " + reset);
 
         } else if (yaml.file != null) {
             if (!yaml.file.exists())
                 throw new YamlWriterException("File '" + yaml.file.getName() + "' doesn't exist!");
-            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(yaml.file.toPath()), Yaml.charset), 32768); // TODO compare speed with def buffer
-            logger.log(this, "Started writing yaml to file '" + yaml.file + "' with overwrite: " + overwrite + " and reset: " + reset);
+            yaml.fileVersion = null; // Unknown until written successfully
+            if (yaml.isAtomicSaveEnabled) {
+                atomicOut = new AtomicFileOutputStream(yaml.file.toPath(), yaml.fsyncPolicy);
+                checksumOut = new FileVersion.ChecksumOutputStream(atomicOut);
+            } else
+                checksumOut = new FileVersion.ChecksumOutputStream(Files.newOutputStream(yaml.file.toPath()));
+            writer = new BufferedWriter(new OutputStreamWriter(checksumOut, Yaml.charset), 32768); // TODO compare speed with def buffer
+            logger.log(this, () -> "Started writing yaml to file '" + yaml.file + "' with overwrite: " + overwrite + " and reset: " + reset);
 
         } else if (yaml.outString != null) {
             writer = new BufferedSBWriter();
-            logger.log(this, "Started writing yaml to String '" + yaml.outString + "' with overwrite: " + overwrite + " and reset: " + reset);
+            logger.log(this, () -> "Started writing yaml to String '" + yaml.outString + "' with overwrite: " + overwrite + " and reset: " + reset);
         }
 
         if (writer == null) {
@@ -54,14 +81,18 @@ class YamlWriter {
 
         try {
             writer.write(""); // Clear old content
-            if (reset) return;
+            if (reset) {
+                if (atomicOut != null) commit(writer, atomicOut);
+                isWritten = true;
+                return;
+            }
 
             List<YamlSection> sectionsToSave;
             if (overwrite) {
                 sectionsToSave = yaml.getAllInEdit();
 
             } else
-                sectionsToSave = yaml.createUnifiedList(yaml.getAllInEdit(), yaml.getAllLoaded());
+                sectionsToSave = yaml.getUnifiedList();
 
             if (sectionsToSave.isEmpty() && isDebug)
                 logger.log(this, "The modules list is empty. Written an empty file.");
@@ -72,31 +103,36 @@ class YamlWriter {
                     sectionsToSave) {
                 parseSection(writer, m, lastSection);
                 lastSection = m;
+                m.setDirty(false);
             }
 
             timer.stop();
             if (isDebug) {
                 logger.log(this, "Finished writing of " + yaml.getFile().getName() + " at " + new Date());
-                logger.log(this, "Written unified modules details:");
-                for (YamlSection loadedSection :
-                        sectionsToSave) {
-
-                    logger.log(this, "");
-                    logger.log(this, "---> " + loadedSection.toPrintString());
-                    if (loadedSection.getParentSection() != null)
-                        logger.log(this, "PARENT -> " + loadedSection.getParentSection().toPrintString());
-                    else
-                        logger.log(this, "PARENT -> NULL");
-
-                    for (YamlSection childSection :
-                            loadedSection.getChildSections()) {
-                        if (childSection != null)
-                            logger.log(this, "CHILD -> " + childSection.toPrintString());
+                if (logger.isEnabled(DYDebugLogger.Level.TRACE)) {
+                    logger.log(DYDebugLogger.Level.TRACE, this, "Written unified modules details:");
+                    for (YamlSection loadedSection :
+                            sectionsToSave) {
+
+                        logger.log(DYDebugLogger.Level.TRACE, this, "");
+                        logger.log(DYDebugLogger.Level.TRACE, this, "---> " + loadedSection.toPrintString());
+                        if (loadedSection.getParentSection() != null)
+                            logger.log(DYDebugLogger.Level.TRACE, this, "PARENT -> " + loadedSection.getParentSection().toPrintString());
                         else
-                            logger.log(this, "CHILD -> NULL");
+                            logger.log(DYDebugLogger.Level.TRACE, this, "PARENT -> NULL");
+
+                        for (YamlSection childSection :
+                                loadedSection.getChildSections()) {
+                            if (childSection != null)
+                                logger.log(DYDebugLogger.Level.TRACE, this, "CHILD -> " + childSection.toPrintString());
+                            else
+                                logger.log(DYDebugLogger.Level.TRACE, this, "CHILD -> NULL");
+                        }
                     }
                 }
             }
+            if (atomicOut != null) commit(writer, atomicOut);
+            isWritten = true;
             if (writer instanceof BufferedSBWriter) {
                 yaml.outString = ((BufferedSBWriter) writer).builder.toString();
             }
@@ -110,6 +146,210 @@ class YamlWriter {
             throw e;
         } finally {
             if (yaml.file != null || yaml.outString != null) writer.close();
+            if (isWritten && checksumOut != null) yaml.fileVersion = checksumOut.toVersion(yaml.file.toPath());
+        }
+    }
+
+    /**
+     * Renders the sections like {@link #parse(Yaml, boolean, boolean)}, but returns the bytes instead of writing them. <br>
+     * Used by write-behind saving, which renders on the thread calling {@link Yaml#save()} and
+     * writes the bytes later via {@link #write(Yaml, byte[])}, so that the sections are never read
+     * while they are changed.
+     */
+    byte[] render(Yaml yaml, boolean overwrite) throws IOException {
+        this.yaml = yaml;
+        List<YamlSection> sectionsToSave = overwrite ? yaml.getAllInEdit() : yaml.getUnifiedList();
+        BufferedSBWriter writer = new BufferedSBWriter();
+        YamlSection lastSection = new YamlSection(yaml); // Create an empty module as start point
+        for (YamlSection m :
+                sectionsToSave) {
+            parseSection(writer, m, lastSection);
+            lastSection = m;
+            m.setDirty(false);
+        }
+        return writer.builder.toString().getBytes(Yaml.charset);
+    }
+
+    /**
+     * Writes the provided bytes (see {@link #render(Yaml, boolean)}) to the output of the provided {@link Yaml}. <br>
+     * The {@link Yaml#file} gets rewritten completely (atomically if enabled), even if partial saves are enabled.
+     */
+    void write(Yaml yaml, byte[] bytes) throws YamlWriterException, IOException {
+        this.yaml = yaml;
+        if (yaml.outputStream != null) {
+            yaml.outputStream.write(bytes);
+            yaml.outputStream.flush();
+        } else if (yaml.file != null) {
+            if (!yaml.file.exists())
+                throw new YamlWriterException("File '" + yaml.file.getName() + "' doesn't exist!");
+            yaml.writtenFile = null; // Thus the next partial save rewrites the whole file
+            yaml.fileVersion = null; // Unknown until written successfully
+            AtomicFileOutputStream atomicOut = yaml.isAtomicSaveEnabled ? new AtomicFileOutputStream(yaml.file.toPath(), yaml.fsyncPolicy) : null;
+            FileVersion.ChecksumOutputStream checksumOut = new FileVersion.ChecksumOutputStream(
+                    atomicOut != null ? atomicOut : Files.newOutputStream(yaml.file.toPath()));
+            try {
+                checksumOut.write(bytes);
+                checksumOut.flush();
+                if (atomicOut != null) atomicOut.commit();
+            } finally {
+                checksumOut.close();
+            }
+            yaml.fileVersion = checksumOut.toVersion(yaml.file.toPath());
+        } else if (yaml.outString != null) {
+            yaml.outString = new String(bytes, Yaml.charset);
+        }
+    }
+
+    /**
+     * Flushes the writer and replaces the target file with the written temporary file.
+     * If this fails, the temporary file gets deleted once the writer is closed.
+     */
+    private void commit(BufferedWriter writer, AtomicFileOutputStream atomicOut) throws IOException {
+        writer.flush();
+        atomicOut.commit();
+    }
+
+    /**
+     * Writes the unified sections to the {@link Yaml#file}, by only writing the bytes that changed since the last save. <br>
+     * Only dirty sections (see {@link YamlSection#isDirty()}) get written to memory, the others reuse the bytes of the last save,
+     * if they are at the same position and follow the same section. The bytes of each section are then compared to the bytes
+     * written for it in the last save. <br>
+     * Changed sections with the same length get overwritten directly. From the first section with a different length on
+     * (or removed/added sections), the rest of the file gets rewritten. <br>
+     * The whole file gets rewritten if this is the first save, if the file was changed by someone else
+     * (see {@link Yaml#getFileVersion()}) or if the keys of a section were changed. See {@link YamlSection#isKeysDirty()}.
+     */
+    private void parsePartial(Yaml yaml) throws YamlWriterException, IOException {
+        if (!yaml.file.exists())
+            throw new YamlWriterException("File '" + yaml.file.getName() + "' doesn't exist!");
+        DYDebugLogger logger = yaml.debugLogger;
+        Path path = yaml.file.toPath();
+        List<YamlSection> sectionsToSave = yaml.getUnifiedList();
+        WrittenFile writtenFile = yaml.writtenFile;
+        if (writtenFile != null && !writtenFile.isSameSettings(yaml)) writtenFile = null;
+        List<byte[]> sectionsBytes = new ArrayList<>(sectionsToSave.size());
+        BufferedSBWriter sectionWriter = new BufferedSBWriter();
+        boolean isStructureChanged = false;
+        int countRendered = 0;
+        YamlSection lastSection = new YamlSection(yaml); // Create an empty module as start point
+        for (int i = 0; i < sectionsToSave.size(); i++) {
+            YamlSection m = sectionsToSave.get(i);
+            if (m.isKeysDirty()) isStructureChanged = true;
+            byte[] oldBytes = writtenFile != null && !m.isDirty() ? writtenFile.getBytes(i, m, i == 0 ? null : lastSection) : null;
+            if (oldBytes != null) sectionsBytes.add(oldBytes); // The content only depends on the section and the keys of the one before
+            else {
+                sectionWriter.builder.setLength(0);
+                parseSection(sectionWriter, m, lastSection);
+                sectionsBytes.add(sectionWriter.builder.toString().getBytes(Yaml.charset));
+                countRendered++;
+            }
+            lastSection = m;
+        }
+        final int finalCountRendered = countRendered;
+        logger.log(this, () -> "Rendered " + finalCountRendered + " of " + sectionsToSave.size() + " section(s)");
+
+        FileVersion expectedVersion = yaml.fileVersion;
+        yaml.fileVersion = null; // Unknown until written successfully
+        yaml.writtenFile = null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (writtenFile == null || isStructureChanged || expectedVersion == null || !expectedVersion.matches(path)) {
+                logger.log(this, () -> "Rewriting the whole file '" + yaml.file + "'");
+                channel.truncate(0);
+                writeFrom(channel, 0, sectionsBytes, 0);
+            } else {
+                long position = 0;
+                int countPatched = 0;
+                List<byte[]> oldSectionsBytes = writtenFile.sectionsBytes;
+                for (int i = 0; i < sectionsBytes.size() || i < oldSectionsBytes.size(); i++) {
+                    byte[] bytes = i < sectionsBytes.size() ? sectionsBytes.get(i) : null;
+                    byte[] oldBytes = i < oldSectionsBytes.size() ? oldSectionsBytes.get(i) : null;
+                    if (bytes != null && oldBytes != null && bytes.length == oldBytes.length) {
+                        if (bytes != oldBytes && !Arrays.equals(bytes, oldBytes)) {
+                            writeFully(channel, ByteBuffer.wrap(bytes), position);
+                            countPatched++;
+                        }
+                        position += bytes.length;
+                    } else { // Length changed, section added or removed, thus rewrite the rest
+                        final long finalPosition = position;
+                        logger.log(this, () -> "Rewriting file '" + yaml.file + "' from byte " + finalPosition);
+                        writeFrom(channel, position, sectionsBytes, i);
+                        countPatched = -1;
+                        break;
+                    }
+                }
+                final int finalCountPatched = countPatched;
+                if (countPatched != -1)
+                    logger.log(this, () -> "Patched " + finalCountPatched + " section(s) in file '" + yaml.file + "'");
+            }
+        }
+        CRC32 crc = new CRC32();
+        long size = 0;
+        for (byte[] bytes : sectionsBytes) { // The file contains exactly these bytes now
+            crc.update(bytes);
+            size += bytes.length;
+        }
+        yaml.fileVersion = new FileVersion(Files.getLastModifiedTime(path).toMillis(), size, crc.getValue());
+        yaml.writtenFile = new WrittenFile(yaml, new ArrayList<>(sectionsToSave), sectionsBytes);
+        for (YamlSection m :
+                sectionsToSave) {
+            m.setDirty(false);
+        }
+    }
+
+    /**
+     * Writes the sections bytes, starting with the section at the provided index, to the provided position
+     * and truncates the file after the last written byte.
+     */
+    private void writeFrom(FileChannel channel, long position, List<byte[]> sectionsBytes, int index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = index; i < sectionsBytes.size(); i++) {
+            out.write(sectionsBytes.get(i));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        writeFully(channel, buffer, position);
+        channel.truncate(position + out.size());
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * The sections and their bytes written by the last save to the {@link Yaml#file}. <br>
+     * Used by partial saves to find the bytes that changed and to reuse the bytes of unchanged sections.
+     * See {@link Yaml#isPartialSaveEnabled}.
+     */
+    static final class WrittenFile {
+        private final List<YamlSection> sections;
+        private final List<byte[]> sectionsBytes;
+        private final boolean isWriteDefaultValuesWhenEmptyEnabled;
+        private final boolean isWriteDefaultCommentsWhenEmptyEnabled;
+
+        WrittenFile(Yaml yaml, List<YamlSection> sections, List<byte[]> sectionsBytes) {
+            this.sections = sections;
+            this.sectionsBytes = sectionsBytes;
+            this.isWriteDefaultValuesWhenEmptyEnabled = yaml.isWriteDefaultValuesWhenEmptyEnabled;
+            this.isWriteDefaultCommentsWhenEmptyEnabled = yaml.isWriteDefaultCommentsWhenEmptyEnabled;
+        }
+
+        /**
+         * Returns true if the settings that change how sections are written are the same as on the last save.
+         */
+        boolean isSameSettings(Yaml yaml) {
+            return yaml.isWriteDefaultValuesWhenEmptyEnabled == isWriteDefaultValuesWhenEmptyEnabled
+                    && yaml.isWriteDefaultCommentsWhenEmptyEnabled == isWriteDefaultCommentsWhenEmptyEnabled;
+        }
+
+        /**
+         * Returns the bytes written for the provided section, if it was written at the same index
+         * after the same section (null for the first one), otherwise null.
+         */
+        byte[] getBytes(int index, YamlSection section, YamlSection sectionBefore) {
+            if (index >= sections.size() || sections.get(index) != section) return null;
+            if (index > 0 ? sections.get(index - 1) != sectionBefore : sectionBefore != null) return null;
+            return sectionsBytes.get(index);
         }
     }
 
@@ -3,6 +3,7 @@ package com.osiris.dyml.db;
 import com.osiris.dyml.Yaml;
 import com.osiris.dyml.YamlSection;
 import com.osiris.dyml.exceptions.*;
+import com.osiris.dyml.utils.FileLocks;
 
 import java.io.File;
 import java.io.IOException;
@@ -117,6 +118,45 @@ public class YamlDatabase {
         return yaml;
     }
 
+    /**
+     * Enables/Disables cross-process locking of the database file. <br>
+     * Use this if multiple processes (for example multiple JVMs) work with the same database file. <br>
+     * See {@link Yaml#isProcessLockEnabled} for details.
+     */
+    public YamlDatabase setProcessLockEnabled(boolean enabled) {
+        yaml.isProcessLockEnabled = enabled;
+        return this;
+    }
+
+    public boolean isProcessLockEnabled() {
+        return yaml.isProcessLockEnabled;
+    }
+
+    /**
+     * Acquires the exclusive lock of the database file and returns a handle, that releases it once closed. <br>
+     * Use this around {@link #load()}, your changes and {@link #save()}, so that no other thread
+     * (or other process, if {@link #isProcessLockEnabled()}) can change the file in between. Example: <br>
+     * <pre>
+     *     try (FileLocks.Handle lock = db.lockFile()) {
+     *         db.load();
+     *         // Do changes here
+     *         db.save();
+     *     }
+     * </pre>
+     * See {@link Yaml#exclusiveFileLock()} for details.
+     */
+    public FileLocks.Handle lockFile() throws IOException {
+        return yaml.exclusiveFileLock();
+    }
+
+    /**
+     * Acquires the shared lock of the database file and returns a handle, that releases it once closed. <br>
+     * See {@link Yaml#sharedFileLock()} for details.
+     */
+    public FileLocks.Handle lockFileShared() throws IOException {
+        return yaml.sharedFileLock();
+    }
+
     /**
      * This is the first thing you should do after initialising. <br>
      * See {@link Yaml#load()} for details.
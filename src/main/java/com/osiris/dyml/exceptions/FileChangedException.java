@@ -0,0 +1,25 @@
+package com.osiris.dyml.exceptions;
+
+import com.osiris.dyml.utils.FileVersion;
+
+import java.io.File;
+
+/**
+ * Thrown if a file was changed by someone else since it was loaded,
+ * and thus was not saved to avoid overwriting those changes.
+ */
+public class FileChangedException extends YamlWriterException {
+    private final FileVersion expectedVersion;
+
+    public FileChangedException(File file, FileVersion expectedVersion) {
+        super("File '" + file + "' was changed since it was loaded (expected " + expectedVersion + ")!");
+        this.expectedVersion = expectedVersion;
+    }
+
+    /**
+     * The version of the file when it was loaded/saved the last time.
+     */
+    public FileVersion getExpectedVersion() {
+        return expectedVersion;
+    }
+}
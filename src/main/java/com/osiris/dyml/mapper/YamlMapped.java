@@ -0,0 +1,26 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.mapper;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a class for which the {@link com.osiris.dyml.processor.YamlMapperProcessor} generates a {@link YamlMapper}
+ * at compile time, named like the class with a "_YamlMapper" suffix (for example "Config_YamlMapper"). <br>
+ * The generated mapper maps the same fields as the reflective mapping (all public non-static fields declared by the class),
+ * but without reflection. This means that these fields must not be final and the class needs a non-private no-args constructor. <br>
+ * The mapper is not used if private fields are requested too (for example via {@link com.osiris.dyml.YamlSection#as(Class, boolean)}). <br>
+ * Supported field types are primitives, their wrappers, {@link String}, enums and other classes annotated with this. <br>
+ * Note that the processor is optional and must be enabled in your build, see {@link com.osiris.dyml.processor.YamlMapperProcessor}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface YamlMapped {
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.mapper;
+
+import com.osiris.dyml.Dyml;
+import com.osiris.dyml.YamlSection;
+import com.osiris.dyml.exceptions.IllegalKeyException;
+import com.osiris.dyml.exceptions.NotLoadedException;
+
+/**
+ * Maps objects of a single type from/to {@link YamlSection}s and {@link Dyml}s. <br>
+ * Usually generated for classes annotated with {@link YamlMapped}, but can also be written by hand
+ * and registered via {@link YamlMappers#register(YamlMapper)}. <br>
+ * {@link YamlSection#as(Class)} and {@link YamlSection#putJavaChildSection(Object)} use the mapper of a type
+ * (if there is one) instead of reflection. <br>
+ * Implementations must be stateless and thread-safe.
+ */
+public interface YamlMapper<T> {
+
+    /**
+     * The type this mapper maps.
+     */
+    Class<T> getType();
+
+    /**
+     * Creates a new object from the child sections of the provided section.
+     * Same as {@link YamlSection#as(Class)}.
+     */
+    T read(YamlSection section);
+
+    /**
+     * Adds the fields of the provided object as child sections of the provided section.
+     * Same as {@link YamlSection#putJavaChildSection(Object)}.
+     */
+    void write(YamlSection section, T obj) throws NotLoadedException, IllegalKeyException;
+
+    /**
+     * Same as {@link #write(YamlSection, Object)}, but sets the default values instead.
+     * Same as {@link YamlSection#putDefJavaChildSection(Object)}.
+     */
+    void writeDefaults(YamlSection section, T obj) throws NotLoadedException, IllegalKeyException;
+
+    /**
+     * Creates a new object from the children of the provided {@link Dyml}.
+     */
+    T read(Dyml dyml);
+
+    /**
+     * Adds the fields of the provided object as children of the provided {@link Dyml}.
+     */
+    void write(Dyml dyml, T obj);
+}
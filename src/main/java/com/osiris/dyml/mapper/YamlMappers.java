@@ -0,0 +1,102 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.mapper;
+
+import com.osiris.dyml.YamlSection;
+import com.osiris.dyml.exceptions.IllegalKeyException;
+import com.osiris.dyml.exceptions.NotLoadedException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link YamlMapper}s, consulted by {@link YamlSection#as(Class)} and
+ * {@link YamlSection#putJavaChildSection(Object)} before falling back to reflection. <br>
+ * Mappers are found in this order: <br>
+ * 1. Mappers registered via {@link #register(YamlMapper)}. <br>
+ * 2. For classes annotated with {@link YamlMapped}: the generated mappers listed in
+ * "META-INF/services/com.osiris.dyml.mapper.YamlMapper" (written by the processor, works in native images),
+ * or the generated mapper class itself, found by its name. <br>
+ * The lookup result is cached per class, thus only the first lookup of a class is slow.
+ */
+public final class YamlMappers {
+    private static final Map<Class<?>, YamlMapper<?>> registered = new ConcurrentHashMap<>();
+    private static final ClassValue<Optional<YamlMapper<?>>> discovered = new ClassValue<Optional<YamlMapper<?>>>() {
+        @Override
+        protected Optional<YamlMapper<?>> computeValue(Class<?> type) {
+            return type.isAnnotationPresent(YamlMapped.class) ? Optional.ofNullable(discover(type)) : Optional.empty();
+        }
+    };
+
+    private YamlMappers() {
+    }
+
+    /**
+     * Registers the provided mapper for its type, replacing the generated one (if there is one).
+     */
+    public static <T> void register(YamlMapper<T> mapper) {
+        Objects.requireNonNull(mapper);
+        registered.put(mapper.getType(), mapper);
+    }
+
+    /**
+     * Removes the mapper registered via {@link #register(YamlMapper)} for the provided type.
+     */
+    public static void unregister(Class<?> type) {
+        registered.remove(type);
+    }
+
+    /**
+     * Returns the mapper for the provided type, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> YamlMapper<T> get(Class<T> type) {
+        YamlMapper<?> mapper = registered.isEmpty() ? null : registered.get(type);
+        if (mapper == null) mapper = discovered.get(type).orElse(null);
+        return (YamlMapper<T>) mapper;
+    }
+
+    /**
+     * Returns the name of the mapper generated for the provided class, for example "com.example.Outer_Inner_YamlMapper"
+     * for the nested class "com.example.Outer.Inner".
+     */
+    public static String getGeneratedMapperName(Class<?> type) {
+        String name = type.getName();
+        int packageEnd = name.lastIndexOf('.');
+        return name.substring(0, packageEnd + 1) + name.substring(packageEnd + 1).replace('$', '_') + "_YamlMapper";
+    }
+
+    private static YamlMapper<?> discover(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        try {
+            for (YamlMapper<?> mapper : ServiceLoader.load(YamlMapper.class, loader)) {
+                if (mapper.getType() == type) return mapper;
+            }
+        } catch (ServiceConfigurationError e) {
+            // A listed mapper is missing or broken, try to find it by name instead
+        }
+        // Not listed, for example after an incremental build
+        try {
+            Class<?> mapperClass = Class.forName(getGeneratedMapperName(type), true, loader);
+            return (YamlMapper<?>) mapperClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the child section of the provided section with the provided key. If not existing creates one.
+     * Used by generated mappers.
+     */
+    public static YamlSection putChild(YamlSection section, String key) throws NotLoadedException, IllegalKeyException {
+        List<String> keys = new ArrayList<>(section.getKeys());
+        keys.add(key);
+        return section.getYaml().put(keys);
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.processor;
+
+import com.osiris.dyml.mapper.YamlMapped;
+import com.osiris.dyml.mapper.YamlMapper;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@link YamlMapper} for each class annotated with {@link YamlMapped}, so that
+ * {@link com.osiris.dyml.YamlSection#as(Class)} and {@link com.osiris.dyml.YamlSection#putJavaChildSection(Object)}
+ * don't need reflection for them. <br>
+ * Also lists the generated mappers in "META-INF/services/com.osiris.dyml.mapper.YamlMapper",
+ * see {@link com.osiris.dyml.mapper.YamlMappers} for details. <br>
+ * This processor is optional and not registered as service, to enable it with Maven add this
+ * to the configuration of the maven-compiler-plugin:
+ * <pre>
+ * &lt;annotationProcessors&gt;
+ *     &lt;annotationProcessor&gt;com.osiris.dyml.processor.YamlMapperProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ * Or pass "-processor com.osiris.dyml.processor.YamlMapperProcessor" to javac.
+ */
+@SupportedAnnotationTypes("com.osiris.dyml.mapper.YamlMapped")
+public class YamlMapperProcessor extends AbstractProcessor {
+    private static final String SERVICE_FILE = "META-INF/services/" + YamlMapper.class.getName();
+    private final Set<String> generatedMappers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(YamlMapped.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@YamlMapped is only supported on classes.");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<MappedField> fields = getFields(type);
+            if (fields == null) continue; // Errors were reported
+            try {
+                generateMapper(type, fields);
+                generatedMappers.add(getMapperName(type));
+            } catch (IOException e) {
+                error(type, "Failed to generate mapper: " + e);
+            }
+        }
+        if (roundEnv.processingOver() && !generatedMappers.isEmpty()) {
+            try {
+                writeServiceFile();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + SERVICE_FILE + ": " + e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the mapped fields of the provided class, or null if the class or one of its fields is not supported.
+     */
+    private List<MappedField> getFields(TypeElement type) {
+        boolean isValid = true;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            error(type, "@YamlMapped classes must not be abstract.");
+            isValid = false;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            error(type, "@YamlMapped classes must not be private.");
+            isValid = false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            error(type, "@YamlMapped classes must be static if nested.");
+            isValid = false;
+        } else if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error(type, "@YamlMapped classes must not be local or anonymous.");
+            isValid = false;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                hasConstructor = true;
+        }
+        if (!hasConstructor) {
+            error(type, "@YamlMapped classes need a non-private constructor without parameters.");
+            isValid = false;
+        }
+
+        List<MappedField> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> fieldModifiers = field.getModifiers();
+            // Only public fields, like the reflective mapping (see YamlSection#putJavaChildSection(Object))
+            if (fieldModifiers.contains(Modifier.STATIC) || !fieldModifiers.contains(Modifier.PUBLIC)) continue;
+            if (fieldModifiers.contains(Modifier.FINAL)) {
+                error(field, "Public fields of @YamlMapped classes must not be final, since the generated mapper can't set them.");
+                isValid = false;
+                continue;
+            }
+            MappedField mapped = MappedField.of(field);
+            if (mapped == null) {
+                error(field, "Unsupported field type '" + field.asType() + "'. Supported are primitives, their wrappers, String, enums and @YamlMapped classes.");
+                isValid = false;
+                continue;
+            }
+            fields.add(mapped);
+        }
+        return isValid ? fields : null;
+    }
+
+    private void generateMapper(TypeElement type, List<MappedField> fields) throws IOException {
+        String mapperName = getMapperName(type);
+        int packageEnd = mapperName.lastIndexOf('.');
+        String packageName = packageEnd < 0 ? "" : mapperName.substring(0, packageEnd);
+        String simpleName = mapperName.substring(packageEnd + 1);
+        String typeName = type.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) out.append("package ").append(packageName).append(";\n\n");
+        out.append("import com.osiris.dyml.Dyml;\n")
+                .append("import com.osiris.dyml.YamlSection;\n")
+                .append("import com.osiris.dyml.exceptions.IllegalKeyException;\n")
+                .append("import com.osiris.dyml.exceptions.NotLoadedException;\n")
+                .append("import com.osiris.dyml.mapper.YamlMapper;\n")
+                .append("import com.osiris.dyml.mapper.YamlMappers;\n\n")
+                .append("/**\n * Generated by ").append(getClass().getName()).append(" for {@link ").append(typeName).append("}, do not edit.\n */\n")
+                .append("public final class ").append(simpleName).append(" implements YamlMapper<").append(typeName).append("> {\n");
+        for (MappedField field : fields) {
+            if (field.kind == Kind.MAPPED)
+                out.append("    private static final ").append(field.mapperName).append(" ").append(field.mapperField())
+                        .append(" = new ").append(field.mapperName).append("();\n");
+        }
+        out.append("\n    @Override\n    public Class<").append(typeName).append("> getType() {\n")
+                .append("        return ").append(typeName).append(".class;\n    }\n");
+
+        // read(YamlSection)
+        out.append("\n    @Override\n    public ").append(typeName).append(" read(YamlSection section) {\n")
+                .append("        ").append(typeName).append(" obj = new ").append(typeName).append("();\n")
+                .append("        for (YamlSection child : section.getChildSections()) {\n")
+                .append("            switch (child.getLastKey()) {\n");
+        for (MappedField field : fields) {
+            out.append("                case \"").append(field.name).append("\":\n")
+                    .append("                    obj.").append(field.name).append(" = ").append(field.readFrom("child", false)).append(";\n")
+                    .append("                    break;\n");
+        }
+        out.append("            }\n        }\n        return obj;\n    }\n");
+
+        // write(YamlSection, T) and writeDefaults(YamlSection, T)
+        for (boolean defaults : new boolean[]{false, true}) {
+            out.append("\n    @Override\n    public void ").append(defaults ? "writeDefaults" : "write").append("(YamlSection section, ")
+                    .append(typeName).append(" obj) throws NotLoadedException, IllegalKeyException {\n");
+            for (MappedField field : fields) {
+                String value = "obj." + field.name;
+                String child = "YamlMappers.putChild(section, \"" + field.name + "\")";
+                String indent = "        ";
+                if (!field.isPrimitive()) {
+                    out.append(indent).append("if (").append(value).append(" != null)\n");
+                    indent += "    ";
+                }
+                if (field.kind == Kind.MAPPED)
+                    out.append(indent).append(field.mapperField()).append(defaults ? ".writeDefaults(" : ".write(")
+                            .append(child).append(", ").append(value).append(");\n");
+                else
+                    out.append(indent).append(child).append(defaults ? ".setDefValues(" : ".setValues(")
+                            .append(field.toText(value)).append(");\n");
+            }
+            out.append("    }\n");
+        }
+
+        // read(Dyml)
+        out.append("\n    @Override\n    public ").append(typeName).append(" read(Dyml dyml) {\n")
+                .append("        ").append(typeName).append(" obj = new ").append(typeName).append("();\n")
+                .append("        for (Dyml child : dyml.getChildren()) {\n")
+                .append("            switch (child.key) {\n");
+        for (MappedField field : fields) {
+            out.append("                case \"").append(field.name).append("\":\n")
+                    .append("                    obj.").append(field.name).append(" = ").append(field.readFrom("child", true)).append(";\n")
+                    .append("                    break;\n");
+        }
+        out.append("            }\n        }\n        return obj;\n    }\n");
+
+        // write(Dyml, T)
+        out.append("\n    @Override\n    public void write(Dyml dyml, ").append(typeName).append(" obj) {\n");
+        for (MappedField field : fields) {
+            String value = "obj." + field.name;
+            String indent = "        ";
+            if (!field.isPrimitive()) {
+                out.append(indent).append("if (").append(value).append(" != null)\n");
+                indent += "    ";
+            }
+            if (field.kind == Kind.MAPPED)
+                out.append(indent).append(field.mapperField()).append(".write(dyml.put(\"").append(field.name).append("\"), ")
+                        .append(value).append(");\n");
+            else
+                out.append(indent).append("dyml.put(\"").append(field.name).append("\").value.set(")
+                        .append(field.toText(value)).append(");\n");
+        }
+        out.append("    }\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(mapperName, type).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * Writes all generated mappers of this compilation to the service file,
+     * together with the ones that were already listed (for example by an earlier incremental build).
+     */
+    private void writeServiceFile() throws IOException {
+        Filer filer = processingEnv.getFiler();
+        Set<String> mappers = new TreeSet<>(generatedMappers);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            for (String line : existing.getCharContent(true).toString().split("\n")) {
+                if (!line.trim().isEmpty()) mappers.add(line.trim());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Not existing yet
+        }
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openWriter()) {
+            for (String mapper : mappers) {
+                writer.write(mapper);
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * Same as {@link com.osiris.dyml.mapper.YamlMappers#getGeneratedMapperName(Class)}.
+     */
+    static String getMapperName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        String packageName = enclosing instanceof PackageElement ? ((PackageElement) enclosing).getQualifiedName().toString() : "";
+        return (packageName.isEmpty() ? "" : packageName + ".") + name + "_YamlMapper";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private enum Kind {
+        STRING, CHAR, BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, ENUM, MAPPED
+    }
+
+    /**
+     * A field of a {@link YamlMapped} class and how to convert it.
+     */
+    private static final class MappedField {
+        private final String name;
+        private final Kind kind;
+        private final TypeKind primitive;
+        /**
+         * The fields' type name for enums and mapped classes.
+         */
+        private final String typeName;
+        private final String mapperName;
+
+        private MappedField(String name, Kind kind, TypeKind primitive, String typeName, String mapperName) {
+            this.name = name;
+            this.kind = kind;
+            this.primitive = primitive;
+            this.typeName = typeName;
+            this.mapperName = mapperName;
+        }
+
+        static MappedField of(VariableElement field) {
+            String name = field.getSimpleName().toString();
+            TypeMirror type = field.asType();
+            if (type.getKind().isPrimitive()) {
+                return new MappedField(name, Kind.valueOf(type.getKind().name()), type.getKind(), null, null);
+            }
+            if (type.getKind() != TypeKind.DECLARED) return null;
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            String typeName = element.getQualifiedName().toString();
+            switch (typeName) {
+                case "java.lang.String":
+                    return new MappedField(name, Kind.STRING, null, null, null);
+                case "java.lang.Character":
+                    return new MappedField(name, Kind.CHAR, null, null, null);
+                case "java.lang.Boolean":
+                    return new MappedField(name, Kind.BOOLEAN, null, null, null);
+                case "java.lang.Byte":
+                    return new MappedField(name, Kind.BYTE, null, null, null);
+                case "java.lang.Short":
+                    return new MappedField(name, Kind.SHORT, null, null, null);
+                case "java.lang.Integer":
+                    return new MappedField(name, Kind.INT, null, null, null);
+                case "java.lang.Long":
+                    return new MappedField(name, Kind.LONG, null, null, null);
+                case "java.lang.Float":
+                    return new MappedField(name, Kind.FLOAT, null, null, null);
+                case "java.lang.Double":
+                    return new MappedField(name, Kind.DOUBLE, null, null, null);
+            }
+            if (element.getKind() == ElementKind.ENUM)
+                return new MappedField(name, Kind.ENUM, null, typeName, null);
+            if (element.getAnnotation(YamlMapped.class) != null)
+                return new MappedField(name, Kind.MAPPED, null, typeName, getMapperName(element));
+            return null;
+        }
+
+        boolean isPrimitive() {
+            return primitive != null;
+        }
+
+        String mapperField() {
+            return "MAPPER_" + name.toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Returns the expression that reads the value of this field from the provided {@link com.osiris.dyml.YamlSection}
+         * or {@link com.osiris.dyml.Dyml} variable.
+         */
+        String readFrom(String child, boolean isDyml) {
+            // Both have the same getters, but the ones of YamlSection return primitives
+            String smartString = isDyml ? child + ".value" : child + ".asSmartString()";
+            switch (kind) {
+                case STRING:
+                    return child + ".asString()";
+                case CHAR:
+                    if (isPrimitive()) return child + ".asString().charAt(0)";
+                    return "(" + child + ".asString() == null ? null : Character.valueOf(" + child + ".asString().charAt(0)))";
+                case ENUM:
+                    return "(" + child + ".asString() == null ? null : " + typeName + ".valueOf(" + child + ".asString()))";
+                case MAPPED:
+                    return mapperField() + ".read(" + child + ")";
+                default:
+                    String getter = kind.name().charAt(0) + kind.name().substring(1).toLowerCase(Locale.ROOT); // INT -> Int
+                    if (isPrimitive()) return smartString + ".as" + getter + "Value()";
+                    return smartString + ".as" + getter + "()";
+            }
+        }
+
+        /**
+         * Returns the expression that converts the provided value expression of this field to a String.
+         */
+        String toText(String value) {
+            switch (kind) {
+                case STRING:
+                    return value;
+                case ENUM:
+                    return value + ".name()";
+                default:
+                    return "String.valueOf(" + value + ")";
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link OutputStream} that writes to a temporary file in the same directory as the target file,
+ * and replaces the target file with it on {@link #commit()}. <br>
+ * The replacement is done via an atomic move (if supported by the file system),
+ * which means that readers either see the old or the new content, but never partial content. <br>
+ * If the stream gets closed without {@link #commit()} (for example because of an exception while writing),
+ * the temporary file gets deleted and the target file stays untouched. <br>
+ * Example:
+ * <pre>
+ * try (AtomicFileOutputStream out = new AtomicFileOutputStream(path, FsyncPolicy.DATA)) {
+ *     out.write(bytes);
+ *     out.commit();
+ * }
+ * </pre>
+ */
+public class AtomicFileOutputStream extends OutputStream {
+    private final Path target;
+    private final Path tempFile;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel channel;
+    private final byte[] singleByte = new byte[1];
+    private boolean closed = false;
+
+    /**
+     * @param target      the file to replace.
+     * @param fsyncPolicy what gets forced to the storage device before the move.
+     */
+    public AtomicFileOutputStream(Path target, FsyncPolicy fsyncPolicy) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy);
+        this.tempFile = Files.createTempFile(this.target.getParent(), "." + this.target.getFileName(), ".tmp");
+        try {
+            copyPermissions(this.target, tempFile);
+            this.channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * The temporary file gets created with restricted permissions, thus give it the permissions of the target file.
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) return;
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(from);
+            Files.setPosixFilePermissions(to, permissions);
+        } catch (UnsupportedOperationException ignored) {
+            // Not a posix file system
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed.");
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Forces the written content according to the {@link FsyncPolicy} and replaces the target file with it. <br>
+     * Closes this stream.
+     */
+    public void commit() throws IOException {
+        if (closed) throw new IOException("Stream closed.");
+        try {
+            if (fsyncPolicy == FsyncPolicy.DATA) channel.force(false);
+            else if (fsyncPolicy == FsyncPolicy.METADATA) channel.force(true);
+            channel.close();
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            closed = true;
+        } finally {
+            if (!closed) close();
+        }
+        if (fsyncPolicy == FsyncPolicy.METADATA) forceDirectory(target.getParent());
+    }
+
+    /**
+     * Forces the directory, so that the move gets written to the storage device.
+     * Not supported on all operating systems (for example Windows), which is why errors get ignored.
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            dirChannel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Returns the temporary file, that gets moved to the target on {@link #commit()}.
+     */
+    public Path getTempFile() {
+        return tempFile;
+    }
+
+    /**
+     * Closes this stream. If {@link #commit()} wasn't called, the temporary file gets deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registry of read/write locks for files, used to coordinate threads working with the same file. <br>
+ * Each file (identified by its normalized absolute path) gets its own {@link ReentrantReadWriteLock}, which means that: <br>
+ * - Multiple threads can hold the shared (read) lock of a file at the same time. <br>
+ * - Only one thread can hold the exclusive (write) lock of a file and only while no other thread holds the shared lock. <br>
+ * - Locks of different files don't block each other. <br>
+ * The locks are created on first usage and removed once no thread holds or waits for them anymore
+ * (except the ones returned by {@link #get(File)}), thus long-running processes don't collect a lock per file ever used. <br>
+ * Note that a shared lock cannot be upgraded to an exclusive lock, thus a thread holding the shared lock
+ * will wait forever when trying to get the exclusive lock. <br>
+ * Example:
+ * <pre>
+ * try (FileLocks.Handle lock = FileLocks.lockExclusive(file)) {
+ *     // Work with the file
+ * }
+ * </pre>
+ * <p>
+ * Cross-process locking: <br>
+ * The methods with the crossProcess parameter additionally lock the lock file (see {@link #getLockFile(File)})
+ * via {@link FileChannel#lock(long, long, boolean)}, so that other processes (for example other JVMs) are coordinated too.
+ * A separate lock file is used, because the file itself may get replaced by an atomic save. <br>
+ * The lock file stays locked by this process as long as at least one thread holds a cross-process lock of the file.
+ * Shared locks are shared with other processes too, thus multiple processes can read at the same time. <br>
+ * Note that these locks are advisory on most operating systems, which means that they only coordinate
+ * processes that use them. The lock file never gets deleted.
+ */
+public final class FileLocks {
+    private static final ConcurrentHashMap<String, PathLock> pathsAndLocks = new ConcurrentHashMap<>();
+    /**
+     * Returned for null files, does nothing when closed.
+     */
+    private static final Handle EMPTY_HANDLE = new Handle(null, null, false);
+    /**
+     * How long to wait between attempts to lock the lock file, when a timeout was provided.
+     */
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private FileLocks() {
+    }
+
+    private static String toKey(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * Returns the lock of the provided file and registers the current thread as its user,
+     * which must be undone via {@link #releasePathLock(PathLock)} once the lock was released (or not acquired).
+     */
+    private static PathLock acquirePathLock(File file) {
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        return pathsAndLocks.compute(path.toString(), (key, pathLock) -> {
+            if (pathLock == null) pathLock = new PathLock(key, getLockFile(path));
+            pathLock.users++;
+            return pathLock;
+        });
+    }
+
+    /**
+     * Removes the lock from the registry, if it has no users anymore and isn't pinned.
+     */
+    private static void releasePathLock(PathLock pathLock) {
+        pathsAndLocks.computeIfPresent(pathLock.key, (key, registered) -> {
+            if (registered != pathLock) return registered; // Not possible, since the lock is only removed without users
+            return --registered.users == 0 && !registered.isPinned ? null : registered;
+        });
+    }
+
+    /**
+     * Returns true if a lock of the provided file is registered. Used by tests.
+     */
+    static boolean isRegistered(File file) {
+        return pathsAndLocks.containsKey(toKey(file));
+    }
+
+    private static Path getLockFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".lock");
+    }
+
+    /**
+     * Returns the lock file used for cross-process locking, which is the provided file with an additional ".lock" extension.
+     */
+    public static File getLockFile(File file) {
+        return getLockFile(file.getAbsoluteFile().toPath().normalize()).toFile();
+    }
+
+    /**
+     * Returns the lock of the provided file, or creates it. <br>
+     * Since the returned lock may be used directly, it never gets removed from the registry.
+     * Prefer the other methods of this class, which don't have that limitation.
+     */
+    public static ReentrantReadWriteLock get(File file) {
+        return pathsAndLocks.compute(toKey(file), (key, pathLock) -> {
+            if (pathLock == null) pathLock = new PathLock(key, getLockFile(Paths.get(key)));
+            pathLock.isPinned = true;
+            return pathLock;
+        }).lock;
+    }
+
+    /**
+     * Returns true if the current thread holds the shared or exclusive lock of the provided file.
+     */
+    public static boolean isHeldByCurrentThread(File file) {
+        if (file == null) return false;
+        PathLock pathLock = pathsAndLocks.get(toKey(file));
+        if (pathLock == null) return false; // Held locks are always registered
+        ReentrantReadWriteLock lock = pathLock.lock;
+        return lock.isWriteLockedByCurrentThread() || lock.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Returns true if the current thread holds the shared lock of the provided file, but not the exclusive lock.
+     * In that case the current thread cannot acquire the exclusive lock, see {@link FileLocks}.
+     */
+    public static boolean isSharedHeldByCurrentThread(File file) {
+        if (file == null) return false;
+        PathLock pathLock = pathsAndLocks.get(toKey(file));
+        if (pathLock == null) return false;
+        ReentrantReadWriteLock lock = pathLock.lock;
+        return !lock.isWriteLockedByCurrentThread() && lock.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Waits until the shared lock of the provided file was acquired. <br>
+     * Returns a handle that releases the lock once closed. If the file is null, nothing gets locked.
+     */
+    public static Handle lockShared(File file) {
+        if (file == null) return EMPTY_HANDLE;
+        PathLock pathLock = acquirePathLock(file);
+        Lock lock = pathLock.lock.readLock();
+        lock.lock();
+        return new Handle(pathLock, lock, false);
+    }
+
+    /**
+     * Waits until the exclusive lock of the provided file was acquired. <br>
+     * Returns a handle that releases the lock once closed. If the file is null, nothing gets locked.
+     */
+    public static Handle lockExclusive(File file) {
+        if (file == null) return EMPTY_HANDLE;
+        PathLock pathLock = acquirePathLock(file);
+        Lock lock = pathLock.lock.writeLock();
+        lock.lock();
+        return new Handle(pathLock, lock, false);
+    }
+
+    /**
+     * Waits for the shared lock of the provided file, until the timeout is reached. <br>
+     * Returns a handle that releases the lock once closed, or null if the lock couldn't be acquired in time.
+     * If the file is null, nothing gets locked.
+     */
+    public static Handle tryLockShared(File file, long timeout, TimeUnit unit) throws InterruptedException {
+        if (file == null) return EMPTY_HANDLE;
+        PathLock pathLock = acquirePathLock(file);
+        return tryLock(pathLock, pathLock.lock.readLock(), timeout, unit);
+    }
+
+    /**
+     * Waits for the exclusive lock of the provided file, until the timeout is reached. <br>
+     * Returns a handle that releases the lock once closed, or null if the lock couldn't be acquired in time.
+     * If the file is null, nothing gets locked.
+     */
+    public static Handle tryLockExclusive(File file, long timeout, TimeUnit unit) throws InterruptedException {
+        if (file == null) return EMPTY_HANDLE;
+        PathLock pathLock = acquirePathLock(file);
+        return tryLock(pathLock, pathLock.lock.writeLock(), timeout, unit);
+    }
+
+    private static Handle tryLock(PathLock pathLock, Lock lock, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean isLocked = false;
+        try {
+            isLocked = lock.tryLock(timeout, unit);
+        } finally {
+            if (!isLocked) releasePathLock(pathLock);
+        }
+        return isLocked ? new Handle(pathLock, lock, false) : null;
+    }
+
+    /**
+     * Same as {@link #lockShared(File)}, but if crossProcess is true, also waits until
+     * the lock file is locked (shared) by this process. See {@link FileLocks} for details.
+     */
+    public static Handle lockShared(File file, boolean crossProcess) throws IOException {
+        if (!crossProcess || file == null) return lockShared(file);
+        PathLock pathLock = acquirePathLock(file);
+        Lock lock = pathLock.lock.readLock();
+        lock.lock();
+        return pathLock.acquireProcessLock(lock, true, -1);
+    }
+
+    /**
+     * Same as {@link #lockExclusive(File)}, but if crossProcess is true, also waits until
+     * the lock file is locked (exclusive) by this process. See {@link FileLocks} for details.
+     */
+    public static Handle lockExclusive(File file, boolean crossProcess) throws IOException {
+        if (!crossProcess || file == null) return lockExclusive(file);
+        PathLock pathLock = acquirePathLock(file);
+        Lock lock = pathLock.lock.writeLock();
+        lock.lock();
+        return pathLock.acquireProcessLock(lock, false, -1);
+    }
+
+    /**
+     * Same as {@link #tryLockShared(File, long, TimeUnit)}, but if crossProcess is true, also waits until
+     * the lock file is locked (shared) by this process. The timeout is for both locks together.
+     */
+    public static Handle tryLockShared(File file, boolean crossProcess, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        if (!crossProcess || file == null) return tryLockShared(file, timeout, unit);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Handle handle = tryLockShared(file, timeout, unit);
+        if (handle == null) return null;
+        return handle.pathLock.acquireProcessLock(handle.lock, true, deadline);
+    }
+
+    /**
+     * Same as {@link #tryLockExclusive(File, long, TimeUnit)}, but if crossProcess is true, also waits until
+     * the lock file is locked (exclusive) by this process. The timeout is for both locks together.
+     */
+    public static Handle tryLockExclusive(File file, boolean crossProcess, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        if (!crossProcess || file == null) return tryLockExclusive(file, timeout, unit);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Handle handle = tryLockExclusive(file, timeout, unit);
+        if (handle == null) return null;
+        return handle.pathLock.acquireProcessLock(handle.lock, false, deadline);
+    }
+
+    /**
+     * Releases the lock of the provided file held by the current thread.
+     * If the current thread holds the exclusive lock, it gets released, otherwise the shared lock. <br>
+     * If the file is null or the current thread doesn't hold a lock of the file, nothing happens.
+     */
+    public static void unlock(File file) {
+        unlock(file, false);
+    }
+
+    /**
+     * Same as {@link #unlock(File)}. If crossProcess is true, the lock must have been acquired with crossProcess
+     * too, and the lock file gets released if no other thread of this process needs it anymore.
+     */
+    public static void unlock(File file, boolean crossProcess) {
+        if (file == null) return;
+        PathLock pathLock = pathsAndLocks.get(toKey(file));
+        if (pathLock == null) return; // Held locks are always registered
+        ReentrantReadWriteLock lock = pathLock.lock;
+        if (lock.isWriteLockedByCurrentThread())
+            pathLock.release(lock.writeLock(), crossProcess);
+        else if (lock.getReadHoldCount() > 0)
+            pathLock.release(lock.readLock(), crossProcess);
+    }
+
+    /**
+     * The locks of a single file.
+     */
+    private static final class PathLock {
+        private final String key;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Path lockFile;
+        // Guarded by the registry (only modified inside its compute methods):
+        /**
+         * Amount of held and requested locks of threads, see {@link #acquirePathLock(File)}.
+         */
+        private int users;
+        /**
+         * True if the lock was returned by {@link #get(File)}, thus must never be removed from the registry.
+         */
+        private boolean isPinned;
+        // Guarded by this:
+        private FileChannel channel;
+        private java.nio.channels.FileLock processLock;
+        /**
+         * Amount of cross-process locks held by threads of this process.
+         */
+        private int processHolders;
+
+        private PathLock(String key, Path lockFile) {
+            this.key = key;
+            this.lockFile = lockFile;
+        }
+
+        /**
+         * Must be called while holding the provided thread lock, which gets released (like the user) on failure. <br>
+         * If the lock file is already locked by this process, only the holders get increased.
+         * That's fine, since all threads holding the lock file also hold the thread lock:
+         * While the exclusive thread lock is held, the lock file can only be locked by the current thread.
+         * While the shared thread lock is held, the lock file can only be locked shared
+         * (or exclusive, by the current thread before it acquired the shared lock).
+         *
+         * @param deadline {@link System#nanoTime()} at which to give up, or -1 to wait forever.
+         * @return the handle, or null if the deadline was reached.
+         */
+        private Handle acquireProcessLock(Lock threadLock, boolean shared, long deadline) throws IOException {
+            boolean success = false;
+            try {
+                synchronized (this) {
+                    if (processLock == null) {
+                        if (channel == null) {
+                            if (lockFile.getParent() != null) lockFile.getParent().toFile().mkdirs();
+                            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                        }
+                        if (deadline == -1)
+                            processLock = channel.lock(0, Long.MAX_VALUE, shared);
+                        else
+                            while ((processLock = channel.tryLock(0, Long.MAX_VALUE, shared)) == null) {
+                                long remaining = deadline - System.nanoTime();
+                                if (remaining <= 0) return null;
+                                try {
+                                    TimeUnit.NANOSECONDS.sleep(Math.min(remaining, RETRY_NANOS));
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                    throw new IOException("Interrupted while waiting for the lock file '" + lockFile + "'.", e);
+                                }
+                            }
+                    }
+                    processHolders++;
+                    success = true;
+                    return new Handle(this, threadLock, true);
+                }
+            } finally {
+                if (!success) {
+                    synchronized (this) {
+                        if (processHolders == 0) closeChannel();
+                    }
+                    threadLock.unlock();
+                    releasePathLock(this);
+                }
+            }
+        }
+
+        /**
+         * Releases the lock file (if not needed anymore) before the thread lock, so that the next thread
+         * acquiring the thread lock doesn't see the lock file as still locked by this process.
+         * Also releases the user, see {@link #acquirePathLock(File)}.
+         */
+        private void release(Lock threadLock, boolean crossProcess) {
+            try {
+                if (crossProcess) {
+                    synchronized (this) {
+                        if (processHolders > 0 && --processHolders == 0) {
+                            try {
+                                processLock.release();
+                            } catch (IOException ignored) {
+                                // Gets released anyways when the channel gets closed
+                            }
+                            processLock = null;
+                            closeChannel();
+                        }
+                    }
+                }
+            } finally {
+                threadLock.unlock();
+                releasePathLock(this);
+            }
+        }
+
+        private void closeChannel() {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Releases the lock once closed. Closing it multiple times has no effect.
+     */
+    public static final class Handle implements AutoCloseable {
+        private final PathLock pathLock;
+        private final boolean crossProcess;
+        private Lock lock;
+
+        private Handle(PathLock pathLock, Lock lock, boolean crossProcess) {
+            this.pathLock = pathLock;
+            this.lock = lock;
+            this.crossProcess = crossProcess;
+        }
+
+        @Override
+        public void close() {
+            Lock lock = this.lock;
+            if (lock != null) {
+                this.lock = null;
+                pathLock.release(lock, crossProcess);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable version stamp of a file, consisting of its last modified time, size and CRC32 checksum. <br>
+ * Used to detect if a file was changed by someone else, see {@link #matches(Path)}. <br>
+ * The checksum can be calculated while reading/writing the file via {@link ChecksumInputStream}
+ * and {@link ChecksumOutputStream}, so that the file doesn't have to be read again.
+ */
+public final class FileVersion {
+    private final long lastModified;
+    private final long size;
+    private final long checksum;
+
+    public FileVersion(long lastModified, long size, long checksum) {
+        this.lastModified = lastModified;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Reads the provided file and returns its current version.
+     */
+    public static FileVersion of(Path path) throws IOException {
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        CRC32 crc = new CRC32();
+        long size = checksum(path, crc);
+        return new FileVersion(lastModified, size, crc.getValue());
+    }
+
+    private static long checksum(Path path, CRC32 crc) throws IOException {
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(65536);
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns true if the provided file still has the content of this version. <br>
+     * Fails fast if the size differs, otherwise compares the checksum, which means that the file gets read. <br>
+     * The last modified time is ignored, since it changes when the same content gets written again
+     * and may not change for fast writes on file systems with a low time resolution.
+     */
+    public boolean matches(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) != size) return false;
+        CRC32 crc = new CRC32();
+        return checksum(path, crc) == size && crc.getValue() == checksum;
+    }
+
+    /**
+     * Returns true if both versions have the same size and checksum, aka the same content.
+     */
+    public boolean isSameContent(FileVersion other) {
+        return other != null && size == other.size && checksum == other.checksum;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileVersion)) return false;
+        FileVersion that = (FileVersion) o;
+        return lastModified == that.lastModified && size == that.size && checksum == that.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(lastModified) + Long.hashCode(size)) + Long.hashCode(checksum);
+    }
+
+    @Override
+    public String toString() {
+        return "FileVersion{lastModified=" + lastModified + ", size=" + size + ", checksum=" + Long.toHexString(checksum) + "}";
+    }
+
+    /**
+     * Calculates the size and checksum of the read bytes.
+     */
+    public static final class ChecksumInputStream extends FilterInputStream {
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        public ChecksumInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                crc.update(b);
+                size++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                crc.update(b, off, read);
+                size += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            return 0; // Skipped bytes would be missing in the checksum
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Returns the version of the provided file, based on the bytes read so far.
+         * Must be called after the whole file was read.
+         */
+        public FileVersion toVersion(Path path) throws IOException {
+            return new FileVersion(Files.getLastModifiedTime(path).toMillis(), size, crc.getValue());
+        }
+    }
+
+    /**
+     * Calculates the size and checksum of the written bytes.
+     */
+    public static final class ChecksumOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        public ChecksumOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            size += len;
+        }
+
+        /**
+         * Returns the version of the provided file, based on the bytes written so far.
+         * Must be called after the file was closed.
+         */
+        public FileVersion toVersion(Path path) throws IOException {
+            return new FileVersion(Files.getLastModifiedTime(path).toMillis(), size, crc.getValue());
+        }
+    }
+}
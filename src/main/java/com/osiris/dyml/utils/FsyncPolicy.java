@@ -0,0 +1,36 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.utils;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Defines how durable an atomic save is, aka what gets forced to the storage device,
+ * before the temporary file replaces the target file. See {@link AtomicFileOutputStream}.
+ */
+public enum FsyncPolicy {
+    /**
+     * Nothing gets forced. The operating system decides when the content gets written to the storage device. <br>
+     * Readers never see partial content, but after a power loss the file may be empty or contain old content.
+     */
+    NONE,
+    /**
+     * The content of the temporary file gets forced via {@link FileChannel#force(boolean)} (without metadata),
+     * before it gets moved. <br>
+     * After a power loss the file contains either the old or the new content.
+     */
+    DATA,
+    /**
+     * The content and metadata of the temporary file get forced via {@link FileChannel#force(boolean)},
+     * and after the move the parent directory gets forced too (if supported by the operating system),
+     * so that the move itself is durable. <br>
+     * Slowest, but after a successful save the new content survives a power loss.
+     */
+    METADATA
+}
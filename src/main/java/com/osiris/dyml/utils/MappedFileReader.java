@@ -0,0 +1,198 @@
+/*
+ *  Copyright Osiris Team
+ *  All rights reserved.
+ *
+ *  This software is licensed work.
+ *  Please consult the file "LICENSE" for details.
+ */
+
+package com.osiris.dyml.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * {@link Reader} that maps the file into memory via {@link FileChannel#map(FileChannel.MapMode, long, long)}
+ * and decodes its chars directly from the mapped buffer. <br>
+ * For UTF-8, US-ASCII and ISO-8859-1 files, ASCII bytes get converted to chars directly,
+ * without going through a {@link CharsetDecoder}. Only non-ASCII bytes get decoded by the {@link CharsetDecoder}. <br>
+ * Files larger than 1GB are mapped in multiple regions. <br>
+ * The checksum of the mapped bytes gets calculated while reading, see {@link #toVersion()}. <br>
+ * Note that Java 8 provides no way of unmapping a buffer, which means that the mapped region stays
+ * in memory until it gets garbage collected, even if this reader was closed.
+ * On Windows this also means that the file cannot be deleted or truncated until then.
+ */
+public class MappedFileReader extends Reader {
+    /**
+     * Maximum size of a single mapped region.
+     */
+    private static final long MAX_REGION_SIZE = 1L << 30;
+    /**
+     * Maximum count of bytes of a single char in any charset supported by this reader.
+     * If less bytes than that are left in the current region, the next region gets mapped.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 8;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long lastModified;
+    private final CRC32 crc = new CRC32();
+    /**
+     * The position in the file up to which the bytes were added to the {@link #crc}.
+     */
+    private long checksummedEnd = 0;
+    private final CharsetDecoder decoder;
+    /**
+     * 0 = no fast path, 1 = ASCII only (UTF-8, US-ASCII), 2 = every byte is a char (ISO-8859-1).
+     */
+    private final int fastPath;
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private boolean endOfInput = false;
+    private boolean flushed = false;
+    private boolean closed = false;
+    /**
+     * Used when the callers buffer only has space for one char, but the next char is a surrogate pair.
+     */
+    private final CharBuffer pairBuffer = CharBuffer.allocate(2);
+    private boolean hasLeftoverChar = false;
+    private char leftoverChar;
+
+    public MappedFileReader(Path path, Charset charset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.lastModified = Files.getLastModifiedTime(path).toMillis();
+            this.fileSize = channel.size();
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII))
+                fastPath = 1;
+            else if (charset.equals(StandardCharsets.ISO_8859_1))
+                fastPath = 2;
+            else
+                fastPath = 0;
+            mapRegion(0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void mapRegion(long start) throws IOException {
+        long size = Math.min(MAX_REGION_SIZE, fileSize - start);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        regionStart = start;
+        endOfInput = start + size >= fileSize;
+        if (checksummedEnd < start + size) { // Regions overlap, since the remaining bytes of the last region get mapped again
+            ByteBuffer bytes = region.duplicate();
+            bytes.position((int) (checksummedEnd - start));
+            crc.update(bytes);
+            checksummedEnd = start + size;
+        }
+    }
+
+    /**
+     * Returns the version of the file, based on the mapped bytes. Calculated without reading the file again.
+     */
+    public FileVersion toVersion() {
+        return new FileVersion(lastModified, fileSize, crc.getValue());
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (closed) throw new IOException("Reader closed.");
+        if (off < 0 || len < 0 || len > cbuf.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        int count = 0;
+        if (hasLeftoverChar) {
+            cbuf[off] = leftoverChar;
+            hasLeftoverChar = false;
+            count++;
+        }
+        while (count < len) {
+            if (!endOfInput && region.remaining() < MAX_BYTES_PER_CHAR)
+                mapRegion(regionStart + region.position()); // Maps the remaining bytes too, so no char gets split
+
+            if (!region.hasRemaining()) { // End of file
+                if (!flushed) {
+                    CharBuffer out = CharBuffer.wrap(cbuf, off + count, len - count);
+                    decoder.decode(region, out, true);
+                    CoderResult result = decoder.flush(out);
+                    count = out.position() - off;
+                    if (result.isUnderflow()) flushed = true;
+                }
+                break;
+            }
+
+            // Fast path, convert ASCII bytes to chars directly
+            if (fastPath != 0) {
+                int pos = region.position();
+                int max = Math.min(region.limit(), pos + (len - count));
+                if (fastPath == 2) {
+                    while (pos < max) cbuf[off + count++] = (char) (region.get(pos++) & 0xFF);
+                } else {
+                    byte b;
+                    while (pos < max && (b = region.get(pos)) >= 0) {
+                        cbuf[off + count++] = (char) b;
+                        pos++;
+                    }
+                }
+                region.position(pos);
+                if (count == len || !region.hasRemaining() || fastPath == 2) continue;
+            }
+
+            // Decode the next chars with the decoder
+            CharBuffer out = CharBuffer.wrap(cbuf, off + count, len - count);
+            int limit = region.limit();
+            if (fastPath != 0) {
+                // Only decode the non-ASCII bytes, to return to the fast path as soon as possible.
+                // In UTF-8 all bytes of a multibyte char are non-ASCII, thus this doesn't split chars,
+                // except at the end of a region, which is why the last bytes are left for the next region.
+                int end = region.position();
+                while (end < limit && region.get(end) < 0) end++;
+                if (end == limit && !endOfInput) end = limit - MAX_BYTES_PER_CHAR;
+                if (end > region.position()) region.limit(end);
+            }
+            // Once the decoder was told that this is the end of the input, this must be the same in the following calls
+            boolean isEndOfInput = endOfInput && region.limit() == fileSize - regionStart;
+            CoderResult result = decoder.decode(region, out, isEndOfInput);
+            if (out.position() == off + count && result.isUnderflow() && region.hasRemaining() && region.limit() != limit) {
+                // Malformed char followed by an ASCII byte, let the decoder replace it
+                region.limit(limit);
+                result = decoder.decode(region, out, false);
+            }
+            if (out.position() == off + count && result.isOverflow()) {
+                // Only space for one char left, but the next char is a surrogate pair
+                pairBuffer.clear();
+                decoder.decode(region, pairBuffer, isEndOfInput);
+                pairBuffer.flip();
+                if (pairBuffer.hasRemaining()) out.put(pairBuffer.get());
+                if (pairBuffer.hasRemaining()) {
+                    leftoverChar = pairBuffer.get();
+                    hasLeftoverChar = true;
+                }
+            }
+            region.limit(limit);
+            count = out.position() - off;
+            if (hasLeftoverChar) break;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        region = null;
+        channel.close();
+    }
+}
@@ -98,7 +98,7 @@ public class UtilsYaml {
      * formatted as {@link String}.
      */
     public String getUnifiedModulesInformationAsString() {
-        return "UNIFIED modules from '" + yaml.getSource() + "':" + n + getModulesInformationFromListAsString(yaml.createUnifiedList(yaml.getAllInEdit(), yaml.getAllLoaded()));
+        return "UNIFIED modules from '" + yaml.getSource() + "':" + n + getModulesInformationFromListAsString(yaml.getAll());
     }
 
     /**
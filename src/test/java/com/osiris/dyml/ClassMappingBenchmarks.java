@@ -0,0 +1,137 @@
+package com.osiris.dyml;
+
+import com.osiris.dyml.utils.UtilsTimeStopper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the two ways a {@link ClassMapping} can write the fields of an object.
+ * Lives in this package, since {@link ClassMapping} is package-private.
+ */
+class ClassMappingBenchmarks {
+
+    @Test
+    void compareFieldBinding() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            sb.append("server").append(i).append(":\n")
+                    .append("  name: server").append(i).append("\n")
+                    .append("  port: ").append(25565 + i).append("\n")
+                    .append("  timeout: ").append(30000L * i).append("\n")
+                    .append("  enabled: ").append(i % 2 == 0).append("\n")
+                    .append("  ratio: ").append(i / 3.0).append("\n");
+        }
+        Yaml yaml = new Yaml(sb.toString(), "");
+        yaml.load();
+        List<YamlSection> sections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sections.add(yaml.get("server" + i));
+        }
+        ClassMapping mapping = ClassMapping.of(ServerConfig.class);
+
+        // Both paths must produce the same objects
+        for (YamlSection section : sections) {
+            ServerConfig viaHandles = bindViaHandles(mapping, section);
+            ServerConfig viaReflection = bindViaReflection(mapping, section);
+            assertEquals(viaReflection.name, viaHandles.name);
+            assertEquals(viaReflection.port, viaHandles.port);
+            assertEquals(viaReflection.timeout, viaHandles.timeout);
+            assertEquals(viaReflection.enabled, viaHandles.enabled);
+            assertEquals(viaReflection.ratio, viaHandles.ratio);
+        }
+
+        System.out.println("Binding the fields of " + count + " sections via the MethodHandle binders and via the cached Fields (Field.set()):");
+        List<Double> resultsHandles = new ArrayList<>();
+        List<Double> resultsReflection = new ArrayList<>();
+        UtilsTimeStopper timer = new UtilsTimeStopper();
+        long checksum = 0;
+        for (int i = 0; i < 10; i++) {
+            timer.start();
+            for (YamlSection section : sections) {
+                checksum += bindViaHandles(mapping, section).port;
+            }
+            timer.stop();
+            resultsHandles.add(timer.getMillis());
+            String msHandles = timer.getFormattedMillis();
+
+            timer.start();
+            for (YamlSection section : sections) {
+                checksum += bindViaReflection(mapping, section).port;
+            }
+            timer.stop();
+            resultsReflection.add(timer.getMillis());
+            System.out.println("[" + i + "] [HANDLES: " + msHandles + "ms] [FIELD.SET: " + timer.getFormattedMillis() + "ms]");
+        }
+        System.out.println("Average speeds in milliseconds (first run was excluded):");
+        System.out.println("Handles: " + calcAverage(resultsHandles));
+        System.out.println("Field.set: " + calcAverage(resultsReflection));
+        System.out.println("Checksum: " + checksum);
+    }
+
+    public static class ServerConfig {
+        public String name;
+        public int port;
+        public long timeout;
+        public boolean enabled;
+        public double ratio;
+    }
+
+    /**
+     * Like {@link YamlSection#as(Class)}, via {@link ClassMapping.FieldMapping#bind(Object, YamlSection)}.
+     */
+    private static ServerConfig bindViaHandles(ClassMapping mapping, YamlSection section) throws Exception {
+        ServerConfig instance = (ServerConfig) mapping.newInstance();
+        for (ClassMapping.FieldMapping fieldMapping : mapping.getFields(false)) {
+            YamlSection childSection = section.getChild(fieldMapping.name);
+            if (childSection != null) fieldMapping.bind(instance, childSection);
+        }
+        return instance;
+    }
+
+    /**
+     * Like {@link #bindViaHandles(ClassMapping, YamlSection)}, but sets the cached {@link ClassMapping.FieldMapping#field}
+     * via reflection, which is what {@link ClassMapping.FieldMapping#bind(Object, YamlSection)} falls back to.
+     */
+    private static ServerConfig bindViaReflection(ClassMapping mapping, YamlSection section) throws Exception {
+        ServerConfig instance = (ServerConfig) mapping.newInstance();
+        for (ClassMapping.FieldMapping fieldMapping : mapping.getFields(false)) {
+            YamlSection childSection = section.getChild(fieldMapping.name);
+            if (childSection == null) continue;
+            switch (fieldMapping.converter) {
+                case ClassMapping.FieldMapping.STRING:
+                    fieldMapping.field.set(instance, childSection.asString());
+                    break;
+                case ClassMapping.FieldMapping.BOOLEAN:
+                    fieldMapping.field.set(instance, childSection.asBoolean());
+                    break;
+                case ClassMapping.FieldMapping.INT:
+                    fieldMapping.field.set(instance, childSection.asInt());
+                    break;
+                case ClassMapping.FieldMapping.LONG:
+                    fieldMapping.field.set(instance, childSection.asLong());
+                    break;
+                case ClassMapping.FieldMapping.DOUBLE:
+                    fieldMapping.field.set(instance, childSection.asDouble());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not used by " + ServerConfig.class);
+            }
+        }
+        return instance;
+    }
+
+    private Double calcAverage(List<Double> values) {
+        Double total = 0.0;
+        values.remove(0);
+        for (Double val :
+                values) {
+            total = total + val;
+        }
+        return total / values.size();
+    }
+}
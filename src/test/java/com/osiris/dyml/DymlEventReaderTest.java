@@ -0,0 +1,51 @@
+package com.osiris.dyml;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DymlEventReaderTest {
+
+    @Test
+    void sameAsLoaded() throws Exception {
+        String content = "" +
+                " comment\n" +
+                "key val\n" +
+                "  c1 val\n" +
+                "   comment c2\n" +
+                "  c2 \n" +
+                "    g1 hello there\n" +
+                "other value\n";
+        List<String> expected = new ArrayList<>();
+        addEvents(new Dyml(content).children, expected);
+
+        List<String> actual = new ArrayList<>();
+        DymlEventReader reader = new DymlEventReader(new StringReader(content));
+        while (reader.hasNext()) {
+            DYEvent event = reader.next();
+            if (event == DYEvent.START_SECTION || event == DYEvent.END_SECTION)
+                actual.add(event + " " + reader.getKeys());
+            else if (event == DYEvent.VALUE)
+                actual.add("VALUE " + reader.getKey() + " " + reader.getValue());
+            else
+                actual.add("COMMENT " + reader.getKey() + " " + reader.getComment());
+        }
+        assertEquals(expected, actual);
+    }
+
+    private void addEvents(List<Dyml> sections, List<String> events) {
+        for (Dyml section : sections) {
+            List<String> keys = new ArrayList<>();
+            for (Dyml s = section; s.parent != null; s = s.parent) keys.add(0, s.key);
+            events.add("START_SECTION " + keys);
+            for (String comment : section.comments) events.add("COMMENT " + section.key + " " + comment);
+            if (section.value.asString() != null) events.add("VALUE " + section.key + " " + section.value.asString());
+            addEvents(section.children, events);
+            events.add("END_SECTION " + keys);
+        }
+    }
+}
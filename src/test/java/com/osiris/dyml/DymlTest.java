@@ -3,9 +3,11 @@ package com.osiris.dyml;
 import com.osiris.dyml.exceptions.IllegalListException;
 import com.osiris.dyml.exceptions.YamlReaderException;
 import com.osiris.dyml.exceptions.YamlWriterException;
+import com.osiris.dyml.utils.FsyncPolicy;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.io.IOException;
 
 import static com.osiris.dyml.U.N;
@@ -87,4 +89,34 @@ class DymlTest {
                 "  c1 val" + N +
                 "  c2 val" + N, dyml.saveToText());
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadMemoryMapped() throws YamlReaderException, IOException, IllegalListException, YamlWriterException {
+        File file = File.createTempFile("dyml-mmap-test", ".dyml");
+        try {
+            Dyml dyml = new Dyml("key val\n" +
+                    "  c1 val\n" +
+                    " comment\n" +
+                    "  c2 üö\n");
+            dyml.saveToFile(file);
+            Dyml mapped = new Dyml().load(file, true);
+            Assertions.assertEquals(new Dyml().load(file).saveToText(), mapped.saveToText());
+            Assertions.assertEquals("üö", mapped.get("key", "c2").asString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void saveAtomic() throws YamlReaderException, IOException, IllegalListException, YamlWriterException {
+        File file = File.createTempFile("dyml-atomic-test", ".dyml");
+        try {
+            Dyml dyml = new Dyml("key val\n" +
+                    "  c1 val\n");
+            dyml.saveToFile(file, FsyncPolicy.DATA);
+            Assertions.assertEquals(dyml.saveToText(), new Dyml().load(file).saveToText());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.osiris.dyml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmartStringTest {
+
+    @Test
+    void cachedTypedValues() {
+        SmartString value = new SmartString("123456");
+        Integer first = value.asInt();
+        assertSame(first, value.asInt()); // Not parsed again
+        assertEquals(123456, value.asIntValue());
+        assertEquals(123456L, value.asLongValue());
+        assertEquals(123456.0, value.asDoubleValue());
+        assertEquals(123456, value.asIntValue()); // Switching types still works
+
+        value.set("42");
+        assertEquals(42, value.asIntValue());
+        value.set(7.5);
+        assertEquals(7.5, value.asDoubleValue());
+        assertThrows(NumberFormatException.class, value::asInt);
+        Long boxed = 5000L;
+        value.set(boxed);
+        assertSame(boxed, value.asLong());
+        value.set(true);
+        assertTrue(value.asBooleanValue());
+
+        SmartString nullValue = new SmartString(null);
+        assertNull(nullValue.asInt());
+        assertThrows(NullPointerException.class, nullValue::asIntValue);
+    }
+
+    @Test
+    void typeChecks() {
+        assertEquals(ValueType.NULL, new SmartString(null).detectType());
+        assertEquals(ValueType.BOOLEAN, new SmartString("TRUE").detectType());
+        assertEquals(ValueType.BYTE, new SmartString("-128").detectType());
+        assertEquals(ValueType.SHORT, new SmartString("128").detectType());
+        assertEquals(ValueType.INT, new SmartString("+40000").detectType());
+        assertEquals(ValueType.LONG, new SmartString("-9223372036854775808").detectType());
+        assertEquals(ValueType.DOUBLE, new SmartString("9223372036854775808").detectType());
+        assertEquals(ValueType.DOUBLE, new SmartString(" 1.5e-3f ").detectType());
+        assertEquals(ValueType.DOUBLE, new SmartString("0x1.8p1").detectType());
+        assertEquals(ValueType.STRING, new SmartString("1.5.1").detectType());
+        assertEquals(ValueType.STRING, new SmartString("").detectType());
+        assertEquals(ValueType.STRING, new SmartString("-").detectType());
+
+        // Must match what the parse methods accept
+        String[] values = {"0", "-0", "+1", "127", "128", "-129", "32768", "2147483648", "9223372036854775807",
+                "99999999999999999999", "1.", ".5", ".", "1e", "1e+5", "NaN", "-Infinity", "0x10", "0x1p-2d",
+                "1_000", "\u0661\u0662", " 5", "5 ", "true", "yes", null};
+        for (String s : values) {
+            SmartString value = new SmartString(s);
+            assertEquals(parses(() -> Byte.parseByte(s)), value.isByte(), s);
+            assertEquals(parses(() -> Short.parseShort(s)), value.isShort(), s);
+            assertEquals(parses(() -> Integer.parseInt(s)), value.isInt(), s);
+            assertEquals(parses(() -> Long.parseLong(s)), value.isLong(), s);
+            assertEquals(parses(() -> Float.parseFloat(s)), value.isFloat(), s);
+            assertEquals(parses(() -> Double.parseDouble(s)), value.isDouble(), s);
+            assertEquals(s != null && (s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false")), value.isBoolean(), s);
+        }
+    }
+
+    @Test
+    void splitViews() {
+        SmartString value = new SmartString("[1, 2, 3]");
+        SplitView view = value.split();
+        assertSame(view, value.split()); // Cached
+        assertEquals(3, view.size());
+        assertEquals(" 2", view.get(1));
+        assertEquals(2, view.getInt(1));
+        assertArrayEquals(new int[]{1, 2, 3}, value.asIntArray());
+        assertArrayEquals(new long[]{1, 2, 3}, value.asLongArray());
+        assertArrayEquals(new double[]{1, 2, 3}, value.asDoubleArray());
+        value.asIntArray()[0] = 5; // Returned arrays are copies
+        assertEquals(1, view.getInt(0));
+        assertThrows(UnsupportedOperationException.class, () -> view.set(0, "5"));
+
+        value.set("4,5");
+        assertNotSame(view, value.split());
+        assertArrayEquals(new int[]{4, 5}, value.asIntArray());
+        assertNull(new SmartString(null).split());
+        assertNull(new SmartString(null).asIntArray());
+
+        // Must match String.split()
+        String[] values = {"", ",", ",,", "a", "a,", "a,,", ",a", "a,b", "a,,b,", " a b ", "a  b", "[]", "[a,b]", "[a, b,]"};
+        for (String s : values) {
+            SmartString smart = new SmartString(s);
+            assertArrayEquals(s.split(","), smart.asArraySplitByColons(), s);
+            assertArrayEquals(s.split(" "), smart.asArraySplitBySpaces(), s);
+            assertEquals(Arrays.asList(s.split(" ")), smart.splitBySpaces(), s);
+            String inner = s.startsWith("[") && s.endsWith("]") ? s.substring(1, s.length() - 1) : s;
+            assertArrayEquals(inner.split(","), smart.asArray(), s);
+        }
+    }
+
+    private static boolean parses(Runnable parse) {
+        try {
+            parse.run();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
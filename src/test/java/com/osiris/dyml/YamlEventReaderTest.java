@@ -0,0 +1,84 @@
+package com.osiris.dyml;
+
+import com.osiris.dyml.exceptions.IllegalListException;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlEventReaderTest {
+
+    @Test
+    void events() throws Exception {
+        YamlEventReader reader = new YamlEventReader(new StringReader("" +
+                "# Top comment\n" +
+                "a: 1 # Side comment\n" +
+                "  b:\n" +
+                "    - x\n" +
+                "    - \"y\"\n" +
+                "c: Hello\n" +
+                "There!\n"));
+        List<String> events = new ArrayList<>();
+        while (reader.hasNext()) {
+            DYEvent event = reader.next();
+            events.add(event + " " + reader.getKeys() + " " + reader.getDepth()
+                    + (event == DYEvent.VALUE ? " " + reader.getValue() : "")
+                    + (event == DYEvent.COMMENT ? " " + reader.getComment() : ""));
+        }
+        assertEquals(Arrays.asList(
+                "START_SECTION [a] 1",
+                "COMMENT [a] 1 Top comment",
+                "VALUE [a] 1 1",
+                "COMMENT [a] 1 Side comment",
+                "START_SECTION [a, b] 2",
+                "VALUE [a, b] 2 x",
+                "VALUE [a, b] 2 y",
+                "END_SECTION [a, b] 2",
+                "END_SECTION [a] 1",
+                "START_SECTION [c] 1",
+                "VALUE [c] 1 Hello\nThere!",
+                "END_SECTION [c] 1"), events);
+    }
+
+    @Test
+    void sameAsLoaded() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/features.yml");
+        Yaml yaml = new Yaml(file);
+        yaml.load();
+
+        Map<List<String>, List<String>> values = new LinkedHashMap<>();
+        Map<List<String>, List<String>> comments = new LinkedHashMap<>();
+        try (YamlEventReader reader = new YamlEventReader(file)) {
+            while (reader.hasNext()) {
+                DYEvent event = reader.next();
+                if (event == DYEvent.START_SECTION) {
+                    values.put(reader.getKeys(), new ArrayList<>());
+                    comments.put(reader.getKeys(), new ArrayList<>());
+                } else if (event == DYEvent.VALUE)
+                    values.get(reader.getKeys()).add(reader.getValue());
+                else if (event == DYEvent.COMMENT)
+                    comments.get(reader.getKeys()).add(reader.getComment());
+            }
+        }
+
+        assertEquals(yaml.getAllLoaded().size(), values.size());
+        for (YamlSection section : yaml.getAllLoaded()) {
+            List<String> expectedValues = new ArrayList<>();
+            for (SmartString value : section.getValues()) expectedValues.add(value.asString());
+            assertEquals(expectedValues, values.get(section.getKeys()), section.getKeys().toString());
+            assertEquals(section.getComments().size() + section.getSideComments().size(),
+                    comments.get(section.getKeys()).size(), section.getKeys().toString());
+        }
+    }
+
+    @Test
+    void illegalList() {
+        assertThrows(IllegalListException.class, () -> {
+            YamlEventReader reader = new YamlEventReader(new StringReader("- value"));
+            while (reader.hasNext()) reader.next();
+        });
+    }
+}
@@ -17,8 +17,12 @@ import com.osiris.dyml.utils.UtilsTimeStopper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
 class YamlReaderTest {
 
@@ -84,4 +88,35 @@ class YamlReaderTest {
         System.out.println(yaml1.outString);
         Assertions.assertTrue(yaml1.outString.contains("#value # comment")); // assertTrue bc of line sperators
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLineScanner() throws IOException {
+        String content = "key: value\r\n  child: very long value that does not fit into the buffer\r\rlast\n\n";
+        List<String> expected = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(content));
+        String line;
+        while ((line = reader.readLine()) != null)
+            expected.add(line);
+
+        List<String> actual = new ArrayList<>();
+        LineScanner scanner = new LineScanner(new StringReader(content), 4); // Small buffer to test growing and compacting
+        while (scanner.nextLine())
+            actual.add(new String(scanner.getBuffer(), scanner.getLineStart(), scanner.getLineEnd() - scanner.getLineStart()));
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    void testTokenize() {
+        DYLine line = new DYLine("  key: value # comment # more", 1);
+        YamlReader.tokenize(line);
+        Assertions.assertEquals(2, line.getCountSpaces());
+        Assertions.assertEquals("key", line.getRawKey());
+        Assertions.assertEquals(" value # comment ", line.getRawValue());
+        Assertions.assertEquals(" more", line.getRawComment());
+
+        line = new DYLine("- ", 2);
+        YamlReader.tokenize(line);
+        Assertions.assertTrue(line.isHyphenFound());
+        Assertions.assertNull(line.getRawValue());
+    }
+}
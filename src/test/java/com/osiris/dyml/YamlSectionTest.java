@@ -48,4 +48,35 @@ class YamlSectionTest {
         assertTrue(yaml.get("i-got-3-spaces").getCountTopLineBreaks() == 3);
         assertTrue(yaml.get("i-got-1-space").getCountTopLineBreaks() == 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getChild() throws Exception {
+        String n = System.lineSeparator();
+        Yaml yaml = new Yaml("parent:" + n + "  a: 1" + n + "  b: 2" + n + "  c: 3", "");
+        yaml.load();
+        YamlSection parent = yaml.get("parent");
+        assertEquals(3, parent.getChildSections().size());
+        assertEquals("2", parent.getChild("b").asString());
+        assertSame(parent.getChild("b"), parent.getChild("b"));
+        assertNull(parent.getChild("d"));
+
+        YamlSection d = new YamlSection(yaml, "parent", "d");
+        parent.addChildSections(d);
+        assertSame(d, parent.getChild("d"));
+
+        parent.getChild("a").setKeys("parent", "renamed");
+        assertNull(parent.getChild("a"));
+        assertEquals("1", parent.getChild("renamed").asString());
+
+        YamlSection c = parent.getChild("c");
+        YamlSection e = new YamlSection(yaml, "parent", "e");
+        parent.getChildSections().set(parent.getChildSections().indexOf(c), e); // Replaced directly
+        assertNull(parent.getChild("c"));
+        assertSame(e, parent.getChild("e"));
+
+        parent.getChildSections().remove(d); // Modified directly
+        assertNull(parent.getChild("d"));
+        parent.setChildSections(new java.util.ArrayList<>());
+        assertNull(parent.getChild("b"));
+    }
+}
@@ -1,16 +1,19 @@
 package com.osiris.dyml;
 
 import com.osiris.dyml.exceptions.*;
+import com.osiris.dyml.utils.FileLocks;
+import com.osiris.dyml.utils.FileVersion;
 import com.osiris.dyml.watcher.DirWatcher;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.osiris.dyml.U.N;
@@ -187,6 +190,467 @@ class YamlTest {
         assertEquals("world", yaml.get("hello").asString());
     }
 
+    @Test
+    void indexedLookups() throws Exception {
+        Yaml yaml = new Yaml("a:\n  b: 1\n  c: 2\nd: 3", "");
+        yaml.load();
+        assertEquals(4, yaml.loadedIndex.size());
+        assertEquals(2, yaml.get("a", "c").asInt());
+        assertNull(yaml.get("a", "x"));
+        YamlSection e = yaml.put("a", "e").setValues("4");
+        assertSame(e, yaml.get("a", "e"));
+        assertThrows(DuplicateKeyException.class, () -> yaml.add("d"));
+        yaml.remove("a", "e");
+        assertNull(yaml.get("a", "e"));
+        // Direct modifications of the list are detected too
+        YamlSection f = new YamlSection(yaml, "f");
+        yaml.inEditModules.add(f);
+        assertSame(f, yaml.get("f"));
+        yaml.removeAll();
+        assertNull(yaml.get("d"));
+    }
+
+    @Test
+    void indexedLookupsAfterRename() throws Exception {
+        Yaml yaml = new Yaml("a: 1\nb: 2", "");
+        yaml.load();
+        YamlSection a = yaml.get("a");
+        a.setKeys("renamed");
+        assertSame(a, yaml.get("renamed"));
+        assertSame(a, yaml.put("renamed"));
+        assertNull(yaml.get("a"));
+        assertEquals(2, yaml.getAll().size());
+        // Loaded sections, that were not retrieved yet
+        yaml.loadedModules.get(1).setKeys("c");
+        assertEquals("2", yaml.get("c").asString());
+        assertNull(yaml.get("b"));
+        yaml.remove("renamed");
+        assertNull(yaml.get("renamed"));
+        // Duplicate keys
+        YamlSection d1 = new YamlSection(yaml, "d"), d2 = new YamlSection(yaml, "d");
+        yaml.inEditModules.add(d1);
+        yaml.inEditModules.add(d2);
+        assertSame(d1, yaml.get("d"));
+        yaml.inEditModules.remove(d1);
+        yaml.inEditIndex.removed(d1);
+        assertSame(d2, yaml.get("d"));
+    }
+
+    @Test
+    void cachedUnifiedList() throws Exception {
+        Yaml yaml = new Yaml("a:\n  b: 1\nd: 3", "");
+        yaml.load();
+        assertEquals(3, yaml.getAll().size());
+        assertSame(yaml.getUnifiedList(), yaml.getUnifiedList());
+        yaml.put("a", "c").setValues("2");
+        List<YamlSection> all = yaml.getAll();
+        assertEquals(4, all.size());
+        assertEquals(Arrays.asList("a", "c"), all.get(2).getKeys());
+        all.clear(); // Only a copy
+        assertEquals(4, yaml.getAll().size());
+        yaml.remove("d");
+        assertEquals(3, yaml.getAll().size());
+        yaml.get("a", "c").setKeys("c");
+        assertEquals(Arrays.asList("c"), yaml.getAll().get(0).getKeys());
+        yaml.load();
+        assertEquals(4, yaml.getAll().size());
+    }
+
+    @Test
+    void debugLoggerLevels() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Yaml yaml = new Yaml("a: 1\nb: 2", "");
+        yaml.debugLogger = new DYDebugLogger(new PrintStream(out, true));
+        yaml.debugLogger.setLevel(DYDebugLogger.Level.DEBUG);
+        yaml.load();
+        yaml.put("c");
+        String log = out.toString();
+        assertTrue(log.contains("Executing put([c])"));
+        assertFalse(log.contains("Reading line"));
+        yaml.debugLogger.setLevel(DYDebugLogger.Level.INFO);
+        yaml.debugLogger.log(yaml, () -> {
+            throw new AssertionError("Message of disabled level was created");
+        });
+    }
+
+    @Test
+    void partialSave() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/partial-save-test.yml");
+        Files.write(file.toPath(), "# Comment\na:\n  b: 1\n  c: hello\nd: 3\n".getBytes(StandardCharsets.UTF_8));
+        Yaml yaml = new Yaml(file);
+        yaml.isPartialSaveEnabled = true;
+        yaml.load();
+        yaml.save(); // Full save
+        assertFalse(yaml.get("a", "c").isDirty());
+
+        yaml.get("a", "c").setValues("world"); // Same length
+        assertTrue(yaml.get("a", "c").isDirty());
+        yaml.save();
+        assertEquals(fullSave(yaml), readString(file));
+
+        yaml.get("a", "b").setValues("100"); // Different length
+        yaml.put("e").setValues("new"); // Appended
+        yaml.save();
+        assertEquals(fullSave(yaml), readString(file));
+
+        yaml.remove("e");
+        yaml.get("a", "c").setComments("Side", "comment");
+        yaml.save();
+        assertEquals(fullSave(yaml), readString(file));
+
+        Files.write(file.toPath(), "x: 1\n".getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.APPEND);
+        file.setLastModified(file.lastModified() + 2000); // Changed by someone else
+        yaml.save();
+        assertEquals(fullSave(yaml), readString(file));
+
+        // Same size and last modified time, but different content
+        long lastModified = file.lastModified();
+        String content = readString(file);
+        Files.write(file.toPath(), content.replace("world", "xxxxx").getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        yaml.get("d").setValues("4");
+        yaml.save();
+        assertEquals(fullSave(yaml), readString(file));
+
+        yaml.load();
+        assertEquals("world", yaml.get("a", "c").asString());
+        assertEquals(100, yaml.get("a", "b").asInt());
+        assertNull(yaml.get("e"));
+        file.delete();
+    }
+
+    @Test
+    void atomicSave() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/atomic-save-test.yml");
+        Files.write(file.toPath(), "a: 1\n".getBytes(StandardCharsets.UTF_8));
+        Yaml yaml = new Yaml(file);
+        yaml.isAtomicSaveEnabled = true;
+        yaml.load();
+        yaml.put("a").setValues("2");
+        yaml.put("b").setValues("3");
+        yaml.save();
+        File[] tempFiles = file.getParentFile().listFiles((dir, name) -> name.startsWith("." + file.getName()));
+        assertEquals(0, tempFiles.length);
+        yaml.load();
+        assertEquals(2, yaml.get("a").asInt());
+        assertEquals(3, yaml.get("b").asInt());
+        file.delete();
+    }
+
+    @Test
+    void writeBehind() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/write-behind-test.yml");
+        Files.write(file.toPath(), "a: 0\n".getBytes(StandardCharsets.UTF_8));
+        Yaml yaml = new Yaml(file);
+        yaml.load();
+        yaml.enableWriteBehind(60000, 120000);
+        for (int i = 1; i <= 100; i++) {
+            yaml.put("a").setValues(i);
+            yaml.save();
+        }
+        assertTrue(yaml.isWriteBehindPending());
+        assertEquals(0, new Yaml(file).load().get("a").asInt()); // Not written yet
+        yaml.flush();
+        assertFalse(yaml.isWriteBehindPending());
+        assertEquals(100, new Yaml(file).load().get("a").asInt());
+
+        // Pending saves get written before loading
+        yaml.put("a").setValues(101);
+        yaml.save();
+        yaml.load();
+        assertEquals(101, yaml.get("a").asInt());
+
+        // Pending saves can't be written while holding the shared lock, since it can't be upgraded
+        yaml.put("a").setValues(101);
+        yaml.save();
+        try (FileLocks.Handle lock = yaml.sharedFileLock()) {
+            assertThrows(IllegalStateException.class, yaml::load);
+        }
+        yaml.flush();
+        try (FileLocks.Handle lock = yaml.sharedFileLock()) {
+            yaml.load();
+        }
+
+        // The state at the time of the save gets written, not later changes
+        yaml.put("a").setValues(200);
+        yaml.save();
+        yaml.put("a").setValues(201);
+        yaml.put("b").setValues(1);
+        yaml.flush();
+        Yaml written = new Yaml(file).load();
+        assertEquals(200, written.get("a").asInt());
+        assertNull(written.get("b"));
+        yaml.remove("b");
+
+        // Written in background after the delay
+        yaml.enableWriteBehind(10, 50);
+        yaml.put("a").setValues(102);
+        yaml.save();
+        for (int i = 0; i < 100 && yaml.isWriteBehindPending(); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(102, new Yaml(file).load().get("a").asInt());
+        yaml.disableWriteBehind();
+        assertFalse(yaml.isWriteBehindEnabled());
+        file.delete();
+    }
+
+    @Test
+    void processLock() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/process-lock-test.yml");
+        File lockFile = FileLocks.getLockFile(file);
+        Yaml yaml = new Yaml(file);
+        yaml.isProcessLockEnabled = true;
+        yaml.load();
+        assertTrue(lockFile.exists());
+        assertFalse(FileLocks.isHeldByCurrentThread(file));
+
+        yaml.lockFile();
+        yaml.put("a").setValues(1);
+        yaml.saveAndLoad(); // Doesn't wait for the lock already held by this thread
+        assertTrue(FileLocks.get(file).isWriteLockedByCurrentThread());
+        yaml.unlockFile();
+        assertFalse(FileLocks.isHeldByCurrentThread(file));
+
+        try (FileLocks.Handle lock = yaml.sharedFileLock()) {
+            assertEquals(1, new Yaml(file).load().get("a").asInt());
+        }
+        file.delete();
+        lockFile.delete();
+    }
+
+    @Test
+    void snapshot() throws Exception {
+        Yaml yaml = new Yaml("a: 1\nb:\n  c: hello # side\n  d: [x, y]\n", "");
+        yaml.isPublishSnapshotOnLoadEnabled = true;
+        assertNull(yaml.getPublishedSnapshot());
+        yaml.load();
+        YamlSnapshot snapshot = yaml.getPublishedSnapshot();
+        assertNotNull(snapshot);
+        assertEquals(1, snapshot.get("a").asInt());
+        assertEquals("hello", snapshot.get("b", "c").asString());
+        assertEquals(2, snapshot.get("b").getChildSections().size());
+        assertSame(snapshot.get("b"), snapshot.get("b", "c").getParentSection());
+        assertNull(snapshot.get("b").getParentSection());
+        assertNull(snapshot.get("x"));
+        assertEquals(yaml.getAll().size(), snapshot.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.get("a").getValues().add("2"));
+
+        // Changes are not visible in existing snapshots
+        yaml.put("a").setValues(2);
+        yaml.put("e").setDefValues("def");
+        assertEquals(1, snapshot.get("a").asInt());
+        assertNull(snapshot.get("e"));
+        YamlSnapshot newSnapshot = yaml.publishSnapshot();
+        assertSame(newSnapshot, yaml.getPublishedSnapshot());
+        assertEquals(2, newSnapshot.get("a").asInt());
+        assertEquals("def", newSnapshot.get("e").asString());
+    }
+
+    @Test
+    void saveIfUnchanged() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/save-if-unchanged-test.yml");
+        Files.write(file.toPath(), "a: 0\nb: 0\n".getBytes(StandardCharsets.UTF_8));
+        Yaml yaml1 = new Yaml(file);
+        Yaml yaml2 = new Yaml(file);
+        yaml1.load();
+        yaml2.load();
+        assertEquals(FileVersion.of(file.toPath()), yaml1.getFileVersion());
+
+        yaml2.put("b").setValues(2);
+        yaml2.saveIfUnchanged();
+        assertEquals(FileVersion.of(file.toPath()), yaml2.getFileVersion());
+
+        yaml1.put("a").setValues(1);
+        assertThrows(FileChangedException.class, yaml1::saveIfUnchanged);
+        assertEquals(0, new Yaml(file).load().get("a").asInt()); // Not written
+        yaml1.load();
+        yaml1.put("a").setValues(1);
+        yaml1.saveIfUnchanged();
+        Yaml result = new Yaml(file).load();
+        assertEquals(1, result.get("a").asInt());
+        assertEquals(2, result.get("b").asInt());
+
+        // The version is updated by all kinds of saves
+        for (int i = 0; i < 3; i++) {
+            yaml1.isPartialSaveEnabled = i == 1;
+            yaml1.isAtomicSaveEnabled = i == 2;
+            yaml1.put("a").setValues(10 + i);
+            yaml1.save();
+            assertEquals(FileVersion.of(file.toPath()), yaml1.getFileVersion());
+            yaml1.put("a").setValues(20 + i);
+            yaml1.saveIfUnchanged();
+        }
+        assertEquals(22, new Yaml(file).load().get("a").asInt());
+
+        // Pending write-behind saves are older and thus get discarded
+        yaml1.isPartialSaveEnabled = false;
+        yaml1.isAtomicSaveEnabled = false;
+        yaml1.enableWriteBehind(60000, 60000);
+        yaml1.put("a").setValues(30);
+        yaml1.save();
+        yaml1.put("a").setValues(31);
+        yaml1.saveIfUnchanged();
+        assertFalse(yaml1.isWriteBehindPending());
+        yaml1.disableWriteBehind();
+        assertEquals(31, new Yaml(file).load().get("a").asInt());
+        file.delete();
+    }
+
+    @Test
+    void transaction() throws Exception {
+        File file = new File(System.getProperty("user.dir") + "/src/test/transaction-test.yml");
+        Files.write(file.toPath(), "a: 0\nb: 0\nc: 0\n".getBytes(StandardCharsets.UTF_8));
+        Yaml yaml = new Yaml(file);
+        yaml.load();
+
+        yaml.transaction(tx -> {
+            tx.put("a").setValues(1).setComments("comment");
+            tx.put("d", "e").setValues(2);
+            tx.remove("c");
+            assertEquals(0, yaml.get("a").asInt()); // Not visible yet
+        });
+        Yaml result = new Yaml(file).load();
+        assertEquals(1, result.get("a").asInt());
+        assertEquals("comment", result.get("a").getComment());
+        assertEquals(2, result.get("d", "e").asInt());
+        assertNull(result.get("c"));
+
+        // Exception or rollback discards all changes
+        assertThrows(IllegalStateException.class, () -> yaml.transaction(tx -> {
+            tx.put("a").setValues(3);
+            throw new IllegalStateException();
+        }));
+        yaml.transaction(tx -> {
+            tx.put("a").setValues(4);
+            tx.rollback();
+        });
+        assertThrows(IllegalKeyException.class, () -> yaml.transaction(tx -> {
+            tx.put("a").setValues(5);
+            tx.put(Arrays.asList("b", null));
+        }));
+        assertEquals(1, yaml.get("a").asInt());
+        assertEquals(1, new Yaml(file).load().get("a").asInt());
+
+        // Failed save restores the previous state
+        file.delete();
+        assertTrue(file.mkdir()); // Can't be written
+        int countSections = yaml.getAll().size();
+        assertThrows(IOException.class, () -> yaml.transaction(tx -> {
+            tx.put("a").setValues(6);
+            tx.put("f").setValues(6);
+            tx.remove("b");
+        }));
+        assertEquals(1, yaml.get("a").asInt());
+        assertNull(yaml.get("f"));
+        assertEquals(0, yaml.get("b").asInt());
+        assertEquals(countSections, yaml.getAll().size());
+
+        // With write-behind the commit still writes immediately, and the links of existing sections get restored
+        yaml.enableWriteBehind(60000, 60000);
+        yaml.put("d");
+        yaml.getAll(); // Links "e" to its parent "d"
+        int countChildren = yaml.get("d").getChildSections().size();
+        assertThrows(IOException.class, () -> yaml.transaction(tx -> {
+            tx.put("d", "x").setValues(7);
+            tx.put("d", "e").setValues(7);
+        }));
+        assertEquals(countChildren, yaml.get("d").getChildSections().size());
+        assertNull(yaml.get("d").getChild("x"));
+        assertEquals(2, yaml.get("d").getChild("e").asInt());
+        assertTrue(yaml.isWriteBehindPending()); // The restored state
+        assertTrue(file.delete() && file.createNewFile());
+        yaml.disableWriteBehind();
+        Yaml restored = new Yaml(file).load();
+        assertNull(restored.get("d", "x"));
+        assertEquals(2, restored.get("d", "e").asInt());
+        file.delete();
+    }
+
+    @Test
+    void transactionBatch() throws Exception {
+        String content = "a:" + N + "  b: 1" + N + "  c: 2" + N + "d: 3" + N + "e:" + N + "  f: 4" + N;
+        Yaml expected = new Yaml(content, "");
+        expected.load();
+        expected.put("e", "g").setValues(5);
+        expected.put("a", "z").setValues(6);
+        expected.put("h").setValues(7);
+        expected.put("a", "b").setValues(8);
+        expected.remove("d");
+        expected.put("a", "y", "x").setValues(9);
+        expected.put("e", "g").setValues(10);
+        expected.save();
+
+        Yaml yaml = new Yaml(content, "");
+        yaml.load();
+        yaml.transaction(tx -> {
+            tx.put("e", "g").setValues(5);
+            tx.put("a", "z").setValues(6);
+            tx.put("h").setValues(7);
+            tx.put("a", "b").setValues(8);
+            tx.remove("d");
+            tx.put("a", "y", "x").setValues(9);
+            tx.put("e", "g").setValues(10);
+        });
+        assertEquals(expected.outString, yaml.outString);
+        assertSame(yaml.get("a", "z"), yaml.get("a").getChild("z"));
+
+        // A failed commit leaves no links to its sections or fillers
+        File file = new File(System.getProperty("user.dir") + "/src/test/transaction-batch-test.yml");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        yaml = new Yaml(file);
+        yaml.load();
+        yaml.put("a", "y", "x").setValues(9);
+        yaml.getAll(); // Creates the filler [a, y]
+        List<List<String>> children = keysOf(yaml.get("a").getChildSections());
+        assertTrue(file.delete() && file.mkdir()); // Can't be written
+        yaml.enableWriteBehind(60000, 60000); // Links the sections before writing
+        Yaml failing = yaml;
+        assertThrows(IOException.class, () -> failing.transaction(tx -> {
+            tx.put("a", "y").setValues(1);
+            tx.put("a", "w", "v").setValues(2);
+        }));
+        assertTrue(file.delete() && file.createNewFile());
+        yaml.disableWriteBehind();
+        file.delete();
+        yaml.getAll();
+        assertEquals(children, keysOf(yaml.get("a").getChildSections()));
+        assertNull(yaml.get("a", "w", "v"));
+        assertNull(yaml.get("a", "y"));
+    }
+
+    private String fullSave(Yaml yaml) throws Exception {
+        Yaml copy = new Yaml("", "");
+        copy.load();
+        for (YamlSection section : yaml.getAll()) {
+            copy.add(section.getKeys().toArray(new String[0]))
+                    .setSValues(section.getValues()).setComments(section.getComments());
+        }
+        copy.save();
+        return copy.outString;
+    }
+
+    private String readString(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void loadMemoryMapped() throws Exception {
+        File features = new File(System.getProperty("user.dir") + "/src/test/features.yml");
+        Yaml yaml = new Yaml(features);
+        yaml.load();
+        Yaml mapped = new Yaml(features);
+        mapped.isMemoryMappedLoadingEnabled = true;
+        mapped.load();
+        assertEquals(yaml.getAllLoaded().size(), mapped.getAllLoaded().size());
+        for (int i = 0; i < yaml.getAllLoaded().size(); i++) {
+            assertEquals(yaml.getAllLoaded().get(i).toPrintString(), mapped.getAllLoaded().get(i).toPrintString());
+        }
+        // The version is calculated from the mapped bytes
+        assertTrue(mapped.getFileVersion().isSameContent(yaml.getFileVersion()));
+        assertTrue(mapped.getFileVersion().isSameContent(FileVersion.of(features.toPath())));
+    }
+
     @Test
     void reset() throws Exception {
         Yaml yaml = new Yaml(System.getProperty("user.dir") + "/src/test/reset-test.yml");
@@ -383,6 +847,213 @@ class YamlTest {
         assertEquals("size: S"+N, yaml3.outString);
     }
 
+    @Test
+    void testSerializationPrivateFields() throws YamlReaderException, IOException, DuplicateKeyException, IllegalListException, NotLoadedException, IllegalKeyException, InstantiationException, IllegalAccessException, InvocationTargetException, YamlWriterException {
+        class Account {
+            private boolean active;
+            private long id;
+            public String name;
+
+            private Account(boolean active, long id) {
+                this.active = active;
+                this.id = id;
+            }
+        }
+
+        for (int i = 0; i < 3; i++) { // Mapping metadata is reused by the following iterations and Yaml instances
+            Yaml yaml = new Yaml("", "");
+            yaml.load();
+            Account account = new Account(true, 1000L + i);
+            account.name = "Peter";
+            yaml.put("account").putJavaChildSection(account, true);
+            yaml.save();
+            assertEquals("account: " + N + "  active: true" + N + "  id: " + (1000 + i) + N + "  name: Peter" + N, yaml.outString);
+
+            Yaml loaded = new Yaml(yaml.outString, "");
+            loaded.load();
+            Account copy = loaded.get("account").as(Account.class, true);
+            assertTrue(copy.active);
+            assertEquals(1000L + i, copy.id);
+            assertEquals("Peter", copy.name);
+            Account publicOnly = loaded.get("account").as(Account.class);
+            assertFalse(publicOnly.active);
+            assertEquals("Peter", publicOnly.name);
+        }
+        assertSame(ClassMapping.of(Size.class), ClassMapping.of(Size.class));
+    }
+
+    public static class Server {
+        public String name;
+        public int port;
+    }
+
+    public static class Network {
+        public int[] ports;
+        public double[] ratios;
+        public String[] names;
+        public List<Integer> ids;
+        public Set<Size> sizes;
+        public List<Server> servers;
+        public Map<String, Integer> limits;
+        public Map<Size, List<String>> groups;
+        public Server[] backups;
+    }
+
+    @Test
+    void testSerializationCollections() throws Exception {
+        Network network = new Network();
+        network.ports = new int[]{25565, 25566};
+        network.ratios = new double[]{0.5, 1.25};
+        network.names = new String[]{"lobby", "survival"};
+        network.ids = Arrays.asList(3, 1, 2);
+        network.sizes = new LinkedHashSet<>(Arrays.asList(Size.S, Size.XL));
+        Server server = new Server();
+        server.name = "lobby";
+        server.port = 25565;
+        network.servers = Collections.singletonList(server);
+        network.limits = new LinkedHashMap<>();
+        network.limits.put("players", 100);
+        network.limits.put("worlds", 3);
+        network.groups = new LinkedHashMap<>();
+        network.groups.put(Size.S, Arrays.asList("a", "b"));
+        network.backups = new Server[]{server};
+
+        Yaml yaml = new Yaml("", "");
+        yaml.load();
+        yaml.put("network").putJavaChildSection(network);
+        yaml.save();
+        assertEquals("network: " + N +
+                "  ports: " + N + "    - 25565" + N + "    - 25566" + N +
+                "  ratios: " + N + "    - 0.5" + N + "    - 1.25" + N +
+                "  names: " + N + "    - lobby" + N + "    - survival" + N +
+                "  ids: " + N + "    - 3" + N + "    - 1" + N + "    - 2" + N +
+                "  sizes: " + N + "    - S" + N + "    - XL" + N +
+                "  servers: " + N + "    0: " + N + "      name: lobby" + N + "      port: 25565" + N +
+                "  limits: " + N + "    players: 100" + N + "    worlds: 3" + N +
+                "  groups: " + N + "    S: " + N + "      - a" + N + "      - b" + N +
+                "  backups: " + N + "    0: " + N + "      name: lobby" + N + "      port: 25565" + N, yaml.outString);
+        // Primitive collections are stored in the values list, not as a section per element
+        assertEquals(2, yaml.get("network", "ports").getValues().size());
+        assertNull(yaml.get("network", "ports", "0"));
+
+        Yaml loaded = new Yaml(yaml.outString, "");
+        loaded.load();
+        Network copy = loaded.get("network").as(Network.class);
+        assertArrayEquals(network.ports, copy.ports);
+        assertArrayEquals(network.ratios, copy.ratios);
+        assertArrayEquals(network.names, copy.names);
+        assertEquals(network.ids, copy.ids);
+        assertEquals(network.sizes, copy.sizes);
+        assertEquals(1, copy.servers.size());
+        assertEquals("lobby", copy.servers.get(0).name);
+        assertEquals(25565, copy.servers.get(0).port);
+        assertEquals(network.limits, copy.limits);
+        assertEquals(network.groups, copy.groups);
+        assertEquals(25565, copy.backups[0].port);
+
+        // Top-level collections
+        assertEquals(Arrays.asList("25565", "25566"), loaded.get("network", "ports").as(List.class));
+        yaml.put("numbers").putJavaChildSection(new long[]{1, 2});
+        assertArrayEquals(new long[]{1, 2}, yaml.get("numbers").as(long[].class));
+
+        // Removed elements and entries get removed from the file too
+        Server second = new Server();
+        second.name = "survival";
+        Server third = new Server();
+        third.name = "creative";
+        network.servers = new ArrayList<>(Arrays.asList(server, second, third));
+        network.limits.put("ranks", 5);
+        loaded.get("network").putJavaChildSection(network);
+        loaded.save();
+        loaded = new Yaml(loaded.outString, "");
+        loaded.load();
+        assertEquals(3, loaded.get("network").as(Network.class).servers.size());
+        network.servers.remove(2);
+        network.servers.set(0, null);
+        network.limits.remove("players");
+        network.limits.remove("ranks");
+        network.backups = new Server[0];
+        loaded.get("network").putJavaChildSection(network);
+        loaded.save();
+        assertFalse(loaded.outString.contains("creative"));
+        assertFalse(loaded.outString.contains("players"));
+        assertFalse(loaded.outString.contains("ranks"));
+        loaded = new Yaml(loaded.outString, "");
+        loaded.load();
+        copy = loaded.get("network").as(Network.class);
+        // Null elements keep their position
+        assertEquals(2, copy.servers.size());
+        assertNull(copy.servers.get(0));
+        assertEquals("survival", copy.servers.get(1).name);
+        assertEquals(Collections.singletonMap("worlds", 3), copy.limits);
+        assertEquals(0, copy.backups.length);
+
+        // Also without loading in between
+        network.servers = new ArrayList<>(Arrays.asList(server, second, third));
+        loaded.get("network").putJavaChildSection(network);
+        network.servers.remove(2);
+        loaded.get("network").putJavaChildSection(network);
+        loaded.save();
+        assertFalse(loaded.outString.contains("creative"));
+        assertEquals(2, loaded.get("network", "servers").getChildSections().size());
+    }
+
+    @Test
+    void testSerializationBulk() throws Exception {
+        class Dog {
+            public String name;
+            public Size size;
+        }
+        class Person {
+            public int age;
+            public Dog dog;
+            public String name;
+        }
+        Person p = new Person();
+        p.age = 20;
+        p.dog = new Dog();
+        p.dog.name = "Rudolf";
+        p.dog.size = Size.S;
+        p.name = "Peter";
+
+        // Mix of existing and new sections, written like via put() for each field
+        String existing = "other: 1" + N + "person: " + N + "  age: 44" + N + "  dog: " + N + "    name: Bello" + N + "last: 2";
+        Yaml expected = new Yaml(existing, "");
+        expected.load();
+        expected.put("person", "age").setValues("20");
+        expected.put("person", "dog");
+        expected.put("person", "dog", "name").setValues("Rudolf");
+        expected.put("person", "dog", "size").setValues("S");
+        expected.put("person", "name").setValues("Peter");
+        expected.save();
+
+        Yaml yaml = new Yaml(existing, "");
+        yaml.load();
+        yaml.put("person").putJavaChildSection(p);
+        yaml.save();
+        assertEquals(expected.outString, yaml.outString);
+        assertTrue(yaml.outString.contains("    size: S" + N + "  name: Peter"));
+
+        // Completely new subtree
+        Yaml empty = new Yaml("", "");
+        empty.load();
+        empty.put("person").putDefJavaChildSection(p);
+        empty.save();
+        assertEquals("person: " + N + "  age: 20" + N + "  dog: " + N + "    name: Rudolf" + N + "    size: S" + N + "  name: Peter" + N, empty.outString);
+
+        // The batch is added completely or not at all
+        List<YamlSection> batch = new ArrayList<>();
+        batch.add(new YamlSection(empty, "new"));
+        batch.add(new YamlSection(empty, "person", "age"));
+        assertThrows(DuplicateKeyException.class, () -> empty.addAll(batch));
+        assertNull(empty.get("new"));
+        batch.set(1, new YamlSection(empty, "new"));
+        assertThrows(DuplicateKeyException.class, () -> empty.addAll(batch));
+        batch.set(1, new YamlSection(empty, "new", "child"));
+        assertEquals(batch, empty.addAll(batch));
+        assertSame(batch.get(1), empty.get("new", "child"));
+    }
+
     @Test
     void testQuotesHandling() throws YamlReaderException, IOException, DuplicateKeyException, IllegalListException, YamlWriterException {
         Yaml yaml = new Yaml("key: \"val\"", "");
@@ -398,4 +1069,88 @@ class YamlTest {
         yaml.save();
         assertEquals("key: \"val\""+N, yaml.outString);
     }
+
+    @Test
+    void unifiedListFillers() throws Exception {
+        Yaml yaml = new Yaml("a: 1" + N, "");
+        yaml.load();
+        YamlSection d = yaml.put("b", "c", "d").setValues(1);
+        List<YamlSection> all = yaml.getAll();
+        assertEquals(Arrays.asList(Arrays.asList("b"), Arrays.asList("b", "c"), Arrays.asList("b", "c", "d"), Arrays.asList("a")),
+                keysOf(all));
+        YamlSection b = all.get(0), c = all.get(1);
+        assertNull(b.getParentSection());
+        assertEquals(Collections.singletonList(c), b.getChildSections());
+        assertSame(b, c.getParentSection());
+        assertEquals(Collections.singletonList(d), c.getChildSections());
+        assertSame(c, d.getParentSection());
+        yaml.save();
+        assertEquals("b: " + N + "  c: " + N + "    d: 1" + N + "a: 1" + N, yaml.outString);
+    }
+
+    @Test
+    void unifiedListFillerReplaced() throws Exception {
+        Yaml yaml = new Yaml("a: 1" + N, "");
+        yaml.load();
+        YamlSection y = yaml.put("x", "y").setValues(1);
+        YamlSection filler = yaml.getAll().get(0);
+        assertEquals(Arrays.asList("x"), filler.getKeys());
+        assertFalse(yaml.getAllInEdit().contains(filler));
+
+        YamlSection x = yaml.put("x").setComments("real");
+        List<YamlSection> all = yaml.getAll();
+        assertEquals(Arrays.asList(x, y, yaml.get("a")), all);
+        assertSame(x, y.getParentSection());
+        assertEquals(Collections.singletonList(y), x.getChildSections());
+        yaml.save();
+        assertEquals("# real" + N + "x: " + N + "  y: 1" + N + "a: 1" + N, yaml.outString);
+    }
+
+    @Test
+    void unifiedListRepeatedGetAll() throws Exception {
+        Yaml yaml = new Yaml("a: " + N + "  b: 1" + N + "e: 2" + N, "");
+        yaml.load();
+        yaml.put("a", "z").setValues(3);
+        yaml.put("a", "y", "x").setValues(4);
+        YamlSection a = yaml.get("a");
+        List<YamlSection> children = new ArrayList<>(yaml.getAll().get(0).getChildSections());
+        assertEquals(3, children.size());
+        for (int i = 0; i < 3; i++) {
+            yaml.invalidateUnifiedList();
+            List<YamlSection> all = yaml.getAll();
+            assertSame(a, all.get(0));
+            assertEquals(3, a.getChildSections().size());
+            assertEquals(keysOf(children), keysOf(a.getChildSections()));
+            YamlSection filler = all.get(3);
+            assertEquals(Arrays.asList("a", "y"), filler.getKeys());
+            assertSame(filler, a.getChildSections().get(2));
+            assertSame(filler, yaml.get("a", "y", "x").getParentSection());
+        }
+    }
+
+    @Test
+    void unifiedListOrder() throws Exception {
+        Yaml yaml = new Yaml("a:" + N + "  b: 1" + N + "  c: 2" + N + "d: 3" + N + "e:" + N + "  f: 4" + N, "");
+        yaml.load();
+        yaml.put("e", "g").setValues(5);
+        yaml.put("a", "z").setValues(6);
+        yaml.put("h").setValues(7);
+        yaml.put("a", "b").setValues(8);
+        yaml.put("a", "y", "x").setValues(9);
+        assertEquals(Arrays.asList(Arrays.asList("h"), Arrays.asList("a"), Arrays.asList("a", "b"), Arrays.asList("a", "c"),
+                        Arrays.asList("a", "z"), Arrays.asList("a", "y"), Arrays.asList("a", "y", "x"), Arrays.asList("d"),
+                        Arrays.asList("e"), Arrays.asList("e", "f"), Arrays.asList("e", "g")),
+                keysOf(yaml.getAll()));
+        yaml.save();
+        assertEquals("h: 7" + N + "a: " + N + "  b: 8" + N + "  c: 2" + N + "  z: 6" + N + "  y: " + N + "    x: 9" + N
+                + "d: 3" + N + "e: " + N + "  f: 4" + N + "  g: 5" + N, yaml.outString);
+    }
+
+    private static List<List<String>> keysOf(List<YamlSection> sections) {
+        List<List<String>> keys = new ArrayList<>(sections.size());
+        for (YamlSection section : sections) {
+            keys.add(section.getKeys());
+        }
+        return keys;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package com.osiris.dyml.mapper;
+
+import com.osiris.dyml.Dyml;
+import com.osiris.dyml.Yaml;
+import com.osiris.dyml.YamlSection;
+import com.osiris.dyml.processor.YamlMapperProcessor;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlMappersTest {
+    private static final String N = System.lineSeparator();
+
+    @Test
+    void registeredMapper() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        YamlMappers.register(new YamlMapper<Point>() {
+            @Override
+            public Class<Point> getType() {
+                return Point.class;
+            }
+
+            @Override
+            public Point read(YamlSection section) {
+                reads.incrementAndGet();
+                Point point = new Point();
+                point.x = section.getChildSections().get(0).asInt();
+                point.y = section.getChildSections().get(1).asInt();
+                return point;
+            }
+
+            @Override
+            public void write(YamlSection section, Point obj) throws com.osiris.dyml.exceptions.NotLoadedException, com.osiris.dyml.exceptions.IllegalKeyException {
+                YamlMappers.putChild(section, "x").setValues(obj.x);
+                YamlMappers.putChild(section, "y").setValues(obj.y);
+            }
+
+            @Override
+            public void writeDefaults(YamlSection section, Point obj) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Point read(Dyml dyml) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void write(Dyml dyml, Point obj) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        try {
+            Yaml yaml = new Yaml("point:" + N + "  x: 1" + N + "  y: 2", "");
+            yaml.load();
+            Point point = yaml.get("point").as(Point.class);
+            assertEquals(1, reads.get());
+            assertEquals(1, point.x);
+            assertEquals(2, point.y);
+        } finally {
+            YamlMappers.unregister(Point.class);
+        }
+        assertNull(YamlMappers.get(Point.class));
+    }
+
+    public static class Point {
+        public int x, y;
+    }
+
+    @Test
+    void generatedMapper() throws Exception {
+        Path dir = Files.createTempDirectory("dyml-mapper-test");
+        String source = "package test.mapped;\n" +
+                "import com.osiris.dyml.mapper.YamlMapped;\n" +
+                "@YamlMapped\n" +
+                "public class Server {\n" +
+                "    public String name;\n" +
+                "    public int port;\n" +
+                "    public Integer maxPlayers;\n" +
+                "    public boolean enabled;\n" +
+                "    public double ratio;\n" +
+                "    public java.util.concurrent.TimeUnit unit;\n" +
+                "    public Owner owner;\n" +
+                "    public static final String IGNORED = \"\";\n" +
+                "    @YamlMapped\n" +
+                "    public static class Owner {\n" +
+                "        public String name;\n" +
+                "        long id;\n" +
+                "    }\n" +
+                "}\n";
+        assertTrue(compile(dir, "test/mapped/Server.java", source, null));
+        assertTrue(Files.exists(dir.resolve("test/mapped/Server_YamlMapper.class")));
+        assertTrue(Files.exists(dir.resolve("test/mapped/Server_Owner_YamlMapper.class")));
+        assertEquals(Arrays.asList("test.mapped.Server_Owner_YamlMapper", "test.mapped.Server_YamlMapper"),
+                Files.readAllLines(dir.resolve("META-INF/services/" + YamlMapper.class.getName())));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> serverClass = loader.loadClass("test.mapped.Server");
+            assertEquals("test.mapped.Server_YamlMapper", YamlMappers.getGeneratedMapperName(serverClass));
+            assertEquals("test.mapped.Server_YamlMapper", YamlMappers.get(serverClass).getClass().getName());
+
+            Yaml yaml = new Yaml("server:" + N +
+                    "  name: Lobby" + N +
+                    "  port: 25565" + N +
+                    "  enabled: true" + N +
+                    "  ratio: 0.5" + N +
+                    "  unit: SECONDS" + N +
+                    "  owner:" + N +
+                    "    name: Peter" + N +
+                    "    id: 7", "");
+            yaml.load();
+            Object server = yaml.get("server").as(serverClass);
+            assertEquals("Lobby", get(server, "name"));
+            assertEquals(25565, get(server, "port"));
+            assertNull(get(server, "maxPlayers"));
+            assertEquals(true, get(server, "enabled"));
+            assertEquals(0.5, get(server, "ratio"));
+            assertEquals(java.util.concurrent.TimeUnit.SECONDS, get(server, "unit"));
+            Object owner = get(server, "owner");
+            assertEquals("Peter", get(owner, "name"));
+            assertEquals(0L, get(owner, "id")); // Not public, thus not mapped
+
+            // Writing produces the same output as the reflective mapping
+            Yaml written = new Yaml("", "");
+            written.load();
+            written.put("server").putJavaChildSection(server);
+            written.save();
+            assertEquals("server: " + N +
+                    "  name: Lobby" + N +
+                    "  port: 25565" + N +
+                    "  enabled: true" + N +
+                    "  ratio: 0.5" + N +
+                    "  unit: SECONDS" + N +
+                    "  owner: " + N +
+                    "    name: Peter" + N, written.outString);
+
+            // Including private fields uses the reflective mapping, since mappers only map public fields
+            Yaml withPrivate = new Yaml("", "");
+            withPrivate.load();
+            set(owner, "id", 7L);
+            withPrivate.put("server").putJavaChildSection(server, true);
+            withPrivate.save();
+            assertTrue(withPrivate.outString.contains("    id: 7" + N));
+
+            @SuppressWarnings("unchecked")
+            YamlMapper<Object> mapper = (YamlMapper<Object>) YamlMappers.get(serverClass);
+            Dyml dyml = new Dyml();
+            mapper.write(dyml, server);
+            assertEquals("Lobby", dyml.get("name").asString());
+            assertNull(dyml.get("owner").get("id"));
+            Object copy = mapper.read(dyml);
+            assertEquals(25565, get(copy, "port"));
+            assertEquals(0L, get(get(copy, "owner"), "id"));
+        }
+    }
+
+    @Test
+    void unsupportedFields() throws Exception {
+        Path dir = Files.createTempDirectory("dyml-mapper-test");
+        String source = "package test.mapped;\n" +
+                "@com.osiris.dyml.mapper.YamlMapped\n" +
+                "public class Invalid {\n" +
+                "    public final String name = \"\";\n" +
+                "    private String ignored;\n" +
+                "    public java.util.Date date;\n" +
+                "}\n";
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(dir, "test/mapped/Invalid.java", source, diagnostics));
+        assertEquals(2, diagnostics.getDiagnostics().size());
+        assertTrue(diagnostics.getDiagnostics().get(0).getMessage(null).contains("must not be final"));
+        assertTrue(diagnostics.getDiagnostics().get(1).getMessage(null).contains("Unsupported field type"));
+        assertFalse(Files.exists(dir.resolve("test/mapped/Invalid_YamlMapper.java")));
+    }
+
+    /**
+     * Compiles the provided source with the {@link YamlMapperProcessor} into the provided directory.
+     */
+    private static boolean compile(Path dir, String fileName, String source, DiagnosticListener<JavaFileObject> diagnostics) throws Exception {
+        Path file = dir.resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", dir.toString(),
+                            "-s", dir.toString(),
+                            "-classpath", System.getProperty("java.class.path"),
+                            "-processor", YamlMapperProcessor.class.getName()),
+                    null, fileManager.getJavaFileObjects(file.toFile()));
+            return task.call();
+        }
+    }
+
+    private static void set(Object obj, String fieldName, Object value) throws Exception {
+        Field field = obj.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(obj, value);
+    }
+
+    private static Object get(Object obj, String fieldName) throws Exception {
+        Field field = obj.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(obj);
+    }
+}
@@ -0,0 +1,57 @@
+package com.osiris.dyml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileOutputStreamTest {
+
+    @Test
+    void commit() throws IOException {
+        Path dir = Files.createTempDirectory("atomic-test");
+        Path file = dir.resolve("test.yml");
+        try {
+            Files.write(file, "old".getBytes(StandardCharsets.UTF_8));
+            for (FsyncPolicy policy : FsyncPolicy.values()) {
+                Path tempFile;
+                try (AtomicFileOutputStream out = new AtomicFileOutputStream(file, policy)) {
+                    tempFile = out.getTempFile();
+                    out.write(("new " + policy).getBytes(StandardCharsets.UTF_8));
+                    assertEquals("old", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                    out.commit();
+                }
+                assertEquals("new " + policy, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                assertFalse(Files.exists(tempFile));
+                Files.write(file, "old".getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void abort() throws IOException {
+        Path dir = Files.createTempDirectory("atomic-test");
+        Path file = dir.resolve("test.yml");
+        try {
+            Files.write(file, "old".getBytes(StandardCharsets.UTF_8));
+            Path tempFile;
+            try (AtomicFileOutputStream out = new AtomicFileOutputStream(file, FsyncPolicy.NONE)) {
+                tempFile = out.getTempFile();
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                // Closed without commit, like when an exception happens while writing
+            }
+            assertEquals("old", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            assertFalse(Files.exists(tempFile));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.osiris.dyml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileLocksTest {
+
+    @Test
+    void sameLockForSameFile() {
+        File file = new File("locks-test.yml");
+        assertSame(FileLocks.get(file), FileLocks.get(new File("./locks-test.yml").getAbsoluteFile()));
+        assertNotSame(FileLocks.get(file), FileLocks.get(new File("other-locks-test.yml")));
+    }
+
+    @Test
+    void sharedAndExclusive() throws Exception {
+        File file = new File("locks-test.yml");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            try (FileLocks.Handle ignored = FileLocks.lockShared(file)) {
+                // Other readers don't have to wait, writers do
+                assertTrue(executor.submit(() -> tryAndRelease(() -> FileLocks.tryLockShared(file, 1, TimeUnit.SECONDS))).get());
+                assertFalse(executor.submit(() -> tryAndRelease(() -> FileLocks.tryLockExclusive(file, 10, TimeUnit.MILLISECONDS))).get());
+            }
+            try (FileLocks.Handle ignored = FileLocks.lockExclusive(file)) {
+                assertFalse(executor.submit(() -> tryAndRelease(() -> FileLocks.tryLockShared(file, 10, TimeUnit.MILLISECONDS))).get());
+            }
+            assertTrue(executor.submit(() -> tryAndRelease(() -> FileLocks.tryLockExclusive(file, 1, TimeUnit.SECONDS))).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void handleAndUnlock() {
+        File file = new File("locks-test.yml");
+        FileLocks.Handle handle = FileLocks.lockExclusive(file);
+        assertTrue(FileLocks.get(file).isWriteLockedByCurrentThread());
+        handle.close();
+        handle.close(); // Has no effect
+        assertFalse(FileLocks.get(file).isWriteLocked());
+
+        FileLocks.lockShared(file);
+        assertEquals(1, FileLocks.get(file).getReadHoldCount());
+        FileLocks.unlock(file);
+        FileLocks.unlock(file); // Has no effect
+        assertEquals(0, FileLocks.get(file).getReadLockCount());
+
+        FileLocks.lockShared(null).close();
+        FileLocks.unlock(null);
+    }
+
+    @Test
+    void removedOnceUnused() throws Exception {
+        File file = new File("unused-locks-test.yml");
+        assertFalse(FileLocks.isHeldByCurrentThread(file));
+        assertFalse(FileLocks.isRegistered(file)); // Not registered by queries
+        try (FileLocks.Handle ignored = FileLocks.lockShared(file)) {
+            FileLocks.lockShared(new File("./unused-locks-test.yml"), false).close(); // Same lock
+            assertTrue(FileLocks.isRegistered(file));
+        }
+        assertFalse(FileLocks.isRegistered(file));
+        FileLocks.lockExclusive(file);
+        FileLocks.lockExclusive(file); // Reentrant
+        FileLocks.unlock(file);
+        assertTrue(FileLocks.isRegistered(file));
+        FileLocks.unlock(file);
+        assertFalse(FileLocks.isRegistered(file));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertNotNull(FileLocks.tryLockExclusive(file, 1, TimeUnit.SECONDS));
+            assertNull(executor.submit(() -> FileLocks.tryLockShared(file, 10, TimeUnit.MILLISECONDS)).get()); // Timed out
+            FileLocks.unlock(file);
+            assertFalse(FileLocks.isRegistered(file));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void crossProcess() throws Exception {
+        File file = new File("locks-test.yml");
+        File lockFile = FileLocks.getLockFile(file);
+        try {
+            try (FileLocks.Handle ignored = FileLocks.lockShared(file, true);
+                 FileLocks.Handle ignored2 = FileLocks.lockShared(file, true)) {
+                assertTrue(lockFile.exists());
+                assertTrue(tryLockInOtherProcess(lockFile, true));
+                assertFalse(tryLockInOtherProcess(lockFile, false));
+            }
+            try (FileLocks.Handle ignored = FileLocks.lockExclusive(file, true)) {
+                FileLocks.lockExclusive(file, true); // Reentrant
+                FileLocks.unlock(file, true);
+                assertFalse(tryLockInOtherProcess(lockFile, true));
+            }
+            assertTrue(tryLockInOtherProcess(lockFile, false));
+            assertFalse(FileLocks.get(file).isWriteLocked());
+        } finally {
+            lockFile.delete();
+        }
+    }
+
+    /**
+     * Starts another JVM that tries to lock the provided file.
+     */
+    private static boolean tryLockInOtherProcess(File lockFile, boolean shared) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                OtherProcess.class.getName(), lockFile.getAbsolutePath(), String.valueOf(shared))
+                .inheritIO().start();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        return process.exitValue() == 0;
+    }
+
+    private static boolean tryAndRelease(Callable<FileLocks.Handle> tryLock) throws Exception {
+        FileLocks.Handle handle = tryLock.call();
+        if (handle == null) return false;
+        handle.close();
+        return true;
+    }
+
+    public static class OtherProcess {
+        public static void main(String[] args) throws IOException {
+            try (FileChannel channel = FileChannel.open(new File(args[0]).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.tryLock(0, Long.MAX_VALUE, Boolean.parseBoolean(args[1]))) {
+                System.exit(lock != null ? 0 : 1);
+            }
+        }
+    }
+}
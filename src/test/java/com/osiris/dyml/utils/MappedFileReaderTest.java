@@ -0,0 +1,51 @@
+package com.osiris.dyml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedFileReaderTest {
+
+    @Test
+    void read() throws IOException {
+        Path file = Files.createTempFile("mapped-reader-test", ".yml");
+        try {
+            Random random = new Random(0);
+            Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16};
+            for (int n = 0; n < 200; n++) {
+                // Mostly ASCII with some multibyte chars and some invalid bytes
+                byte[] bytes = ("key: value ü 😀 " + n + "\n").getBytes(StandardCharsets.UTF_8);
+                byte[] content = new byte[random.nextInt(300)];
+                for (int i = 0; i < content.length; i++) {
+                    int r = random.nextInt(10);
+                    content[i] = r < 8 ? bytes[i % bytes.length] : (byte) random.nextInt(256);
+                }
+                Files.write(file, content);
+                for (Charset charset : charsets) {
+                    assertEquals(readAll(new InputStreamReader(new ByteArrayInputStream(content), charset), 4096),
+                            readAll(new MappedFileReader(file, charset), 1 + random.nextInt(16)));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private String readAll(Reader reader, int bufferSize) throws IOException {
+        try (Reader r = reader) {
+            StringBuilder builder = new StringBuilder();
+            char[] buffer = new char[bufferSize];
+            int read;
+            while ((read = r.read(buffer)) != -1)
+                builder.append(buffer, 0, read);
+            return builder.toString();
+        }
+    }
+}